@@ -7,29 +7,36 @@ import org.bukkit.advancement.Advancement;
 import org.bukkit.block.Block;
 import org.bukkit.Material;
 import org.bukkit.ChatColor;
+import org.bukkit.entity.EnderSignal;
 import org.bukkit.entity.EntityType;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.block.Action;
 import org.bukkit.event.block.BlockBreakEvent;
-import org.bukkit.event.block.BlockIgniteEvent;
 import org.bukkit.event.entity.EntityDamageEvent;
 import org.bukkit.event.entity.EntityDeathEvent;
 import org.bukkit.event.entity.EntityPickupItemEvent;
+import org.bukkit.event.entity.EntitySpawnEvent;
 import org.bukkit.event.entity.PlayerDeathEvent;
 import org.bukkit.event.inventory.CraftItemEvent;
 import org.bukkit.event.inventory.InventoryCloseEvent;
 import org.bukkit.inventory.ItemStack;
-import org.bukkit.inventory.meta.ItemMeta;
 import org.bukkit.event.player.*;
-import org.bukkit.scheduler.BukkitRunnable;
+import org.bukkit.event.world.PortalCreateEvent;
 import org.bukkit.scheduler.BukkitTask;
+import org.speedrun.speedrun.casualGameMode.NavigationCompass;
 import org.speedrun.speedrun.events.StructureFoundEvent;
+import org.speedrun.speedrun.managers.ChunkLoadGovernor;
 import org.speedrun.speedrun.managers.ConfigManager;
 import org.speedrun.speedrun.managers.GameManager;
+import org.speedrun.speedrun.managers.PortalRegistry;
+import org.speedrun.speedrun.managers.StructureBoundsIndex;
+import org.speedrun.speedrun.utils.BlockCursor;
 import org.speedrun.speedrun.utils.PaperCheckUtil;
-import java.util.Collections;
+import org.speedrun.speedrun.utils.PortalLocator;
+import org.speedrun.speedrun.utils.SnapshotGrid;
 
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
@@ -54,7 +61,6 @@ class GameListener implements Listener {
 
     // Cached config values for performance.
     // Кешовані значення конфігу для продуктивності.
-    private final int NETHER_PORTAL_CHECK_RADIUS; // Radius for checking nearby blocks for portals when lighting
     private final int TELEPORT_PORTAL_SEARCH_RADIUS; // Increased radius for finding portal block after teleportation
 
     private static final Set<EntityType> FOOD_MOBS = Set.of(
@@ -68,27 +74,12 @@ class GameListener implements Listener {
         this.plugin = plugin;
         this.gameManager = gameManager;
 
-        this.NETHER_PORTAL_CHECK_RADIUS = plugin.getConfigManager().getNetherPortalCheckRadius();
         this.TELEPORT_PORTAL_SEARCH_RADIUS = plugin.getConfigManager().getTeleportPortalSearchRadius();
     }
 
     private void increment(String key){
         plugin.getGameManager().incrementCounter(key);
     }
-    /**
-     * Utility method to create a consistent Navigation Compass.
-     * Placed here because GameListener needs it for join/death events.
-     */
-    private ItemStack createNavigationCompass() {
-        ItemStack compass = new ItemStack(Material.COMPASS);
-        ItemMeta meta = compass.getItemMeta();
-        if (meta != null) {
-            meta.setDisplayName(ChatColor.GOLD + "Navigation Compass");
-            meta.setLore(Collections.singletonList(ChatColor.GRAY + "Right-click to open destinations menu."));
-            compass.setItemMeta(meta);
-        }
-        return compass;
-    }
     // =========================================================================================
     // Game State Events
     // =========================================================================================
@@ -99,7 +90,7 @@ class GameListener implements Listener {
         SpeedrunLogger logger = gameManager.getLogger();
 
         if (plugin.getCasualGameModeManager().isCasualModeActive() && !player.hasPlayedBefore()) {
-            player.getInventory().addItem(createNavigationCompass());
+            player.getInventory().addItem(NavigationCompass.create());
             player.sendMessage(ChatColor.GREEN + "Welcome! You received a " + ChatColor.GOLD + "Navigation Compass" + ChatColor.GREEN + ".");
             player.sendMessage(ChatColor.GREEN + "Right-click it to find important locations!");
             // Optional: Automatically set their compass target to spawn or a default location
@@ -140,6 +131,10 @@ class GameListener implements Listener {
             plugin.getTaskManager().getAllTasks().forEach(task -> task.scale(playerCount, multiplier));
         }
 
+        // An exit expected for this player would otherwise be linked to whatever portal they create next.
+        // Інакше вихід, очікуваний для цього гравця, було б зв'язано з порталом, який він створить наступним.
+        plugin.getPortalRegistry().forgetExpected(event.getPlayer().getUniqueId());
+
         logger.logPlayerJoinOrQuit(event.getPlayer().getName(), "quit");
     }
 
@@ -192,7 +187,7 @@ class GameListener implements Listener {
     public void onPlayerRespawn(PlayerRespawnEvent event) {
         if(plugin.getCasualGameModeManager().isCasualModeActive()){
             Player player = event.getPlayer();
-            player.getInventory().addItem(createNavigationCompass());
+            player.getInventory().addItem(NavigationCompass.create());
             player.sendMessage(ChatColor.GREEN + "You received a Navigation Compass!");
         }
     }
@@ -207,19 +202,25 @@ class GameListener implements Listener {
 
         logger.logStructureFound(
                 event.getPlayer(),
-                event.getStructureKey(),
+                event.getStructureType().name(),
                 event.getLocation()
         );
 
         if(plugin.getCasualGameModeManager().isCasualModeActive()){
-            // Get CompassListener from GameManager to add the dynamic destination
-            gameManager.getCompassListener().addDynamicDestination(event.getPlayer(), event.getStructureKey(), event.getLocation());
+            // Get CompassListener from GameManager to add the dynamic destination.
+            // Waypoints and beacons stay one per type; further instances are reached through the nearest-instance lookup.
+            // Вейпоінти та маяки залишаються по одному на тип; наступні екземпляри доступні через пошук найближчого.
+            if (event.isFirstInstance()) {
+                gameManager.getCompassListener().addDynamicDestination(event.getPlayer(), event.getStructureType().name(), event.getLocation());
+            }
 
-            if (event.getStructureKey().equals("BASTION")) {
+            if (event.getStructureType() == StructureType.BASTION) {
                 plugin.getLogger().info("Bastion Remnant found by DedicatedGameListener at: " + event.getLocation().toVector() + ". Notifying highlight manager.");
                 // Get the CasualHighlightManager instance and notify it
                 if (plugin.getCasualGameModeManager().getCasualHighlightManager() != null) {
-                    plugin.getCasualGameModeManager().getCasualHighlightManager().addDetectedBastion(event.getLocation(), event.getLocation().getWorld());
+                    StructureBoundsIndex.Bounds bounds = plugin.getStructureBoundsIndex().find(event.getLocation(), StructureType.BASTION);
+                    plugin.getCasualGameModeManager().getCasualHighlightManager().addDetectedBastion(event.getLocation(),
+                            bounds != null ? bounds.box() : null);
                 } else {
                     plugin.getLogger().warning("CasualHighlightManager is null when a Bastion Remnant was detected!");
                 }
@@ -227,9 +228,9 @@ class GameListener implements Listener {
 
             // If enabled, create a temporary beacon waypoint at the structure's location.
             // Якщо увімкнено, створюємо тимчасовий вейпоінт-маяк на місці структури.
-            if (plugin.getConfigManager().areWaypointsEnabled()) {
-                if(Objects.equals(event.getStructureKey(), "NETHER_PORTAL")){ return; }
-                gameManager.getCasualModeStructureManager().createBeaconStructure(event.getLocation(), event.getStructureKey());
+            if (plugin.getConfigManager().areWaypointsEnabled() && event.isFirstInstance()) {
+                if (event.getStructureType() == StructureType.NETHER_PORTAL) { return; }
+                gameManager.getCasualModeStructureManager().createBeaconStructure(event.getLocation(), event.getStructureType());
             }
         }
     }
@@ -300,6 +301,19 @@ class GameListener implements Listener {
         }
     }
 
+    /**
+     * Captures every thrown eye of ender. The eye's target is set before it is added to the world, so the line from
+     * its spawn point to the target points at the stronghold; each throw refines the predicted End Portal location.
+     * |
+     * Захоплює кожне кинуте око Енду. Ціль ока встановлюється до його додавання у світ, тож лінія від точки появи
+     * до цілі вказує на фортецю; кожен кидок уточнює передбачену локацію порталу в Край.
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEntitySpawn(EntitySpawnEvent event) {
+        if (!(event.getEntity() instanceof EnderSignal signal) || !gameManager.isRunning()) return;
+        plugin.getStructureManager().eyeThrown(signal.getLocation(), signal.getTargetLocation());
+    }
+
     // --- Structure Finding Events ---
     @EventHandler
     public void onAdvancement(PlayerAdvancementDoneEvent event) {
@@ -325,16 +339,16 @@ class GameListener implements Listener {
             put("story/enter_the_nether", () -> logger.logMilestone(playerName, "enter_the_nether"));
             put("nether/find_fortress", () -> {
                 logger.logMilestone(playerName, "find_fortress");
-                plugin.getStructureManager().structureFound(player, "FORTRESS", player.getLocation());
+                structureFoundByAdvancement(player, StructureType.FORTRESS);
             });
             put("nether/find_bastion", () -> {
                 logger.logMilestone(playerName, "find_bastion");
-                plugin.getStructureManager().structureFound(player, "BASTION", player.getLocation());
+                structureFoundByAdvancement(player, StructureType.BASTION);
             });
             put("nether/obtain_blaze_rod", () -> logger.logMilestone(playerName, "first_blaze_rod"));
             put("story/follow_ender_eye", () -> {
                 logger.logMilestone(playerName, "first_stronghold_enter");
-                plugin.getStructureManager().structureFound(player, "END_PORTAL", player.getLocation());
+                structureFoundByAdvancement(player, StructureType.END_PORTAL);
             });
             put("story/enter_the_end", () -> logger.logMilestone(playerName, "first_end_enter"));
         }};
@@ -345,6 +359,24 @@ class GameListener implements Listener {
         }
     }
 
+    /**
+     * Fallback for structure advancements. The bounds index usually reports the structure first, on the block
+     * the player entered it; the advancement only counts if the structure is still unknown.
+     * |
+     * Резервний варіант для досягнень структур. Індекс меж зазвичай повідомляє про структуру першим, на блоці,
+     * де гравець у неї увійшов; досягнення враховується, лише якщо структура ще невідома.
+     */
+    private void structureFoundByAdvancement(Player player, StructureType type) {
+        if (!plugin.getStructureManager().isStructureSearchActive(type)) return;
+
+        Location loc = player.getLocation();
+        StructureBoundsIndex.Bounds bounds = plugin.getStructureBoundsIndex().find(loc, type);
+        if (bounds != null && type != StructureType.END_PORTAL) {
+            loc = bounds.center(loc.getWorld());
+        }
+        plugin.getStructureManager().structureFound(player, type, loc);
+    }
+
     // =========================================================================================
     // Portal Detection Logic
     // =========================================================================================
@@ -361,70 +393,70 @@ class GameListener implements Listener {
             long now = System.currentTimeMillis();
             if (lastBellInteract.getOrDefault(player.getUniqueId(), 0L) + BELL_COOLDOWN > now) return;
 
-            if (!plugin.getStructureManager().getFoundStructures().containsKey("VILLAGE")
-                    || plugin.getStructureManager().getFoundStructures().get("VILLAGE") == null) {
+            if (!plugin.getStructureManager().isFound(StructureType.VILLAGE)) {
                 plugin.getStructureManager().villageSearchFailed = false;  // reset the failed flag
-                plugin.getStructureManager().structureFound(player, "VILLAGE", event.getClickedBlock().getLocation());
+                plugin.getStructureManager().structureFound(player, StructureType.VILLAGE, event.getClickedBlock().getLocation());
                 lastBellInteract.put(player.getUniqueId(), now);
             }
         }
+    }
 
-        // Detect when a player lights a portal.
-        // Виявляємо, коли гравець запалює портал.
-        if (event.getAction() == Action.RIGHT_CLICK_BLOCK
-                && event.getItem() != null
-                && (event.getItem().getType() == Material.FLINT_AND_STEEL
-                || event.getItem().getType() == Material.FIRE_CHARGE)) {
-            Block clickedBlock = event.getClickedBlock();
-            if (clickedBlock != null) {
-                // A short delay is needed to allow the portal block to physically appear in the world.
-                // Потрібна невелика затримка, щоб блок порталу фізично з'явився у світі.
-                new BukkitRunnable() {
-                    @Override
-                    public void run() {
-                        for (Block nearby : getNearbyBlocks(clickedBlock, NETHER_PORTAL_CHECK_RADIUS)) {
-                            if (nearby.getType() == Material.NETHER_PORTAL) {
-                                plugin.getStructureManager().portalLit(event.getPlayer(), nearby.getLocation());
-                                cancel();
-                                return;
-                            }
-                        }
-                    }
-                }.runTaskLater(plugin, 2L); // 2 ticks should be enough. / 2 тіків має вистачити.
-            }
+    /**
+     * Detects portals the moment they are created, whether lit by a player, by fire spread or lava,
+     * or generated as the exit of a traversal. The event lists the exact portal blocks, so no scan is needed.
+     * |
+     * Виявляє портали в момент їх створення: запалені гравцем, розповсюдженням вогню чи лавою,
+     * або згенеровані як вихід під час переходу. Подія містить точні блоки порталу, тож сканування не потрібне.
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPortalCreate(PortalCreateEvent event) {
+        if (event.getReason() != PortalCreateEvent.CreateReason.FIRE
+                && event.getReason() != PortalCreateEvent.CreateReason.NETHER_PAIR) {
+            return;
         }
-    }
+        PortalRegistry.Portal created = plugin.getPortalRegistry().register(event.getBlocks());
+        if (created == null) return;
+        Location portal = created.getBase();
+        Player player = (event.getEntity() instanceof Player p) ? p : null;
 
-    @EventHandler
-    public void onBlockIgnite(BlockIgniteEvent event) {
-        // Detects portals lit by the environment (e.g., lava spread).
-        // Виявляє портали, запалені оточенням (напр., розповсюдженням лави).
-        if (event.getCause() == BlockIgniteEvent.IgniteCause.SPREAD
-                || event.getCause() == BlockIgniteEvent.IgniteCause.LAVA) {
-            new BukkitRunnable() {
-                @Override
-                public void run() {
-                    for (Block nearby : getNearbyBlocks(event.getBlock(), 2)) {
-                        if (nearby.getType() == Material.NETHER_PORTAL) {
-                            plugin.getStructureManager().portalLit(null, nearby.getLocation());
-                            cancel();
-                            return;
-                        }
-                    }
-                }
-            }.runTaskLater(plugin, 2L);
+        if (event.getReason() == PortalCreateEvent.CreateReason.FIRE) {
+            plugin.getStructureManager().portalLit(player, portal);
+            return;
+        }
+        // A portal generated for a traversal is the exact exit of the portal the player entered.
+        // Портал, згенерований для переходу, є точним виходом порталу, в який увійшов гравець.
+        if (player != null) plugin.getPortalRegistry().resolveExit(player.getUniqueId(), created);
+        if (plugin.getStructureManager().isPortalPartiallyFound()) {
+            plugin.getStructureManager().portalExitFound(portal);
         }
     }
 
     @EventHandler
     public void onPlayerPortal(PlayerPortalEvent event) {
         // This logic is for finding the *exit* of a portal to get precise, linked coordinates.
+        // The event's destination is already scaled by the worlds' coordinate scale and clamped to the world border,
+        // so it is where the server itself looks for the exit; the search starts there.
         // Ця логіка призначена для пошуку *виходу* з порталу для отримання точних, пов'язаних координат.
-        if (!plugin.getStructureManager().isPortalPartiallyFound()) {
+        // Ціль події вже масштабована за масштабом координат світів і обмежена кордоном світу,
+        // тож саме там сервер шукає вихід; пошук починається звідти.
+        Location to = event.getTo();
+
+        // A portal whose exit is already known never needs another search.
+        // Порталу, вихід якого вже відомий, більше ніколи не потрібен пошук.
+        PortalRegistry registry = plugin.getPortalRegistry();
+        PortalRegistry.Portal source = registry.registerAt(event.getFrom());
+        PortalRegistry.Portal knownExit = (source != null) ? registry.getLink(source) : null;
+        if (knownExit != null) {
+            handlePortalLogic(event, knownExit.getBase());
             return;
         }
 
-        Location to = event.getTo();
+        if (!plugin.getStructureManager().isPortalPartiallyFound()) {
+            return;
+        }
+        if (source != null) {
+            registry.expectExit(event.getPlayer().getUniqueId(), source); // In case the exit gets generated. / На випадок, якщо вихід буде згенеровано.
+        }
 
         AtomicBoolean handled = new AtomicBoolean(false);
         long timeout = 20L * plugin.getConfigManager().getPortalSearchTimeout();
@@ -439,15 +471,17 @@ class GameListener implements Listener {
         // Use an async, non-blocking method on Paper servers for better performance.
         // Використовуємо асинхронний, неблокуючий метод на серверах Paper для кращої продуктивності.
         if (PaperCheckUtil.IsPaper()) {
-            findPortalBlockAsync(to, TELEPORT_PORTAL_SEARCH_RADIUS)
+            findPortalBlockAsync(event.getPlayer(), to, TELEPORT_PORTAL_SEARCH_RADIUS)
                     .orTimeout(plugin.getConfigManager().getPortalSearchTimeout(), java.util.concurrent.TimeUnit.SECONDS)
                     .exceptionally(ex -> null) // on timeout -> use fallback
                     .thenAccept(preciseExitLoc -> {
                         if (handled.compareAndSet(false, true)) {
                             timeoutTask.cancel();
                             Location finalLocation = (preciseExitLoc != null) ? preciseExitLoc : to;
-                            plugin.getServer().getScheduler().runTask(plugin,
-                                    () -> handlePortalLogic(event, finalLocation));
+                            plugin.getServer().getScheduler().runTask(plugin, () -> {
+                                linkExit(source, preciseExitLoc);
+                                handlePortalLogic(event, finalLocation);
+                            });
                         }
                     });
         } else {
@@ -455,10 +489,30 @@ class GameListener implements Listener {
             // Резервний синхронний (потенційно лагаючий) метод для Spigot/Bukkit.
             Location preciseExitLoc = findPortalBlockSync(to, TELEPORT_PORTAL_SEARCH_RADIUS);
             Location finalLocation = (preciseExitLoc != null) ? preciseExitLoc : to;
+            linkExit(source, preciseExitLoc);
             handlePortalLogic(event, finalLocation);
         }
     }
 
+    /**
+     * Drops the expected exit of a teleport another plugin cancelled, so it cannot be linked to an unrelated portal.
+     * Відкидає очікуваний вихід телепорту, скасованого іншим плагіном, щоб його не було зв'язано з випадковим порталом.
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerPortalCancelled(PlayerPortalEvent event) {
+        if (event.isCancelled()) plugin.getPortalRegistry().forgetExpected(event.getPlayer().getUniqueId());
+    }
+
+    /**
+     * Memoizes the exit found for a portal, so the next traversal of that portal needs no search.
+     * Запам'ятовує знайдений вихід порталу, щоб наступний перехід через цей портал не потребував пошуку.
+     */
+    private void linkExit(PortalRegistry.Portal source, Location exitLoc) {
+        if (source == null || exitLoc == null) return;
+        PortalRegistry.Portal exit = plugin.getPortalRegistry().registerAt(exitLoc);
+        if (exit != null) plugin.getPortalRegistry().link(source, exit);
+    }
+
     /**
      * Handles the logic after a player has teleported and the precise exit location has been found.
      * Обробляє логіку після телепортації гравця та знаходження точної локації виходу.
@@ -489,57 +543,58 @@ class GameListener implements Listener {
     // =========================================================================================
 
     /**
-     * Helper method for obtaining blocks within a specified radius around the initial block.
-     * Допоміжний метод для отримання блоків у заданому радіусі навколо початкового блоку.
+     * Helper method for finding the portal block closest to the initial block within a specified radius.
+     * Reads block types directly from the world, so no Block objects are created.
+     * Допоміжний метод для пошуку блоку порталу, найближчого до початкового блоку, у заданому радіусі.
+     * Читає типи блоків безпосередньо зі світу, тож об'єкти Block не створюються.
      * @param start Initial block / Початковий блок.
      * @param radius Search radius / Радіус пошуку.
-     * @return List of blocks within the radius / Список блоків у радіусі.
+     * @return The portal block location, or null / Локація блоку порталу, або null.
      */
-    private List<Block> getNearbyBlocks(Block start, int radius) {
-        List<Block> blocks = new ArrayList<>();
-        for (int x = -radius; x <= radius; x++) {
-            for (int y = -radius; y <= radius; y++) {
-                for (int z = -radius; z <= radius; z++) {
-                    blocks.add(start.getRelative(x, y, z));
-                }
+    private Location findNearbyPortal(Block start, int radius) {
+        World world = start.getWorld();
+        BlockCursor cursor = new BlockCursor().nearestFirst(start.getX(), start.getY(), start.getZ(), radius)
+                .clampY(world.getMinHeight(), world.getMaxHeight() - 1);
+        while (cursor.next()) {
+            if (world.getType(cursor.x(), cursor.y(), cursor.z()) == Material.NETHER_PORTAL) {
+                return new Location(world, cursor.x(), cursor.y(), cursor.z());
             }
         }
-        return blocks;
+        return null;
     }
 
     /**
-     * Synchronously scans for a portal block. Can cause server lag.
-     * Синхронно сканує блок порталу. Може викликати лаги сервера.
+     * Synchronously scans for the nearest portal block. Can cause server lag.
+     * Синхронно сканує найближчий блок порталу. Може викликати лаги сервера.
      */
     private Location findPortalBlockSync(Location centerLoc, int searchRadius) {
         if (centerLoc == null || centerLoc.getWorld() == null) {
             return null;
         }
-        for (int x = -searchRadius; x <= searchRadius; x++) {
-            for (int y = -searchRadius; y <= searchRadius; y++) {
-                for (int z = -searchRadius; z <= searchRadius; z++) {
-                    Block block = centerLoc.clone().add(x, y, z).getBlock();
-                    if (block.getType() == Material.NETHER_PORTAL) {
-                        return block.getLocation();
-                    }
-                }
-            }
-        }
-        return null;
+        return findNearbyPortal(centerLoc.getBlock(), searchRadius);
     }
 
     /**
      * Asynchronously finds the nearest portal block using Paper's API.
-     * It first loads all necessary chunks in parallel, then scans them.
+     * The search starts at the predicted location and grows one ring of chunks at a time: each ring is requested
+     * from the {@link ChunkLoadGovernor}, its snapshots are taken from the shared cache on the main thread, and the
+     * block rings they fully cover are scanned off the main thread, nearest first. The first hit ends the search,
+     * so usually only the chunk under the predicted location is touched. If the search times out, the chunk
+     * requests that are still queued are withdrawn.
      * |
      * Асинхронно знаходить найближчий блок порталу за допомогою Paper API.
-     * Спочатку паралельно завантажує всі необхідні чанки, а потім сканує їх.
+     * Пошук починається з передбаченої локації та розширюється на одне кільце чанків за раз: кожне кільце
+     * запитується в {@link ChunkLoadGovernor}, його знімки беруться зі спільного кешу в основному потоці, а кільця
+     * блоків, які вони повністю покривають, скануються поза основним потоком, спершу найближчі. Перший збіг завершує
+     * пошук, тож зазвичай зачіпається лише чанк під передбаченою локацією. Якщо минув час, запити чанків,
+     * що ще в черзі, відкликаються.
      *
-     * @param centerLoc      Central location for search (from event.getTo()).
+     * @param player         The player who went through the portal; their chunk quota is used.
+     * @param centerLoc      Predicted exit location to search around.
      * @param searchRadius   Search radius in blocks.
      * @return CompletableFuture with the location of the portal block or null if not found.
      */
-    public CompletableFuture<Location> findPortalBlockAsync(Location centerLoc, int searchRadius) {
+    public CompletableFuture<Location> findPortalBlockAsync(Player player, Location centerLoc, int searchRadius) {
         if (centerLoc == null || centerLoc.getWorld() == null) {
             return CompletableFuture.completedFuture(null);
         }
@@ -548,37 +603,82 @@ class GameListener implements Listener {
         int centerX = centerLoc.getBlockX();
         int centerY = centerLoc.getBlockY();
         int centerZ = centerLoc.getBlockZ();
+        int lastChunkRing = (searchRadius + 15) >> 4;
+        SnapshotGrid grid = new SnapshotGrid(world, (centerX >> 4) - lastChunkRing, (centerZ >> 4) - lastChunkRing,
+                (centerX >> 4) + lastChunkRing, (centerZ >> 4) + lastChunkRing);
+
+        CompletableFuture<Location> result = new CompletableFuture<>();
+        List<CompletableFuture<Chunk>> chunkFutures = new ArrayList<>();
+        searchChunkRing(player, world, grid, centerX, centerY, centerZ, searchRadius, 0, -1, chunkFutures, result);
+
+        // A timed-out or failed search no longer needs the chunks that have not loaded yet.
+        // Пошуку, що завершився за тайм-аутом чи з помилкою, більше не потрібні ще не завантажені чанки.
+        result.whenComplete((location, error) -> {
+            if (error != null) {
+                synchronized (chunkFutures) {
+                    chunkFutures.forEach(future -> future.cancel(false));
+                }
+            }
+        });
+        return result;
+    }
 
-        // Step 1: Collect futures for all unique chunks in the search radius.
-        // Крок 1: Збираємо ф'ючерси для всіх унікальних чанків у радіусі пошуку.
-        Set<CompletableFuture<Chunk>> chunkFutures = new HashSet<>();
-        for (int x = centerX - searchRadius; x <= centerX + searchRadius; x++) {
-            for (int z = centerZ - searchRadius; z <= centerZ + searchRadius; z++) {
-                chunkFutures.add(world.getChunkAtAsync(x >> 4, z >> 4));
+    /**
+     * One step of {@link #findPortalBlockAsync}: loads one ring of chunks, then scans the newly covered block rings.
+     * Must be called on the main thread.
+     * Один крок {@link #findPortalBlockAsync}: завантажує одне кільце чанків, потім сканує щойно покриті кільця блоків.
+     * Має викликатися в основному потоці.
+     */
+    private void searchChunkRing(Player player, World world, SnapshotGrid grid, int centerX, int centerY, int centerZ, int searchRadius,
+                                 int chunkRing, int scannedRing, List<CompletableFuture<Chunk>> chunkFutures,
+                                 CompletableFuture<Location> result) {
+        if (result.isDone()) return; // Timed out. / Минув час.
+
+        // Step 1: Request the chunks of this ring through the governor.
+        // Крок 1: Запитуємо чанки цього кільця через регулятор.
+        ChunkLoadGovernor governor = plugin.getChunkLoadGovernor();
+        int originX = centerX >> 4, originZ = centerZ >> 4;
+        List<CompletableFuture<Chunk>> ring = new ArrayList<>();
+        for (int cx = originX - chunkRing; cx <= originX + chunkRing; cx++) {
+            for (int cz = originZ - chunkRing; cz <= originZ + chunkRing; cz++) {
+                if (Math.max(Math.abs(cx - originX), Math.abs(cz - originZ)) != chunkRing) continue;
+                ring.add(governor.request(world, cx, cz, ChunkLoadGovernor.Priority.PORTAL_SEARCH, player.getUniqueId()));
             }
         }
+        synchronized (chunkFutures) {
+            chunkFutures.addAll(ring);
+        }
 
-        // Step 2: When all chunks are loaded, proceed to scan them.
-        // Крок 2: Коли всі чанки завантажені, переходимо до їх сканування.
-        return CompletableFuture.allOf(chunkFutures.toArray(new CompletableFuture[0]))
-                .thenApplyAsync(v -> {
-                    // Step 3: Now that chunks are in memory, this scan is fast and safe.
-                    // Крок 3: Тепер, коли чанки в пам'яті, це сканування є швидким і безпечним.
-                    for (int x = -searchRadius; x <= searchRadius; x++) {
-                        for (int y = -searchRadius; y <= searchRadius; y++) {
-                            for (int z = -searchRadius; z <= searchRadius; z++) {
-                                int checkX = centerX + x;
-                                int checkY = centerY + y;
-                                int checkZ = centerZ + z;
-
-                                // The getBlockAt check will now be instantaneous, as the chunk is already in memory.
-                                if (world.getBlockAt(checkX, checkY, checkZ).getType() == Material.NETHER_PORTAL) {
-                                    return new Location(world, checkX, checkY, checkZ); // Found / знайдено.
-                                }
-                            }
-                        }
+        // Block rings fully inside the loaded chunks: the distance from the centre to the nearest unloaded column.
+        // Кільця блоків повністю всередині завантажених чанків: відстань від центру до найближчої незавантаженої колони.
+        int localX = centerX & 15, localZ = centerZ & 15;
+        int covered = Math.min(searchRadius, 16 * chunkRing
+                + Math.min(Math.min(localX, 15 - localX), Math.min(localZ, 15 - localZ)));
+
+        // Step 2: Once loaded (Paper completes these on the main thread), take their snapshots.
+        // Крок 2: Після завантаження (Paper завершує їх в основному потоці) беремо їхні знімки.
+        CompletableFuture.allOf(ring.toArray(new CompletableFuture[0]))
+                .thenApply(v -> {
+                    for (CompletableFuture<Chunk> future : ring) {
+                        Chunk chunk = future.join();
+                        grid.set(chunk.getX(), chunk.getZ(), plugin.getChunkSnapshotCache().get(chunk));
+                    }
+                    return grid;
+                })
+                // Step 3: Scan the newly covered rings of the immutable snapshots off the main thread.
+                // Крок 3: Скануємо щойно покриті кільця незмінних знімків поза основним потоком.
+                .thenApplyAsync(g -> PortalLocator.findNearest(g, centerX, centerY, centerZ, scannedRing + 1, covered))
+                .whenComplete((found, error) -> {
+                    if (error != null) {
+                        result.completeExceptionally(error);
+                    } else if (found != null) {
+                        result.complete(new Location(world, found[0], found[1], found[2])); // Found / знайдено.
+                    } else if (covered >= searchRadius) {
+                        result.complete(null); // Not found / Не знайдено.
+                    } else {
+                        Bukkit.getScheduler().runTask(plugin, () -> searchChunkRing(player, world, grid, centerX, centerY, centerZ,
+                                searchRadius, chunkRing + 1, covered, chunkFutures, result));
                     }
-                    return null; // Not found / Не знайдено.
                 });
     }
 
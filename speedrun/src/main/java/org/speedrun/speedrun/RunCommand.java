@@ -9,8 +9,11 @@ import org.bukkit.command.CommandSender;
 import org.bukkit.command.TabCompleter;
 import org.bukkit.entity.Player;
 import org.jetbrains.annotations.NotNull;
+import org.speedrun.speedrun.casualGameMode.CasualHighlightManager;
+import org.speedrun.speedrun.managers.ChunkLoadGovernor;
 import org.speedrun.speedrun.managers.ConfigManager;
 import org.speedrun.speedrun.managers.GameManager;
+import org.speedrun.speedrun.managers.StructureLocator;
 import org.speedrun.speedrun.managers.TaskManager;
 import org.speedrun.speedrun.utils.LocationUtil;
 
@@ -35,18 +38,15 @@ public class RunCommand implements CommandExecutor, TabCompleter {
         this.plugin = plugin;
     }
 
-
-    private static final Map<String, String> STRUCTURE_KEYS = Map.of(
-            "lavapool", "LAVA_POOL",
-            "lava_pool", "LAVA_POOL",
-            "village", "VILLAGE",
-            "netherportal", "NETHER_PORTAL",
-            "nether_portal", "NETHER_PORTAL",
-            "fortress", "FORTRESS",
-            "bastion", "BASTION",
-            "endportal", "END_PORTAL",
-            "end_portal", "END_PORTAL"
-    );
+    /** @return The lowercase names of all structure types, for error messages. / Назви всіх типів структур у нижньому регістрі, для повідомлень про помилки. */
+    private static String structureNames() {
+        StringBuilder names = new StringBuilder();
+        for (StructureType type : StructureType.values()) {
+            if (names.length() > 0) names.append(", ");
+            names.append(type.name().toLowerCase());
+        }
+        return names.toString();
+    }
 
     /**
      * Executes the given command, returning its success.
@@ -123,7 +123,14 @@ public class RunCommand implements CommandExecutor, TabCompleter {
                         return true;
                     }
                     plugin.getConfigManager().reload();
+                    plugin.getChunkSnapshotCache().reload();
+                    plugin.getChunkLoadGovernor().reload();
+                    plugin.getChunkPrefetcher().reload();
+                    plugin.getStructureLocator().reload();
+                    CasualHighlightManager highlightManager = plugin.getCasualGameModeManager().getCasualHighlightManager();
+                    if (highlightManager != null) highlightManager.reloadTargets(); // Targets may have changed / Цілі могли змінитися
                     plugin.getTaskManager().reloadTasks(); // Reload tasks after configuration
+                    plugin.getGameManager().requestRescan(); // Signatures and radii may have changed / Сигнатури та радіуси могли змінитися
                     player.sendMessage(plugin.getConfigManager().getFormattedText("commands.reloaded"));
                     return true;
 
@@ -143,13 +150,12 @@ public class RunCommand implements CommandExecutor, TabCompleter {
                     return showTasks(player);
 
                 case "new":
-                    // Join the arguments back together and map them to the internal key
+                    // Join the arguments back together and map them to the structure type
                     String rawKey = String.join("_", Arrays.copyOfRange(args, 1, args.length)).toLowerCase();
-                    String key = STRUCTURE_KEYS.get(rawKey);
+                    StructureType type = StructureType.fromKey(rawKey);
 
-                    if (key == null) {
-                        player.sendMessage("§cInvalid structure name. Valid options: "
-                                + String.join(", ", STRUCTURE_KEYS.keySet()));
+                    if (type == null) {
+                        player.sendMessage("§cInvalid structure name. Valid options: " + structureNames());
                         return true;
                     }
 
@@ -159,15 +165,15 @@ public class RunCommand implements CommandExecutor, TabCompleter {
                     }
 
                     // 1. Always un-hide the structure (even if coords stay the same)
-                    plugin.getStructureManager().restoreStructure(key);
+                    plugin.getStructureManager().restoreStructure(type);
 
                     // 2. Update (or set) the coordinates
                     boolean success;
-                    if (key.equals("NETHER_PORTAL") && rawKey.equals("nether_portal")) {
+                    if (type == StructureType.NETHER_PORTAL && rawKey.equals("nether_portal")) {
                         success = plugin.getStructureManager().reassignNetherPortal(player);
                     } else {
                         success = plugin.getStructureManager().updateStructureLocation(
-                                key,          // use the internal key directly
+                                type,
                                 player.getLocation(),
                                 player
                         );
@@ -190,30 +196,43 @@ public class RunCommand implements CommandExecutor, TabCompleter {
                     }
                     return handleLocateCommand(player, args);
 
+                case "find":
+                    if (!player.hasPermission("speedrun.admin")) {
+                        player.sendMessage(plugin.getConfigManager().getFormattedText("commands.no-permission"));
+                        return true;
+                    }
+                    if (args.length < 2) {
+                        player.sendMessage("§cUsage: /run find <structure>");
+                        return true;
+                    }
+                    return handleFindCommand(player, String.join("_", Arrays.copyOfRange(args, 1, args.length)).toLowerCase());
+
                 case "remove":
                     if (args.length < 2) {
                         player.sendMessage("§cUsage: /run remove <structure>");
                         return true;
                     }
                     String rawRemove = String.join("_", Arrays.copyOfRange(args, 1, args.length)).toLowerCase();
-                    String keyRemove = STRUCTURE_KEYS.get(rawRemove);
-                    if (keyRemove == null) {
-                        player.sendMessage("§cInvalid structure name. Valid: "
-                                + String.join(", ", STRUCTURE_KEYS.keySet()));
+                    StructureType typeRemove = StructureType.fromKey(rawRemove);
+                    if (typeRemove == null) {
+                        player.sendMessage("§cInvalid structure name. Valid: " + structureNames());
                         return true;
                     }
-                    if (plugin.getStructureManager().removeStructure(keyRemove)) {
+                    if (plugin.getStructureManager().removeStructure(typeRemove)) {
                         player.sendMessage("§aStructure hidden: " + rawRemove);
                     }
                     return true;
 
+                case "highlights":
+                    return handleHighlightsCommand(player, args);
+
                 default:
-                    player.sendMessage("§cUnknown subcommand. Use: start, pause, stop, reset, reload, skipstage, status, tasks, new, locate, remove.");
+                    player.sendMessage("§cUnknown subcommand. Use: start, pause, stop, reset, reload, skipstage, status, tasks, new, locate, find, remove, highlights.");
                     return true;
             }
         }
 
-        player.sendMessage("§aUsage: /run <start|pause|stop|reset|reload|skipstage|status|tasks|new|locate|remove>");
+        player.sendMessage("§aUsage: /run <start|pause|stop|reset|reload|skipstage|status|tasks|new|locate|find|remove|highlights>");
         return true;
     }
 
@@ -239,7 +258,7 @@ public class RunCommand implements CommandExecutor, TabCompleter {
         if (args.length == 1) {
             // Suggest all subcommands.
             // Пропонуємо всі підкоманди.
-            String[] subcommands = {"start", "pause", "stop", "reset", "reload", "skipstage", "status", "tasks", "new", "locate", "remove"};
+            String[] subcommands = {"start", "pause", "stop", "reset", "reload", "skipstage", "status", "tasks", "new", "locate", "find", "remove", "highlights"};
             for (String sub : subcommands) {
                 if (sub.startsWith(args[0].toLowerCase())) {
                     completions.add(sub);
@@ -249,11 +268,11 @@ public class RunCommand implements CommandExecutor, TabCompleter {
             String subCommand = args[0].toLowerCase();
             String currentArg = args[1].toLowerCase();
 
-            if (subCommand.equals("new") || subCommand.equals("remove")) {
+            if (subCommand.equals("new") || subCommand.equals("remove") || subCommand.equals("find")) {
                 // Suggest known structure names for `/run new`.
                 // Пропонуємо відомі назви структур для `/run new`.
-                for (String k : STRUCTURE_KEYS.values()) {
-                    if (k.toLowerCase().startsWith(currentArg)) completions.add(k);
+                for (StructureType type : StructureType.values()) {
+                    if (type.name().toLowerCase().startsWith(currentArg)) completions.add(type.name());
                 }
                 /// Add special case. / Додаємо особливий випадок.
                 // if ("nether portal".startsWith(currentArg)) {
@@ -266,6 +285,12 @@ public class RunCommand implements CommandExecutor, TabCompleter {
                 //     completions.add("end portal");
                 // }
 
+            } else if (subCommand.equals("highlights")) {
+                // Suggest on/off for `/run highlights`.
+                // Пропонуємо on/off для `/run highlights`.
+                for (String option : new String[]{"on", "off"}) {
+                    if (option.startsWith(currentArg)) completions.add(option);
+                }
             } else if (subCommand.equals("locate")) {
                 // Suggest pos1/pos2 for `/run locate`.
                 // Пропонуємо pos1/pos2 для `/run locate`.
@@ -283,6 +308,72 @@ public class RunCommand implements CommandExecutor, TabCompleter {
         return completions;
     }
 
+    /**
+     * Handles the `/run highlights [on|off]` command: shows or hides the bastion highlights for the player only.
+     * Without an argument the current setting is toggled.
+     * |
+     * Обробляє команду `/run highlights [on|off]`: показує або приховує підсвічування бастіонів лише для гравця.
+     * Без аргументу поточне налаштування перемикається.
+     */
+    private boolean handleHighlightsCommand(Player player, String[] args) {
+        CasualHighlightManager highlights = plugin.getCasualGameModeManager().getCasualHighlightManager();
+        if (highlights == null || !plugin.getCasualGameModeManager().isCasualModeActive()) {
+            player.sendMessage("§cHighlights are only available in casual mode.");
+            return true;
+        }
+
+        boolean enabled;
+        if (args.length < 2) {
+            enabled = !highlights.wantsHighlights(player);
+        } else if (args[1].equalsIgnoreCase("on")) {
+            enabled = true;
+        } else if (args[1].equalsIgnoreCase("off")) {
+            enabled = false;
+        } else {
+            player.sendMessage("§cUsage: /run highlights [on|off]");
+            return true;
+        }
+
+        highlights.setHighlightsEnabled(player, enabled);
+        player.sendMessage(enabled ? "§aBastion highlights are now shown to you." : "§aBastion highlights are now hidden from you.");
+        return true;
+    }
+
+    /**
+     * Handles the `/run find <structure>` command: reports the nearest generated structure of a type through the
+     * structure locator. The structure is only shown, not registered; `/run new` still sets it.
+     * |
+     * Обробляє команду `/run find <structure>`: повідомляє найближчу згенеровану структуру типу через пошук структур.
+     * Структура лише показується, а не реєструється; її, як і раніше, встановлює `/run new`.
+     */
+    private boolean handleFindCommand(Player player, String rawKey) {
+        StructureType type = StructureType.fromKey(rawKey);
+        if (type == null) {
+            player.sendMessage("§cInvalid structure name. Valid options: " + structureNames());
+            return true;
+        }
+        StructureLocator locator = plugin.getStructureLocator();
+        if (!locator.isEnabled()) {
+            player.sendMessage("§cThe structure locator is disabled in the config (settings.structure-locator).");
+            return true;
+        }
+        if (!StructureLocator.canGenerateIn(type, player.getWorld().getEnvironment())) {
+            player.sendMessage("§cThis structure cannot be located in this dimension: " + rawKey);
+            return true;
+        }
+
+        player.sendMessage("§7Searching for " + rawKey + "...");
+        locator.locate(type, player.getLocation()).thenAccept(loc -> {
+            if (!player.isOnline()) return;
+            if (loc == null) {
+                player.sendMessage("§cNo " + rawKey + " found within the search radius.");
+            } else {
+                player.sendMessage("§aNearest " + rawKey + ": §e" + LocationUtil.format(loc)
+                        + " §7(" + (int) Math.sqrt(loc.distanceSquared(player.getLocation())) + "m)");
+            }
+        });
+        return true;
+    }
 
     /**
      * Handles the `/run locate` command for stronghold triangulation.
@@ -355,6 +446,13 @@ public class RunCommand implements CommandExecutor, TabCompleter {
 
             calculateAndDisplayLocate(player, predicted);
 
+            // Both lines also join the captured eye throws in the probability grid.
+            // Обидві лінії також додаються до захоплених кидків ока в сітці ймовірностей.
+            for (Location aim : List.of(loc1, loc2)) {
+                double yaw = Math.toRadians(aim.getYaw());
+                plugin.getStructureManager().addStrongholdRay(aim, -Math.sin(yaw), Math.cos(yaw));
+            }
+
             // Clear stored positions after calculation.
             // Очищуємо збережені позиції після обчислення.
             playerPos1.remove(playerId);
@@ -390,6 +488,9 @@ public class RunCommand implements CommandExecutor, TabCompleter {
         sender.sendMessage(cm.getFormattedText(gm.isPaused() ? "commands.status.paused" : "commands.status.running"));
         tm.getCurrentStageName().ifPresent(stageName -> sender.sendMessage(cm.getFormattedText("commands.status.stage", "%stage%", stageName)));
         sender.sendMessage(cm.getFormattedText("commands.status.players", "%players%", String.valueOf(Bukkit.getOnlinePlayers().size())));
+        ChunkLoadGovernor governor = plugin.getChunkLoadGovernor();
+        sender.sendMessage(cm.getFormattedText("commands.status.chunk-loads", "%served%", String.valueOf(governor.getServed()),
+                "%inflight%", String.valueOf(governor.getInFlight()), "%queued%", String.valueOf(governor.getQueued())));
         sender.sendMessage(cm.getFormattedText("commands.status.footer"));
         return true; // Return true for successful command execution
     }
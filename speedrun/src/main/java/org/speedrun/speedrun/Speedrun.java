@@ -30,6 +30,12 @@ public final class Speedrun extends JavaPlugin {
     private StructureManager structureManager;
     private ScoreboardManager scoreboardManager;
     private CasualGameModeManager casualGameModeManager;
+    private ChunkSnapshotCache chunkSnapshotCache;
+    private StructureBoundsIndex structureBoundsIndex;
+    private ChunkPrefetcher chunkPrefetcher;
+    private ChunkLoadGovernor chunkLoadGovernor;
+    private PortalRegistry portalRegistry;
+    private StructureLocator structureLocator;
 
     TabCoordinateDisplay tabCoords = new TabCoordinateDisplay(this);
 
@@ -49,10 +55,15 @@ public final class Speedrun extends JavaPlugin {
         // Initialize managers in the correct order.
         // Ініціалізація менеджерів у правильному порядку.
         this.configManager = new ConfigManager(this);           // Must be first, as others depend on it. / Має бути першим, оскільки інші залежать від нього.
+        this.chunkSnapshotCache = new ChunkSnapshotCache(this); // Shared by all scanners. / Спільний для всіх сканерів.
+        this.chunkLoadGovernor = new ChunkLoadGovernor(this);   // Gate for every chunk load we start. / Шлюз для кожного завантаження чанків, яке ми запускаємо.
         this.taskManager = new TaskManager(this);               // Loads task data from the config. / Завантажує дані завдань з конфігурації.
         this.structureManager = new StructureManager(this);     // Handles structure detection logic. / Обробляє логіку виявлення структур.
+        this.portalRegistry = new PortalRegistry();             // Every portal of the run and its link. / Кожен портал забігу та його зв'язок.
         this.gameManager = new GameManager(this);               // Contains the core game loop and state. / Містить основний ігровий цикл та стан.
         this.scoreboardManager = new ScoreboardManager(this);   // Manages the player-facing UI. / Керує інтерфейсом, що бачить гравець.
+        this.structureBoundsIndex = new StructureBoundsIndex(this); // Real structure bounds from generated chunks. / Справжні межі структур зі згенерованих чанків.
+        this.structureLocator = new StructureLocator(this);     // Optional, off by default. / Опціонально, вимкнено за замовчуванням.
 
         this.casualGameModeManager = new CasualGameModeManager(this, gameManager);
         if (configManager.isCasualGameModeEnabled()) {
@@ -63,6 +74,14 @@ public final class Speedrun extends JavaPlugin {
 
         // Register event listeners and command handlers.
         // Реєстрація слухачів подій та обробників команд.
+        getServer().getPluginManager().registerEvents(chunkSnapshotCache, this);
+        getServer().getPluginManager().registerEvents(chunkLoadGovernor, this);
+        getServer().getPluginManager().registerEvents(new PlayerChunkTracker(), this); // Emits block/chunk change events. / Генерує події зміни блоку/чанка.
+        getServer().getPluginManager().registerEvents(gameManager, this);
+        getServer().getPluginManager().registerEvents(structureBoundsIndex, this);
+        getServer().getPluginManager().registerEvents(structureLocator, this);
+        this.chunkPrefetcher = new ChunkPrefetcher(this); // Optional, off by default. / Опціонально, вимкнено за замовчуванням.
+        getServer().getPluginManager().registerEvents(chunkPrefetcher, this);
         getServer().getPluginManager().registerEvents(new GameListener(this, gameManager), this);
 
         RunCommand runCommand = new RunCommand(this);
@@ -96,6 +115,13 @@ public final class Speedrun extends JavaPlugin {
 
         tabCoords.disable();
 
+        if (chunkPrefetcher != null) {
+            chunkPrefetcher.shutdown();
+        }
+        if (structureLocator != null) {
+            structureLocator.shutdown();
+        }
+
         getLogger().info("Speedrun plugin has been disabled.");
     }
 
@@ -134,6 +160,48 @@ public final class Speedrun extends JavaPlugin {
         return structureManager;
     }
 
+    /**
+     * @return The shared chunk snapshot cache. / Спільний кеш знімків чанків.
+     */
+    public ChunkSnapshotCache getChunkSnapshotCache() {
+        return chunkSnapshotCache;
+    }
+
+    /**
+     * @return The index of generated structure bounds. / Індекс меж згенерованих структур.
+     */
+    public StructureBoundsIndex getStructureBoundsIndex() {
+        return structureBoundsIndex;
+    }
+
+    /**
+     * @return The chunk prefetcher. / Менеджер попереднього завантаження чанків.
+     */
+    public ChunkPrefetcher getChunkPrefetcher() {
+        return chunkPrefetcher;
+    }
+
+    /**
+     * @return The governor all plugin chunk loads go through. / Регулятор, через який проходять усі завантаження чанків плагіном.
+     */
+    public ChunkLoadGovernor getChunkLoadGovernor() {
+        return chunkLoadGovernor;
+    }
+
+    /**
+     * @return The registry of known portals and their links. / Реєстр відомих порталів та їхніх зв'язків.
+     */
+    public PortalRegistry getPortalRegistry() {
+        return portalRegistry;
+    }
+
+    /**
+     * @return The cached, tick-spread structure locator. / Кешований пошук структур, розподілений по тіках.
+     */
+    public StructureLocator getStructureLocator() {
+        return structureLocator;
+    }
+
     /**
      * @return The scoreboard manager instance. / Екземпляр менеджера скорборду.
      */
@@ -0,0 +1,52 @@
+package org.speedrun.speedrun;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Every kind of structure the plugin can track. Declaration order is the order on the sidebar.
+ * Кожен вид структури, який може відстежувати плагін. Порядок оголошення є порядком на скорборді.
+ */
+public enum StructureType {
+    LAVA_POOL(true),
+    VILLAGE(true),
+    NETHER_PORTAL(true),
+    FORTRESS(true),
+    BASTION(true),
+    END_PORTAL(true),
+    /** Only detected through a block signature. / Виявляється лише через сигнатуру блоків. */
+    RUINED_PORTAL(false),
+    /** Only detected through a block signature. / Виявляється лише через сигнатуру блоків. */
+    DESERT_TEMPLE(false);
+
+    private static final StructureType[] VALUES = values();
+
+    // Listed on the sidebar as pending before it is found. / Показується на скорборді як очікувана ще до знаходження.
+    private final boolean alwaysListed;
+
+    StructureType(boolean alwaysListed) {
+        this.alwaysListed = alwaysListed;
+    }
+
+    /** @return True if the structure is shown on the sidebar even before it is found. / True, якщо структура показується на скорборді ще до знаходження. */
+    public boolean isAlwaysListed() {
+        return alwaysListed;
+    }
+
+    /**
+     * Resolves a structure from a config key or command argument, ignoring case and underscores
+     * (so "VILLAGE", "lava_pool" and "endportal" all resolve).
+     * Визначає структуру за ключем конфігурації чи аргументом команди, ігноруючи регістр і підкреслення
+     * (тож "VILLAGE", "lava_pool" та "endportal" розпізнаються).
+     *
+     * @return The structure type, or null if the name is unknown. / Тип структури, або null, якщо назва невідома.
+     */
+    @Nullable
+    public static StructureType fromKey(@Nullable String name) {
+        if (name == null) return null;
+        String normalized = name.replace("_", "").replace(" ", "");
+        for (StructureType type : VALUES) {
+            if (type.name().replace("_", "").equalsIgnoreCase(normalized)) return type;
+        }
+        return null;
+    }
+}
@@ -2,45 +2,106 @@ package org.speedrun.speedrun.casualGameMode;
 
 import org.speedrun.speedrun.Speedrun;
 import org.bukkit.Bukkit;
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Color;
 import org.bukkit.Location;
 import org.bukkit.Material;
 import org.bukkit.World;
 import org.bukkit.block.Block;
-import org.bukkit.entity.EntityType;
+import org.bukkit.block.TileState;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.entity.BlockDisplay;
+import org.bukkit.entity.Display;
 import org.bukkit.entity.Player;
-import org.bukkit.entity.Shulker;
 import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.block.BlockBreakEvent;
-import org.bukkit.potion.PotionEffect;
-import org.bukkit.potion.PotionEffectType;
+import org.bukkit.event.block.BlockExplodeEvent;
+import org.bukkit.event.block.BlockPlaceEvent;
+import org.bukkit.event.entity.EntityExplodeEvent;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
 import org.bukkit.scheduler.BukkitRunnable;
 import org.bukkit.scheduler.BukkitTask;
 import org.bukkit.util.BoundingBox;
+import org.bukkit.util.Transformation;
 import org.bukkit.metadata.FixedMetadataValue;
+import org.joml.AxisAngle4f;
+import org.joml.Vector3f;
+import org.jetbrains.annotations.Nullable;
+import org.speedrun.speedrun.events.PlayerChunkChangeEvent;
+import org.speedrun.speedrun.utils.BlockCursor;
+import org.speedrun.speedrun.utils.LocationUtil;
+import org.speedrun.speedrun.utils.SnapshotGrid;
 // No need for these specific imports if not using Paper's SearchResult methods
 // import org.bukkit.generator.structure.Structure;
 // import org.bukkit.generator.structure.StructureType;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Highlights the gold blocks of known bastions while a player is inside them.
+ * The gold blocks of each bastion are indexed once from chunk snapshots off the main thread, and the index is kept
+ * current by block break, place and explosion events. The periodic task only shows or hides the highlights of each
+ * bastion; it never scans blocks again. Chunks that were not loaded when a bastion was indexed are indexed as soon as
+ * a player is in the bastion.
+ * <p>
+ * Highlights are glowing block display entities, which do not tick. They are hidden by default and shown only to
+ * players who want highlights (toggled with {@code /run highlights}), and are pooled per world so that leaving one
+ * bastion and entering another reuses them instead of spawning new ones.
+ * <p>
+ * Besides bastion gold, the blocks configured per dimension are highlighted near players who want highlights.
+ * They are served from a {@link ChunkTargetIndex}, so finding them is a lookup in the chunks around each player.
+ * Each target's highlight counts the players it is shown for, so a player moving only updates their own targets.
+ */
 public class CasualHighlightManager implements Listener {
 
     private final Speedrun plugin;
     private BukkitTask highlightUpdateTask;
 
-    // Map to store spawned glowing entities (Shulkers)
-    // Key: Location of the gold block, Value: UUID of the spawned shulker
-    private final Map<Location, UUID> glowingEntities = new ConcurrentHashMap<>();
+    /**
+     * The gold block index of one bastion and the highlights currently shown for it.
+     * Only touched on the main thread, except for the snapshots handed to the scan.
+     */
+    private static final class BastionIndex {
+        private final World world;
+        private final BoundingBox box;
+        // Packed block position -> block coordinates of every known gold block
+        private final Map<Long, int[]> goldBlocks = new HashMap<>();
+        // Chunks whose part of the box has been scanned (or is being scanned)
+        private final Set<Long> indexedChunks = new HashSet<>();
+        // Block edits seen while a scan was in flight, re-applied on top of its results: position -> is gold
+        private final Map<Long, int[]> addedDuringScan = new HashMap<>();
+        private final Set<Long> removedDuringScan = new HashSet<>();
+        private boolean scanInFlight = false;
+        // Packed block position -> glowing display, only while a player is inside the bastion
+        private final Map<Long, BlockDisplay> highlights = new HashMap<>();
+        private boolean active = false;
 
-    // Store known bastion heuristic bounding boxes
-    // Key: Bastion's central location from detection, Value: The estimated BoundingBox
-    private final Map<Location, BoundingBox> knownBastionBoundingBoxes = new ConcurrentHashMap<>();
+        BastionIndex(World world, BoundingBox box) {
+            this.world = world;
+            this.box = box;
+        }
+
+        boolean contains(World world, int x, int y, int z) {
+            return this.world.equals(world) && box.contains(x + 0.5, y + 0.5, z + 0.5);
+        }
+    }
+
+    // Key: Bastion's central location from detection, Value: its gold block index
+    private final Map<Location, BastionIndex> knownBastions = new ConcurrentHashMap<>();
 
     private final Set<Material> HIGHLIGHT_MATERIALS = Collections.singleton(Material.GOLD_BLOCK);
 
@@ -48,34 +109,67 @@ public class CasualHighlightManager implements Listener {
     // This is a cube of side length 64, centered around the detected bastion location.
     private static final double HEURISTIC_BASTION_SIZE_RADIUS = 32.0; // Half of 64, for BoundingBox.of(center, radiusX, radiusY, radiusZ)
 
+    // Bumped when highlighting is stopped, so results of a scan started before that are dropped
+    private int generation = 0;
+
     private static final long UPDATE_INTERVAL_TICKS = 20 * 3; // Update every 3 seconds
     private static final String HIGHLIGHT_METADATA_KEY = "SPEEDRUN_HIGHLIGHT_ENTITY";
 
+    // Hidden displays kept for reuse, per world. Beyond this many in one world, released displays are removed.
+    private final Map<UUID, ArrayDeque<BlockDisplay>> displayPools = new HashMap<>();
+    private static final int MAX_POOLED_PER_WORLD = 256;
+    // Players who turned highlights on or off themselves, kept across rejoins; everyone else gets the configured default
+    private final Map<UUID, Boolean> highlightChoices = new HashMap<>();
+
+    /** The highlight of a configured target and the number of players it is shown for. */
+    private static final class TargetHighlight {
+        private BlockDisplay display;
+        private Material material;
+        private int viewers;
+    }
+
+    /** The world a player's targets are in and their packed block positions. */
+    private record PlayerTargets(UUID world, Set<Long> keys) {}
+
+    // Configured targets per chunk, and the highlights shown for the ones near players: world -> packed block position -> highlight
+    private final ChunkTargetIndex targetIndex;
+    private final Map<UUID, Map<Long, TargetHighlight>> targetHighlights = new HashMap<>();
+    // The targets highlighted for each player
+    private final Map<UUID, PlayerTargets> playerTargets = new HashMap<>();
+    // Block entities such as chests and skulls are drawn by their own renderers, which block displays do not use,
+    // so they are outlined with a glass cube instead
+    private final Map<Material, BlockData> displayBlocks = new EnumMap<>(Material.class);
+    // True while an update of the target highlights is scheduled for the next tick
+    private boolean targetUpdateQueued = false;
+
     public CasualHighlightManager(Speedrun plugin) {
         this.plugin = plugin;
+        this.targetIndex = new ChunkTargetIndex(plugin, this::queueTargetUpdate);
         Bukkit.getPluginManager().registerEvents(this, plugin); // Register self as listener
+        Bukkit.getPluginManager().registerEvents(targetIndex, plugin);
     }
 
     /**
      * Call this when a Bastion Remnant is detected (e.g., from your StructureFoundEvent).
-     * This will create and store a heuristic bounding box for the bastion.
+     * This will store the bastion's real bounding box, or a heuristic one if the real bounds are unknown,
+     * and index the gold blocks of its loaded chunks.
      *
      * @param bastionCenter The center location of the found bastion.
-     * @param world The world the bastion is in.
+     * @param realBox The generated bounds of the bastion, or null to estimate them.
      */
-    public void addDetectedBastion(Location bastionCenter, World world) {
-        if (!knownBastionBoundingBoxes.containsKey(bastionCenter)) {
-            // Create a heuristic bounding box around the detected center.
-            // BoundingBox.of(center, sizeX, sizeY, sizeZ) creates a box with given size around center.
-            // Or BoundingBox.of(loc1, loc2) for min/max corners.
+    public void addDetectedBastion(Location bastionCenter, @Nullable BoundingBox realBox) {
+        if (!knownBastions.containsKey(bastionCenter) && bastionCenter.getWorld() != null) {
+            // Fall back to a heuristic bounding box around the detected center.
             // Using BoundingBox.of(center, radiusX, radiusY, radiusZ) is good for centered boxes.
-            BoundingBox heuristicBox = BoundingBox.of(bastionCenter, HEURISTIC_BASTION_SIZE_RADIUS, HEURISTIC_BASTION_SIZE_RADIUS, HEURISTIC_BASTION_SIZE_RADIUS);
+            BoundingBox box = (realBox != null) ? realBox.clone()
+                    : BoundingBox.of(bastionCenter, HEURISTIC_BASTION_SIZE_RADIUS, HEURISTIC_BASTION_SIZE_RADIUS, HEURISTIC_BASTION_SIZE_RADIUS);
 
-            knownBastionBoundingBoxes.put(bastionCenter, heuristicBox);
-            plugin.getLogger().info("Registered Bastion Remnant (heuristic box) at " + bastionCenter.toVector() + " with estimated bounding box: " + heuristicBox);
+            BastionIndex bastion = new BastionIndex(bastionCenter.getWorld(), box);
+            knownBastions.put(bastionCenter, bastion);
+            plugin.getLogger().info("Registered Bastion Remnant (" + (realBox != null ? "generated" : "heuristic") + " box) at " + bastionCenter.toVector() + " with bounding box: " + box);
 
-            // Trigger an immediate scan for this new bastion's gold blocks
-            // This is run on the main thread because updateHighlighting involves Bukkit API calls
+            indexLoadedChunks(bastion);
+            // Show the highlights right away if the finder is already inside
             Bukkit.getScheduler().runTask(plugin, this::updateHighlighting);
         }
     }
@@ -90,7 +184,8 @@ public class CasualHighlightManager implements Listener {
             return;
         }
 
-        plugin.getLogger().info("Starting casual highlight update task (Bukkit-only heuristic mode)...");
+        plugin.getLogger().info("Starting casual highlight update task (indexed mode)...");
+        targetIndex.start();
 
         highlightUpdateTask = new BukkitRunnable() {
             @Override
@@ -100,105 +195,263 @@ public class CasualHighlightManager implements Listener {
         }.runTaskTimer(plugin, 0L, UPDATE_INTERVAL_TICKS); // Start immediately, repeat every interval
     }
 
+    /**
+     * Shows the highlights of every bastion with a player inside and hides the others,
+     * then updates the highlights of configured targets near players.
+     * Reads only the indexes; blocks are never scanned here.
+     */
     private void updateHighlighting() {
-        // This set will contain all gold block locations that *should* be glowing in this tick
-        Set<Location> goldBlocksToHighlightThisTick = new HashSet<>();
-
-        // Iterate through all known bastions
-        for (Map.Entry<Location, BoundingBox> entry : knownBastionBoundingBoxes.entrySet()) {
-            Location bastionCenter = entry.getKey();
-            BoundingBox heuristicBastionBox = entry.getValue();
-            World world = bastionCenter.getWorld();
-
-            if (world == null) continue; // Skip if world is no longer loaded
-
-            // Check if any player is near this bastion's heuristic box
-            boolean playerNearOrInBastion = false;
-            for (Player player : Bukkit.getOnlinePlayers()) {
-                // Check if player's location is within the heuristic bounding box
-                if (heuristicBastionBox.contains(player.getLocation().toVector())) {
-                    playerNearOrInBastion = true;
+        updateTargetHighlights();
+        for (BastionIndex bastion : knownBastions.values()) {
+            // Check if any player is inside this bastion's bounding box
+            boolean playerInBastion = false;
+            for (Player player : bastion.world.getPlayers()) {
+                if (bastion.box.contains(player.getLocation().toVector())) {
+                    playerInBastion = true;
                     break; // Found a player, no need to check other players for this bastion
                 }
             }
 
-            // Only process this bastion if a player is nearby and its main chunk is loaded
-            // Checking one chunk is a simplification; a full check would be needed for larger boxes.
-            if (playerNearOrInBastion && world.isChunkLoaded((int)heuristicBastionBox.getMinX() >> 4, (int)heuristicBastionBox.getMinZ() >> 4)) {
-                // Iterate blocks within the heuristic bounding box
-                for (int x = (int) heuristicBastionBox.getMinX(); x <= (int) heuristicBastionBox.getMaxX(); x++) {
-                    for (int y = (int) heuristicBastionBox.getMinY(); y <= (int) heuristicBastionBox.getMaxY(); y++) {
-                        for (int z = (int) heuristicBastionBox.getMinZ(); z <= (int) heuristicBastionBox.getMaxZ(); z++) {
-                            Location blockLoc = new Location(world, x, y, z);
-                            Block block = blockLoc.getBlock();
-                            if (HIGHLIGHT_MATERIALS.contains(block.getType())) {
-                                goldBlocksToHighlightThisTick.add(blockLoc);
-                                if (!glowingEntities.containsKey(blockLoc)) {
-                                    // If not already glowing, spawn a shulker
-                                    spawnGlowingEntity(blockLoc);
-                                }
-                            }
-                        }
-                    }
-                }
+            if (playerInBastion) {
+                // Chunks that were unloaded when the bastion was found are loaded now
+                indexLoadedChunks(bastion);
+                showHighlights(bastion);
+            } else if (bastion.active) {
+                hideHighlights(bastion);
             }
         }
+    }
 
-        // Clean up entities for gold blocks that should no longer be highlighted
-        // This handles blocks that are broken, or if a player moves away from a bastion
-        // and it's no longer being actively scanned this tick.
-        glowingEntities.entrySet().removeIf(entry -> {
-            Location loc = entry.getKey();
-            UUID entityId = entry.getValue();
-            org.bukkit.entity.Entity entity = Bukkit.getEntity(entityId);
+    /**
+     * Scans the part of the box inside every loaded chunk that has not been indexed yet.
+     * The snapshots are captured here and read off the main thread; the results are merged back on the main thread.
+     */
+    private void indexLoadedChunks(BastionIndex bastion) {
+        if (bastion.scanInFlight) return;
 
-            // If the block is not in the set of blocks that should be highlighted this tick,
-            // or its type changed, or the entity disappeared, remove it.
-            if (!goldBlocksToHighlightThisTick.contains(loc) || loc.getBlock().getType() != Material.GOLD_BLOCK || entity == null) {
-                if (entity != null) {
-                    entity.remove();
-                    plugin.getLogger().fine("Removed glowing entity at " + loc.toVector() + " (block broken or no longer in active bastion scan).");
+        BoundingBox box = bastion.box;
+        int minX = (int) Math.floor(box.getMinX()), minZ = (int) Math.floor(box.getMinZ());
+        int maxX = (int) Math.floor(box.getMaxX()), maxZ = (int) Math.floor(box.getMaxZ());
+        List<long[]> chunks = new ArrayList<>();
+        for (int cx = minX >> 4; cx <= maxX >> 4; cx++) {
+            for (int cz = minZ >> 4; cz <= maxZ >> 4; cz++) {
+                long key = LocationUtil.chunkKey(cx, cz);
+                if (!bastion.indexedChunks.contains(key) && bastion.world.isChunkLoaded(cx, cz)) {
+                    chunks.add(new long[]{cx, cz});
                 }
-                return true; // Remove from map
             }
-            return false; // Keep this one
+        }
+        if (chunks.isEmpty()) return;
+
+        SnapshotGrid grid = new SnapshotGrid(bastion.world, minX >> 4, minZ >> 4, maxX >> 4, maxZ >> 4);
+        for (long[] chunk : chunks) {
+            int cx = (int) chunk[0], cz = (int) chunk[1];
+            ChunkSnapshot snapshot = plugin.getChunkSnapshotCache().get(bastion.world, cx, cz);
+            if (snapshot == null) continue;
+            grid.set(cx, cz, snapshot);
+            bastion.indexedChunks.add(LocationUtil.chunkKey(cx, cz));
+        }
+
+        bastion.scanInFlight = true;
+        final int scanGeneration = generation;
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+            List<int[]> found = new ArrayList<>();
+            for (long[] chunk : chunks) {
+                found.addAll(findHighlightBlocks(grid, box, (int) chunk[0], (int) chunk[1]));
+            }
+            Bukkit.getScheduler().runTask(plugin, () -> {
+                bastion.scanInFlight = false;
+                // Highlighting may have been stopped while we were scanning
+                if (scanGeneration != generation) return;
+                for (int[] pos : found) {
+                    bastion.goldBlocks.put(LocationUtil.blockKey(pos[0], pos[1], pos[2]), pos);
+                }
+                // Blocks changed since the snapshots were taken win over the scan
+                bastion.goldBlocks.putAll(bastion.addedDuringScan);
+                bastion.goldBlocks.keySet().removeAll(bastion.removedDuringScan);
+                bastion.addedDuringScan.clear();
+                bastion.removedDuringScan.clear();
+                if (bastion.active) showHighlights(bastion);
+            });
         });
     }
 
     /**
-     * Spawns an invisible Shulker with the glowing effect at the given location.
+     * Collects the positions of highlight blocks inside the part of a box within one chunk. Safe to call off the main thread.
+     */
+    private List<int[]> findHighlightBlocks(SnapshotGrid grid, BoundingBox box, int chunkX, int chunkZ) {
+        List<int[]> positions = new ArrayList<>();
+        int minX = Math.max((int) Math.floor(box.getMinX()), chunkX << 4);
+        int minZ = Math.max((int) Math.floor(box.getMinZ()), chunkZ << 4);
+        int maxX = Math.min((int) Math.floor(box.getMaxX()), (chunkX << 4) + 15);
+        int maxZ = Math.min((int) Math.floor(box.getMaxZ()), (chunkZ << 4) + 15);
+        BlockCursor cursor = new BlockCursor().cube(minX, (int) box.getMinY(), minZ, maxX, (int) box.getMaxY(), maxZ);
+        ChunkSnapshot snapshot = null;
+        while (cursor.next()) {
+            if (cursor.isNewColumn()) snapshot = grid.get(cursor.x(), cursor.z());
+            if (snapshot != null && grid.isInHeight(cursor.y())
+                    && HIGHLIGHT_MATERIALS.contains(snapshot.getBlockType(cursor.localX(), cursor.y(), cursor.localZ()))) {
+                positions.add(new int[]{cursor.x(), cursor.y(), cursor.z()});
+            }
+        }
+        return positions;
+    }
+
+    /**
+     * Spawns the missing highlights of a bastion. Highlights that vanished with their chunk are spawned again.
+     * Must run on the main thread.
+     */
+    private void showHighlights(BastionIndex bastion) {
+        bastion.active = true;
+        for (Map.Entry<Long, int[]> entry : bastion.goldBlocks.entrySet()) {
+            BlockDisplay existing = bastion.highlights.get(entry.getKey());
+            if (existing != null && existing.isValid()) continue;
+            int[] pos = entry.getValue();
+            BlockDisplay display = acquireHighlight(new Location(bastion.world, pos[0], pos[1], pos[2]), Material.GOLD_BLOCK);
+            if (display != null) bastion.highlights.put(entry.getKey(), display);
+            else bastion.highlights.remove(entry.getKey());
+        }
+    }
+
+    /**
+     * Hides every highlight of a bastion and returns it to the pool. Must run on the main thread.
      */
-    private void spawnGlowingEntity(Location loc) {
+    private void hideHighlights(BastionIndex bastion) {
+        bastion.active = false;
+        for (BlockDisplay display : bastion.highlights.values()) {
+            releaseHighlight(display);
+        }
+        bastion.highlights.clear();
+    }
+
+    /**
+     * Places a glowing display of a block over the block at the given location, reusing a pooled one of that world if possible,
+     * and shows it to every player in the world who wants highlights.
+     * @return The display, or null if it could not be spawned.
+     */
+    @Nullable
+    private BlockDisplay acquireHighlight(Location loc, Material material) {
         World world = loc.getWorld();
         // Check if the world is valid and the chunk where the block is located is loaded
         if (world == null || !world.isChunkLoaded(loc.getBlockX() >> 4, loc.getBlockZ() >> 4)) {
-            plugin.getLogger().warning("Cannot spawn glowing entity: world is null or chunk not loaded for location: " + loc);
+            plugin.getLogger().fine("Cannot spawn glowing entity: world is null or chunk not loaded for location: " + loc);
+            return null;
+        }
+
+        BlockDisplay display = null;
+        ArrayDeque<BlockDisplay> pool = displayPools.get(world.getUID());
+        // Pooled displays are not persistent, so the ones whose chunk unloaded are gone
+        while (pool != null && !pool.isEmpty() && display == null) {
+            BlockDisplay pooled = pool.poll();
+            if (pooled.isValid() && pooled.teleport(loc)) display = pooled;
+        }
+
+        if (display == null) {
+            try {
+                display = world.spawn(loc, BlockDisplay.class, spawned -> {
+                    spawned.setGlowing(true);
+                    spawned.setGlowColorOverride(Color.YELLOW);
+                    spawned.setBrightness(new Display.Brightness(15, 15));
+                    // Slightly larger than the block, so the outline is not hidden inside it
+                    spawned.setTransformation(new Transformation(new Vector3f(-0.005f), new AxisAngle4f(),
+                            new Vector3f(1.01f), new AxisAngle4f()));
+                    spawned.setPersistent(false);
+                    spawned.setVisibleByDefault(false);
+                    spawned.setMetadata(HIGHLIGHT_METADATA_KEY, new FixedMetadataValue(plugin, true));
+                });
+                plugin.getLogger().fine("Spawned glowing display at " + loc.toVector() + " for block highlighting.");
+            } catch (Exception e) {
+                plugin.getLogger().severe("Failed to spawn block display at " + loc.toVector() + ": " + e.getMessage());
+                return null;
+            }
+        }
+
+        display.setBlock(displayBlockFor(material));
+        for (Player player : world.getPlayers()) {
+            if (wantsHighlights(player)) player.showEntity(plugin, display);
+        }
+        return display;
+    }
+
+    private BlockData displayBlockFor(Material material) {
+        return displayBlocks.computeIfAbsent(material, m -> {
+            BlockData data = m.createBlockData();
+            return (data.createBlockState() instanceof TileState) ? Material.GLASS.createBlockData() : data;
+        });
+    }
+
+    /**
+     * Hides a display from everyone and keeps it for reuse, or removes it if the pool of its world is full.
+     */
+    private void releaseHighlight(BlockDisplay display) {
+        if (!display.isValid()) return;
+        World world = display.getWorld();
+        ArrayDeque<BlockDisplay> pool = displayPools.computeIfAbsent(world.getUID(), id -> new ArrayDeque<>());
+        if (pool.size() >= MAX_POOLED_PER_WORLD) {
+            display.remove();
             return;
         }
+        // Everyone online, not just this world: a player who saw it and left would keep it shown when they return
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            player.hideEntity(plugin, display);
+        }
+        pool.push(display);
+    }
 
-        Location spawnLoc = loc.clone().add(0.5, 0, 0.5); // Center the shulker within the block
+    /**
+     * @return Whether the player currently wants to see highlights.
+     */
+    public boolean wantsHighlights(Player player) {
+        return highlightChoices.getOrDefault(player.getUniqueId(), plugin.getConfigManager().areHighlightsShownByDefault());
+    }
 
-        try {
-            Shulker shulker = (Shulker) world.spawnEntity(spawnLoc, EntityType.SHULKER);
-            shulker.setSilent(true);
-            shulker.setAI(false);
-            shulker.setGravity(false);
-            shulker.setInvulnerable(true);
-            shulker.setAware(false);
-            shulker.setPersistent(false);
-            shulker.setNoDamageTicks(Integer.MAX_VALUE);
-            shulker.setCollidable(false);
-            shulker.addPotionEffect(new PotionEffect(PotionEffectType.GLOWING, Integer.MAX_VALUE, 0, false, false));
-            shulker.setInvisible(true);
-            shulker.setMetadata(HIGHLIGHT_METADATA_KEY, new FixedMetadataValue(plugin, true));
+    /**
+     * Turns highlights on or off for one player and updates the displays they can see right away.
+     * @param player The player.
+     * @param enabled True to show highlights to the player.
+     */
+    public void setHighlightsEnabled(Player player, boolean enabled) {
+        highlightChoices.put(player.getUniqueId(), enabled);
+        updateVisibility(player);
+        if (highlightUpdateTask != null) updatePlayerTargets(player); // The player's surroundings may now be wanted or not
+    }
 
-            glowingEntities.put(loc, shulker.getUniqueId());
-            plugin.getLogger().fine("Spawned glowing Shulker at " + loc.toVector() + " for block highlighting.");
-        } catch (Exception e) {
-            plugin.getLogger().severe("Failed to spawn Shulker at " + loc.toVector() + ": " + e.getMessage());
+    /**
+     * Shows the active highlights of the player's world to the player if they want them, and hides them otherwise.
+     */
+    private void updateVisibility(Player player) {
+        boolean show = wantsHighlights(player);
+        for (BastionIndex bastion : knownBastions.values()) {
+            if (!bastion.active || !bastion.world.equals(player.getWorld())) continue;
+            for (BlockDisplay display : bastion.highlights.values()) {
+                if (show) player.showEntity(plugin, display);
+                else player.hideEntity(plugin, display);
+            }
+        }
+        Map<Long, TargetHighlight> shown = targetHighlights.get(player.getWorld().getUID());
+        if (shown == null) return;
+        for (TargetHighlight highlight : shown.values()) {
+            if (highlight.display == null) continue;
+            if (show) player.showEntity(plugin, highlight.display);
+            else player.hideEntity(plugin, highlight.display);
         }
     }
 
+    @EventHandler
+    public void onPlayerJoin(PlayerJoinEvent event) {
+        updateVisibility(event.getPlayer());
+    }
+
+    @EventHandler
+    public void onPlayerChangedWorld(PlayerChangedWorldEvent event) {
+        updateVisibility(event.getPlayer());
+    }
+
+    @EventHandler
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        forgetPlayerTargets(event.getPlayer().getUniqueId());
+    }
+
     /**
      * Stops the highlighting task and removes all spawned glowing entities.
      */
@@ -209,15 +462,28 @@ public class CasualHighlightManager implements Listener {
             plugin.getLogger().info("Stopped casual highlight update task.");
         }
 
-        // Remove all active shulkers
-        glowingEntities.values().forEach(uuid -> {
-            org.bukkit.entity.Entity entity = Bukkit.getEntity(uuid);
-            if (entity != null) {
-                entity.remove();
+        // Remove all active and pooled displays
+        for (BastionIndex bastion : knownBastions.values()) {
+            for (BlockDisplay display : bastion.highlights.values()) {
+                display.remove();
             }
-        });
-        glowingEntities.clear();
-        knownBastionBoundingBoxes.clear(); // Clear known bastions on disable
+            bastion.highlights.clear();
+            bastion.active = false;
+        }
+        for (Map<Long, TargetHighlight> shown : targetHighlights.values()) {
+            for (TargetHighlight highlight : shown.values()) {
+                if (highlight.display != null) highlight.display.remove();
+            }
+        }
+        targetHighlights.clear();
+        playerTargets.clear();
+        targetIndex.stop();
+        for (ArrayDeque<BlockDisplay> pool : displayPools.values()) {
+            pool.forEach(BlockDisplay::remove);
+        }
+        displayPools.clear();
+        knownBastions.clear(); // Clear known bastions on disable
+        generation++;
         plugin.getLogger().info("Removed all temporary glowing entities and cleared known bastions.");
     }
     public void reset() {
@@ -229,21 +495,192 @@ public class CasualHighlightManager implements Listener {
         plugin.getLogger().info("CasualHighlightManager reset complete: data cleared and task restarted.");
     }
     /**
-     * Listens for block breaks to remove highlighting when gold blocks are mined.
+     * Shows or hides highlights when a player crosses into or out of a known bastion, instead of waiting for the timer.
      */
     @EventHandler
+    public void onPlayerChunkChange(PlayerChunkChangeEvent event) {
+        if (highlightUpdateTask != null) updatePlayerTargets(event.getPlayer());
+        if (knownBastions.isEmpty()) return;
+
+        for (BastionIndex bastion : knownBastions.values()) {
+            if (touchesChunk(bastion.box, bastion.world, event.getToWorld(), event.getToChunk())
+                    || touchesChunk(bastion.box, bastion.world, event.getFromWorld(), event.getFromChunk())) {
+                updateHighlighting();
+                return;
+            }
+        }
+    }
+
+    private boolean touchesChunk(BoundingBox box, World boxWorld, World world, long chunkKey) {
+        if (world == null || !world.equals(boxWorld)) return false;
+        int chunkX = (int) chunkKey, chunkZ = (int) (chunkKey >> 32);
+        return chunkX >= ((int) box.getMinX() >> 4) && chunkX <= ((int) box.getMaxX() >> 4)
+                && chunkZ >= ((int) box.getMinZ() >> 4) && chunkZ <= ((int) box.getMaxZ() >> 4);
+    }
+
+    /**
+     * Coalesces index changes into one update on the next tick.
+     */
+    private void queueTargetUpdate() {
+        if (targetUpdateQueued) return;
+        targetUpdateQueued = true;
+        Bukkit.getScheduler().runTask(plugin, () -> {
+            targetUpdateQueued = false;
+            if (highlightUpdateTask != null) updateTargetHighlights();
+        });
+    }
+
+    /**
+     * Updates the target highlights of every online player, e.g. after the index changed.
+     */
+    private void updateTargetHighlights() {
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            updatePlayerTargets(player);
+        }
+    }
+
+    /**
+     * Highlights the configured targets in the chunks around one player if they want highlights, and releases the
+     * highlights of targets that no player is near any more. Costs one index lookup per chunk around the player.
+     */
+    private void updatePlayerTargets(Player player) {
+        UUID id = player.getUniqueId();
+        World world = player.getWorld();
+        Map<Long, ChunkTargetIndex.Target> wanted = new HashMap<>();
+        if (wantsHighlights(player)) {
+            Location loc = player.getLocation();
+            targetIndex.collectNear(world, loc.getBlockX() >> 4, loc.getBlockZ() >> 4,
+                    plugin.getConfigManager().getHighlightRadiusChunks(), wanted);
+        }
+
+        // Stop counting the player for the targets they left behind
+        PlayerTargets previous = playerTargets.remove(id);
+        boolean sameWorld = previous != null && previous.world().equals(world.getUID());
+        if (previous != null) {
+            for (long key : previous.keys()) {
+                if (!sameWorld || !wanted.containsKey(key)) unviewTarget(previous.world(), key);
+            }
+        }
+        if (wanted.isEmpty()) return;
+
+        Map<Long, TargetHighlight> shown = targetHighlights.computeIfAbsent(world.getUID(), w -> new HashMap<>());
+        for (Map.Entry<Long, ChunkTargetIndex.Target> entry : wanted.entrySet()) {
+            ChunkTargetIndex.Target target = entry.getValue();
+            TargetHighlight highlight = shown.computeIfAbsent(entry.getKey(), k -> new TargetHighlight());
+            if (!sameWorld || !previous.keys().contains(entry.getKey())) highlight.viewers++;
+            // Spawn the display, or replace one that vanished with its chunk or shows an outdated block
+            if (highlight.display == null || !highlight.display.isValid() || highlight.material != target.material()) {
+                if (highlight.display != null) releaseHighlight(highlight.display);
+                highlight.display = acquireHighlight(new Location(world, target.x(), target.y(), target.z()), target.material());
+                highlight.material = target.material();
+            }
+        }
+        playerTargets.put(id, new PlayerTargets(world.getUID(), new HashSet<>(wanted.keySet())));
+    }
+
+    /**
+     * Stops counting one player for a target, and releases its highlight when nobody is left.
+     */
+    private void unviewTarget(UUID world, long key) {
+        Map<Long, TargetHighlight> shown = targetHighlights.get(world);
+        TargetHighlight highlight = (shown != null) ? shown.get(key) : null;
+        if (highlight == null || --highlight.viewers > 0) return;
+        shown.remove(key);
+        if (highlight.display != null) releaseHighlight(highlight.display);
+    }
+
+    private void forgetPlayerTargets(UUID id) {
+        PlayerTargets previous = playerTargets.remove(id);
+        if (previous == null) return;
+        for (long key : previous.keys()) {
+            unviewTarget(previous.world(), key);
+        }
+    }
+
+    /**
+     * Drops the target index and its highlights, e.g. after the targets changed in the config.
+     */
+    public void reloadTargets() {
+        for (Map<Long, TargetHighlight> shown : targetHighlights.values()) {
+            for (TargetHighlight highlight : shown.values()) {
+                if (highlight.display != null) releaseHighlight(highlight.display);
+            }
+        }
+        targetHighlights.clear();
+        playerTargets.clear();
+        displayBlocks.clear();
+        targetIndex.clear();
+        if (highlightUpdateTask != null) queueTargetUpdate();
+    }
+
+    // =========================================================================================
+    // Index Maintenance
+    // =========================================================================================
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
     public void onBlockBreak(BlockBreakEvent event) {
-        Block brokenBlock = event.getBlock();
-        if (HIGHLIGHT_MATERIALS.contains(brokenBlock.getType())) {
-            Location loc = brokenBlock.getLocation();
-            UUID entityId = glowingEntities.remove(loc); // Remove from map
-            if (entityId != null) {
-                org.bukkit.entity.Entity entity = Bukkit.getEntity(entityId);
-                if (entity != null) {
-                    entity.remove(); // Remove the shulker
-                    plugin.getLogger().fine("Removed glowing entity for broken gold block at " + loc.toVector());
-                }
+        Block block = event.getBlock();
+        if (HIGHLIGHT_MATERIALS.contains(block.getType())) removeGoldBlock(block);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockPlace(BlockPlaceEvent event) {
+        Block block = event.getBlockPlaced();
+        if (HIGHLIGHT_MATERIALS.contains(block.getType())) {
+            addGoldBlock(block);
+        } else if (HIGHLIGHT_MATERIALS.contains(event.getBlockReplacedState().getType())) {
+            removeGoldBlock(block);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEntityExplode(EntityExplodeEvent event) {
+        removeExploded(event.blockList());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockExplode(BlockExplodeEvent event) {
+        removeExploded(event.blockList());
+    }
+
+    private void removeExploded(List<Block> blocks) {
+        if (knownBastions.isEmpty()) return;
+        for (Block block : blocks) {
+            if (HIGHLIGHT_MATERIALS.contains(block.getType())) removeGoldBlock(block);
+        }
+    }
+
+    private void addGoldBlock(Block block) {
+        for (BastionIndex bastion : knownBastions.values()) {
+            if (!bastion.contains(block.getWorld(), block.getX(), block.getY(), block.getZ())) continue;
+            long key = LocationUtil.blockKey(block.getX(), block.getY(), block.getZ());
+            int[] pos = {block.getX(), block.getY(), block.getZ()};
+            bastion.goldBlocks.put(key, pos);
+            if (bastion.scanInFlight) {
+                bastion.addedDuringScan.put(key, pos);
+                bastion.removedDuringScan.remove(key);
+            }
+            if (bastion.active) {
+                BlockDisplay display = acquireHighlight(block.getLocation(), Material.GOLD_BLOCK);
+                if (display != null) bastion.highlights.put(key, display);
+            }
+        }
+    }
+
+    private void removeGoldBlock(Block block) {
+        for (BastionIndex bastion : knownBastions.values()) {
+            if (!bastion.contains(block.getWorld(), block.getX(), block.getY(), block.getZ())) continue;
+            long key = LocationUtil.blockKey(block.getX(), block.getY(), block.getZ());
+            bastion.goldBlocks.remove(key);
+            if (bastion.scanInFlight) {
+                bastion.removedDuringScan.add(key);
+                bastion.addedDuringScan.remove(key);
+            }
+            BlockDisplay display = bastion.highlights.remove(key);
+            if (display != null) {
+                releaseHighlight(display);
+                plugin.getLogger().fine("Released glowing display for removed gold block at " + block.getLocation().toVector());
             }
         }
     }
-}
\ No newline at end of file
+}
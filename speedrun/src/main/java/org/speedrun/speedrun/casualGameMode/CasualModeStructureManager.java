@@ -8,6 +8,7 @@ import org.bukkit.block.Block;
 import org.bukkit.metadata.FixedMetadataValue;
 import org.bukkit.scheduler.BukkitRunnable;
 import org.speedrun.speedrun.Speedrun;
+import org.speedrun.speedrun.StructureType;
 
 /**
  * Manages features specific to the "casual" game mode, such as creating visual waypoints.
@@ -28,13 +29,13 @@ public class CasualModeStructureManager {
      * |
      * Визначає колір скла для маяка на основі типу структури.
      *
-     * @param structureKey The unique key of the structure. / Унікальний ключ структури.
+     * @param type The type of the structure. / Тип структури.
      * @return The Material of the stained glass to use. / Матеріал вітражного скла для використання.
      */
-    private Material getBeaconColor(String structureKey) {
-        return switch (structureKey) {
-            case "VILLAGE" -> Material.GREEN_STAINED_GLASS;  // Village = Green
-            case "LAVA_POOL" -> Material.RED_STAINED_GLASS;    // Lava = Red
+    private Material getBeaconColor(StructureType type) {
+        return switch (type) {
+            case VILLAGE -> Material.GREEN_STAINED_GLASS;  // Village = Green
+            case LAVA_POOL -> Material.RED_STAINED_GLASS;    // Lava = Red
             default -> Material.ORANGE_STAINED_GLASS; // Default = Orange
         };
     }
@@ -49,9 +50,9 @@ public class CasualModeStructureManager {
      * Усі блоки позначаються метаданими, щоб бути незнищенними.
      *
      * @param location The central location of the found structure. / Центральна локація знайденої структури.
-     * @param structureKey The key of the structure, used to determine the beacon color. / Ключ структури, використовується для визначення кольору маяка.
+     * @param type The type of the structure, used to determine the beacon color. / Тип структури, використовується для визначення кольору маяка.
      */
-    public void createBeaconStructure(Location location, String structureKey) {
+    public void createBeaconStructure(Location location, StructureType type) {
         // Place the beacon slightly away from the actual structure to avoid interference.
         // Розміщуємо маяк трохи осторонь від самої структури, щоб уникнути перешкод.
         double distanceFromStructure = 10;
@@ -85,7 +86,7 @@ public class CasualModeStructureManager {
                 beaconBlock.setMetadata("indestructible", new FixedMetadataValue(plugin, true));
 
                 // Set colored glass (hardcoded colors)
-                Material glassColor = getBeaconColor(structureKey); // Use the helper method
+                Material glassColor = getBeaconColor(type); // Use the helper method
                 Block glassBlock = beaconLoc.clone().add(0, 1, 0).getBlock();
                 glassBlock.setType(glassColor);
                 glassBlock.setMetadata("indestructible", new FixedMetadataValue(plugin, true));
@@ -0,0 +1,320 @@
+package org.speedrun.speedrun.casualGameMode;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockFace;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.block.BlockBurnEvent;
+import org.bukkit.event.block.BlockExplodeEvent;
+import org.bukkit.event.block.BlockFadeEvent;
+import org.bukkit.event.block.BlockFormEvent;
+import org.bukkit.event.block.BlockFromToEvent;
+import org.bukkit.event.block.BlockPistonExtendEvent;
+import org.bukkit.event.block.BlockPistonRetractEvent;
+import org.bukkit.event.block.BlockPlaceEvent;
+import org.bukkit.event.entity.EntityChangeBlockEvent;
+import org.bukkit.event.entity.EntityExplodeEvent;
+import org.bukkit.event.world.ChunkLoadEvent;
+import org.bukkit.event.world.ChunkUnloadEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
+import org.jetbrains.annotations.Nullable;
+import org.speedrun.speedrun.Speedrun;
+import org.speedrun.speedrun.utils.LocationUtil;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * An index of highlight targets (the configured blocks of each dimension) per loaded chunk.
+ * A chunk is indexed once when it loads, by scanning its snapshot off the main thread; block change events (break,
+ * place, explosions, forming, fading, flowing, burning, entities and pistons) keep the index current afterwards,
+ * and unloading a chunk drops it. Finding the targets near a
+ * player is then a lookup in the surrounding chunks instead of a block sweep.
+ * Must only be used from the main thread.
+ */
+public class ChunkTargetIndex implements Listener {
+
+    /** A target block and its type. */
+    public record Target(int x, int y, int z, Material material) {}
+
+    private final Speedrun plugin;
+    // Called on the main thread whenever targets are added or removed
+    private final Runnable onChange;
+
+    // World -> chunk key -> packed block position -> target
+    private final Map<UUID, Map<Long, Map<Long, Target>>> worlds = new HashMap<>();
+    // World -> chunk key -> whether the chunk changed while its scan was in flight
+    private final Map<UUID, Map<Long, Boolean>> scanning = new HashMap<>();
+    // Bumped when the index is cleared, so results of a scan started before that are dropped
+    private int generation = 0;
+    private boolean active = false;
+
+    public ChunkTargetIndex(Speedrun plugin, Runnable onChange) {
+        this.plugin = plugin;
+        this.onChange = onChange;
+    }
+
+    /** Starts indexing chunks as they load. */
+    public void start() {
+        active = true;
+    }
+
+    /** Stops indexing and forgets everything indexed so far. */
+    public void stop() {
+        active = false;
+        clear();
+    }
+
+    /** Forgets everything indexed so far, e.g. after the targets changed in the config. */
+    public void clear() {
+        worlds.clear();
+        scanning.clear();
+        generation++;
+    }
+
+    /**
+     * Collects the targets in a square of chunks. Loaded chunks that are not indexed yet (they were loaded before
+     * indexing started) are queued for indexing and reported through the change callback once done.
+     * @param world The world.
+     * @param chunkX The X coordinate of the centre chunk.
+     * @param chunkZ The Z coordinate of the centre chunk.
+     * @param radius The radius of the square in chunks.
+     * @param out Receives the targets, keyed by packed block position.
+     */
+    public void collectNear(World world, int chunkX, int chunkZ, int radius, Map<Long, Target> out) {
+        if (!active || targetsOf(world).isEmpty()) return;
+        Map<Long, Map<Long, Target>> chunks = worlds.get(world.getUID());
+        for (int cx = chunkX - radius; cx <= chunkX + radius; cx++) {
+            for (int cz = chunkZ - radius; cz <= chunkZ + radius; cz++) {
+                Map<Long, Target> targets = (chunks != null) ? chunks.get(LocationUtil.chunkKey(cx, cz)) : null;
+                if (targets != null) {
+                    out.putAll(targets);
+                } else if (world.isChunkLoaded(cx, cz)) {
+                    index(world.getChunkAt(cx, cz));
+                }
+            }
+        }
+    }
+
+    private Set<Material> targetsOf(World world) {
+        return plugin.getConfigManager().getHighlightTargets(world.getEnvironment());
+    }
+
+    /** Scans a loaded chunk off the main thread, unless it is indexed or being scanned already. */
+    private void index(Chunk chunk) {
+        Map<Long, Map<Long, Target>> chunks = worlds.get(chunk.getWorld().getUID());
+        if (chunks != null && chunks.containsKey(LocationUtil.chunkKey(chunk.getX(), chunk.getZ()))) return;
+        scan(chunk);
+    }
+
+    /**
+     * Scans a loaded chunk off the main thread and replaces its entry once done, keeping the old one until then.
+     * A chunk that is being scanned already is marked so it is scanned again.
+     */
+    private void scan(Chunk chunk) {
+        World world = chunk.getWorld();
+        Set<Material> targets = targetsOf(world);
+        if (targets.isEmpty()) return;
+
+        long key = LocationUtil.chunkKey(chunk.getX(), chunk.getZ());
+        Map<Long, Boolean> inFlight = scanning.computeIfAbsent(world.getUID(), id -> new HashMap<>());
+        if (inFlight.containsKey(key)) {
+            inFlight.put(key, true);
+            return;
+        }
+        inFlight.put(key, false);
+
+        // Not through the ChunkSnapshotCache: a chunk that just loaded is never in it, and storing every loaded
+        // chunk there would push out the snapshots the proximity and lava scanners reuse
+        ChunkSnapshot snapshot = chunk.getChunkSnapshot(false, false, false);
+        int minY = world.getMinHeight(), maxY = world.getMaxHeight();
+        int baseX = chunk.getX() << 4, baseZ = chunk.getZ() << 4;
+        final int scanGeneration = generation;
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+            Map<Long, Target> found = new HashMap<>();
+            for (int sectionY = minY; sectionY < maxY; sectionY += 16) {
+                // Sections are numbered from the bottom of the world
+                if (snapshot.isSectionEmpty((sectionY - minY) >> 4)) continue;
+                for (int y = sectionY; y < sectionY + 16 && y < maxY; y++) {
+                    for (int x = 0; x < 16; x++) {
+                        for (int z = 0; z < 16; z++) {
+                            Material type = snapshot.getBlockType(x, y, z);
+                            if (targets.contains(type)) {
+                                found.put(LocationUtil.blockKey(baseX + x, y, baseZ + z), new Target(baseX + x, y, baseZ + z, type));
+                            }
+                        }
+                    }
+                }
+            }
+            Bukkit.getScheduler().runTask(plugin, () -> finishScan(world, chunk.getX(), chunk.getZ(), found, scanGeneration));
+        });
+    }
+
+    private void finishScan(World world, int chunkX, int chunkZ, Map<Long, Target> found, int scanGeneration) {
+        // The index may have been cleared while we were scanning
+        if (scanGeneration != generation) return;
+        long key = LocationUtil.chunkKey(chunkX, chunkZ);
+        Map<Long, Boolean> inFlight = scanning.get(world.getUID());
+        Boolean changed = (inFlight != null) ? inFlight.remove(key) : null;
+        if (changed == null) return; // Unloaded while scanning
+
+        if (changed) {
+            // A block changed after the snapshot was taken, so take a fresh one
+            if (world.isChunkLoaded(chunkX, chunkZ)) scan(world.getChunkAt(chunkX, chunkZ));
+            return;
+        }
+        Map<Long, Target> previous = worlds.computeIfAbsent(world.getUID(), id -> new HashMap<>()).put(key, found);
+        if (!found.isEmpty() || (previous != null && !previous.isEmpty())) onChange.run();
+    }
+
+    // =========================================================================================
+    // Index Maintenance
+    // =========================================================================================
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkLoad(ChunkLoadEvent event) {
+        if (active) index(event.getChunk());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkUnload(ChunkUnloadEvent event) {
+        long key = LocationUtil.chunkKey(event.getChunk().getX(), event.getChunk().getZ());
+        Map<Long, Map<Long, Target>> chunks = worlds.get(event.getWorld().getUID());
+        Map<Long, Target> removed = (chunks != null) ? chunks.remove(key) : null;
+        Map<Long, Boolean> inFlight = scanning.get(event.getWorld().getUID());
+        if (inFlight != null) inFlight.remove(key);
+        if (removed != null && !removed.isEmpty()) onChange.run();
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onWorldUnload(WorldUnloadEvent event) {
+        worlds.remove(event.getWorld().getUID());
+        scanning.remove(event.getWorld().getUID());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockBreak(BlockBreakEvent event) {
+        update(event.getBlock(), null);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockPlace(BlockPlaceEvent event) {
+        update(event.getBlockPlaced(), event.getBlockPlaced().getType());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEntityExplode(EntityExplodeEvent event) {
+        update(event.blockList());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockExplode(BlockExplodeEvent event) {
+        update(event.blockList());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockForm(BlockFormEvent event) {
+        // Also covers spreading and blocks formed by entities, e.g. obsidian from water meeting lava
+        update(event.getBlock(), event.getNewState().getType());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockFade(BlockFadeEvent event) {
+        update(event.getBlock(), event.getNewState().getType());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockFromTo(BlockFromToEvent event) {
+        // Flowing liquid replaces what it flows into; a dragon egg leaves its block as well
+        update(event.getToBlock(), event.getBlock().getType());
+        if (event.getBlock().getType() == Material.DRAGON_EGG) update(event.getBlock(), null);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockBurn(BlockBurnEvent event) {
+        update(event.getBlock(), null);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEntityChangeBlock(EntityChangeBlockEvent event) {
+        update(event.getBlock(), event.getTo());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPistonExtend(BlockPistonExtendEvent event) {
+        moved(event.getBlocks(), event.getDirection());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPistonRetract(BlockPistonRetractEvent event) {
+        moved(event.getBlocks(), event.getDirection());
+    }
+
+    private void update(List<Block> blocks) {
+        if (!active || blocks.isEmpty() || targetsOf(blocks.get(0).getWorld()).isEmpty()) return;
+        for (Block block : blocks) {
+            update(block, null);
+        }
+    }
+
+    /**
+     * Rescans the chunks that targets moved by a piston leave and enter.
+     */
+    private void moved(List<Block> blocks, BlockFace direction) {
+        if (!active || blocks.isEmpty()) return;
+        Set<Material> targets = targetsOf(blocks.get(0).getWorld());
+        for (Block block : blocks) {
+            if (!targets.contains(block.getType())) continue;
+            rescan(block);
+            rescan(block.getRelative(direction));
+        }
+    }
+
+    private void rescan(Block block) {
+        World world = block.getWorld();
+        int chunkX = block.getX() >> 4, chunkZ = block.getZ() >> 4;
+        if (world.isChunkLoaded(chunkX, chunkZ)) scan(world.getChunkAt(chunkX, chunkZ));
+    }
+
+    /**
+     * Records that a block is now of the given type (null for removed). Must be called before the block changes,
+     * except for placing, where the placed type is both the old and the new one.
+     * Changes that involve no target are ignored; a chunk that is still being scanned is marked so it is scanned again.
+     */
+    private void update(Block block, @Nullable Material newType) {
+        if (!active) return;
+        World world = block.getWorld();
+        Set<Material> watched = targetsOf(world);
+        if (!watched.contains(block.getType()) && (newType == null || !watched.contains(newType))) return;
+        long chunkKey = LocationUtil.chunkKey(block.getX() >> 4, block.getZ() >> 4);
+
+        Map<Long, Boolean> inFlight = scanning.get(world.getUID());
+        if (inFlight != null && inFlight.containsKey(chunkKey)) {
+            inFlight.put(chunkKey, true);
+            return;
+        }
+
+        Map<Long, Map<Long, Target>> chunks = worlds.get(world.getUID());
+        Map<Long, Target> targets = (chunks != null) ? chunks.get(chunkKey) : null;
+        if (targets == null) return;
+
+        long key = LocationUtil.blockKey(block.getX(), block.getY(), block.getZ());
+        boolean changed;
+        if (newType != null && watched.contains(newType)) {
+            changed = targets.put(key, new Target(block.getX(), block.getY(), block.getZ(), newType)) == null;
+        } else {
+            changed = targets.remove(key) != null;
+        }
+        if (changed) onChange.run();
+    }
+}
@@ -1,7 +1,12 @@
 package org.speedrun.speedrun.casualGameMode; // Changed package to match your provided code
 
+import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.speedrun.speedrun.Speedrun;
+import org.speedrun.speedrun.StructureType;
+import org.speedrun.speedrun.events.PlayerBlockChangeEvent;
+import org.speedrun.speedrun.events.PlayerChunkChangeEvent;
+import org.speedrun.speedrun.managers.StructureLocator;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.Location;
@@ -12,37 +17,63 @@ import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
 import org.bukkit.event.block.Action;
 import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.entity.EntityPickupItemEvent;
 import org.bukkit.event.inventory.InventoryCloseEvent;
+import org.bukkit.event.inventory.InventoryDragEvent;
+import org.bukkit.event.player.PlayerDropItemEvent;
 import org.bukkit.event.player.PlayerInteractEvent;
+import org.bukkit.event.player.PlayerItemHeldEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.player.PlayerRespawnEvent;
+import org.bukkit.event.player.PlayerSwapHandItemsEvent;
 import org.bukkit.inventory.EquipmentSlot;
 import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.InventoryHolder;
 import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.PlayerInventory;
 import org.bukkit.inventory.meta.ItemMeta;
 import org.bukkit.scheduler.BukkitRunnable;
 
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 public class CompassListener implements Listener {
 
     private final Speedrun plugin;
     private final Map<Player, Location> playerDestinations = new HashMap<>();
+    private final Map<Player, String> playerDestinationNames = new HashMap<>();
+    // Destinations are only looked up by name (clicks) and listed by name (menus), so they stay a plain map.
+    // Distance queries go to the spatial indexes: a discovered structure's instances, including the first one that
+    // carries its beacon waypoint, live in StructureManager, and portals in PortalRegistry.
     private final Map<World, Map<String, Location>> predefinedDestinationsByWorld = new HashMap<>();
     private final Map<String, Material> customDestinationIcons = new HashMap<>();
+    // Prebuilt menus per world, dropped when that world's destinations change
+    private final Map<World, DestinationMenu> destinationMenus = new HashMap<>();
 
     private final List<Player> playersInMenu = new ArrayList<>();
+    // Players holding the Navigation Compass in either hand, kept current by inventory events
+    private final Set<UUID> compassHolders = new HashSet<>();
+    // The action bar text last sent to each holder, so it is only sent again when it changes
+    private final Map<UUID, String> lastActionBar = new HashMap<>();
     private static final String GUI_TITLE_PREFIX = ChatColor.DARK_BLUE + "Destinations - ";
 
+    // Where each player's compasses currently point: the destination or the next portal on the way there
+    private final Map<UUID, Location> compassPointing = new HashMap<>();
+    private final PortalRouter portalRouter;
+
     private BukkitRunnable compassUpdateTask;
 
     public CompassListener(Speedrun plugin) {
         this.plugin = plugin;
+        this.portalRouter = new PortalRouter(plugin);
         initializePredefinedDestinations();
         initializeCustomDestinationIcons();
         startCompassUpdateTask();
@@ -95,8 +126,8 @@ public class CompassListener implements Listener {
 
         // --- ADD THESE NEW LINES HERE ---
         // These are icons for structures dynamically found by players or the server.
-        // Make sure the key (e.g., "VILLAGE") exactly matches the 'structureKey'
-        // string passed in your StructureFoundEvent calls.
+        // Make sure the key (e.g., "VILLAGE") exactly matches the StructureType name
+        // carried by your StructureFoundEvent calls.
         customDestinationIcons.put("VILLAGE", Material.BELL); // Icon for a discovered village
         customDestinationIcons.put("NETHER_PORTAL", Material.OBSIDIAN);
 
@@ -130,22 +161,15 @@ public class CompassListener implements Listener {
     }
 
     /**
-     * Creates a Navigation Compass ItemStack.
-     * With no NBT API, this is a standard compass and will spin in Nether/End.
+     * Creates a Navigation Compass ItemStack pointing at a location.
      *
-     * @param targetLocation The location the compass should point to. (Primarily for initial player.setCompassTarget).
+     * @param targetLocation The location the compass should point to, or null for none.
      * @return The Navigation Compass ItemStack.
+     * @see NavigationCompass#create()
      */
-    public ItemStack createNavigationCompass(Location targetLocation) { // Made public for external use
-        ItemStack compass = new ItemStack(Material.COMPASS);
-        ItemMeta meta = compass.getItemMeta();
-        if (meta != null) {
-            meta.setDisplayName(ChatColor.GOLD + "Navigation Compass");
-            meta.setLore(Collections.singletonList(ChatColor.GRAY + "Right-click to open destinations menu."));
-            compass.setItemMeta(meta);
-        }
-        // No NBT API calls here, so no specific Lodestone NBT is added.
-        // The compass will rely solely on player.setCompassTarget() for its behavior.
+    public ItemStack createNavigationCompass(@Nullable Location targetLocation) { // Made public for external use
+        ItemStack compass = NavigationCompass.create();
+        NavigationCompass.setTarget(compass, targetLocation);
         return compass;
     }
 
@@ -159,46 +183,94 @@ public class CompassListener implements Listener {
             if ((event.getAction() == Action.RIGHT_CLICK_AIR || event.getAction() == Action.RIGHT_CLICK_BLOCK) &&
                     (event.getHand() == EquipmentSlot.HAND || (Bukkit.getVersion().contains("1.8") && event.getHand() == null))) {
 
-                if (item != null && item.getType() == Material.COMPASS) {
-                    ItemMeta meta = item.getItemMeta();
-                    if (meta != null && meta.hasDisplayName() &&
-                            meta.getDisplayName().equals(ChatColor.GOLD + "Navigation Compass")) {
-
-                        event.setCancelled(true);
-                        openDestinationMenu(player);
-                    }
+                if (NavigationCompass.isNavigationCompass(item)) {
+                    event.setCancelled(true);
+                    openDestinationMenu(player);
                 }
             }
         }
     }
 
+    /**
+     * A prebuilt destination menu of one world. The menu is its own inventory holder, so clicks are recognised by the
+     * holder and resolved through the slot array instead of by title and display name.
+     */
+    private static final class DestinationMenu implements InventoryHolder {
+        private final Inventory inventory;
+        // Destination name shown in each slot, or null for filler
+        private final String[] slotDestinations;
+        // Whether the menu lists structures found by the locator, which can be switched on or off by a reload
+        private final boolean withLocated;
+
+        DestinationMenu(int size, String title, boolean withLocated) {
+            this.inventory = Bukkit.createInventory(this, size, title);
+            this.slotDestinations = new String[size];
+            this.withLocated = withLocated;
+        }
+
+        @Override
+        public @NotNull Inventory getInventory() {
+            return inventory;
+        }
+    }
+
     private void openDestinationMenu(Player player) {
         World playerWorld = player.getWorld();
-        Map<String, Location> destinationsForWorld = predefinedDestinationsByWorld.get(playerWorld);
+        Map<String, Location> destinationsForWorld = predefinedDestinationsByWorld.getOrDefault(playerWorld, Map.of());
+        boolean withLocated = plugin.getStructureLocator().isEnabled();
+        List<StructureType> locatable = withLocated ? getLocatableTypes(playerWorld, destinationsForWorld) : List.of();
 
-        if (destinationsForWorld == null || destinationsForWorld.isEmpty()) {
+        if (destinationsForWorld.isEmpty() && locatable.isEmpty()) {
             player.sendMessage(ChatColor.RED + "No destinations set for this dimension yet!");
             return;
         }
 
-        int numDestinations = destinationsForWorld.size();
+        // Viewers share the menu; it is only rebuilt after this world's destinations change
+        DestinationMenu menu = destinationMenus.get(playerWorld);
+        if (menu == null || menu.withLocated != withLocated) {
+            menu = buildDestinationMenu(playerWorld, destinationsForWorld, locatable, withLocated);
+            destinationMenus.put(playerWorld, menu);
+        }
+        player.openInventory(menu.getInventory());
+        playersInMenu.add(player);
+    }
+
+    /**
+     * The structure types the locator can find in a world that have not been discovered there yet.
+     * Each player's nearest one is resolved through the locator when they click it.
+     */
+    private List<StructureType> getLocatableTypes(World world, Map<String, Location> destinationsForWorld) {
+        List<StructureType> types = new ArrayList<>();
+        for (StructureType type : StructureType.values()) {
+            if (type.isAlwaysListed() && StructureLocator.canGenerateIn(type, world.getEnvironment())
+                    && !destinationsForWorld.containsKey(type.name())) {
+                types.add(type);
+            }
+        }
+        return types;
+    }
+
+    private DestinationMenu buildDestinationMenu(World world, Map<String, Location> destinationsForWorld,
+                                                 List<StructureType> locatable, boolean withLocated) {
+        int numDestinations = destinationsForWorld.size() + locatable.size();
         int rows = (int) Math.ceil(numDestinations / 9.0);
         if (rows == 0) rows = 1;
         int size = rows * 9;
         if (size > 54) size = 54;
 
         String guiTitle;
-        if (playerWorld.getEnvironment() == World.Environment.NETHER) {
+        if (world.getEnvironment() == World.Environment.NETHER) {
             guiTitle = GUI_TITLE_PREFIX + "The Nether";
         } else { // Any other environment will be treated as Overworld for GUI display
             guiTitle = GUI_TITLE_PREFIX + "The Overworld";
         }
 
-        Inventory menu = Bukkit.createInventory(null, size, guiTitle);
+        DestinationMenu menu = new DestinationMenu(size, guiTitle, withLocated);
+        Inventory inventory = menu.getInventory();
 
-        ItemStack filler = getFillerItem(playerWorld);
+        ItemStack filler = getFillerItem(world);
         for (int i = 0; i < size; i++) {
-            menu.setItem(i, filler);
+            inventory.setItem(i, filler);
         }
 
         int slot = 0;
@@ -215,60 +287,92 @@ public class CompassListener implements Listener {
             ItemMeta meta = item.getItemMeta();
             if (meta != null) {
                 meta.setDisplayName(ChatColor.GREEN + name);
-                meta.setLore(Arrays.asList(
-                        ChatColor.GRAY + "X: " + loc.getBlockX(),
-                        ChatColor.GRAY + "Y: " + loc.getBlockY(),
-                        ChatColor.GRAY + "Z: " + loc.getBlockZ(),
-                        ChatColor.GRAY + "World: " + loc.getWorld().getName(),
+                List<String> lore = new ArrayList<>();
+                if (StructureType.fromKey(name) != null) {
+                    // The click points at the instance nearest to the viewer, which the shared menu cannot show
+                    lore.add(ChatColor.GRAY + "Points to the nearest known one");
+                    lore.add(ChatColor.GRAY + "First found at " + loc.getBlockX() + ", " + loc.getBlockY() + ", " + loc.getBlockZ());
+                } else {
+                    lore.add(ChatColor.GRAY + "X: " + loc.getBlockX());
+                    lore.add(ChatColor.GRAY + "Y: " + loc.getBlockY());
+                    lore.add(ChatColor.GRAY + "Z: " + loc.getBlockZ());
+                }
+                lore.add(ChatColor.GRAY + "World: " + loc.getWorld().getName());
+                lore.add("");
+                lore.add(ChatColor.YELLOW + "Click to set compass target");
+                meta.setLore(lore);
+                item.setItemMeta(meta);
+            }
+            menu.slotDestinations[slot] = name;
+            inventory.setItem(slot++, item);
+        }
+
+        for (StructureType type : locatable) {
+            if (slot >= size) break;
+            ItemStack item = new ItemStack(getIconForDestinationName(type.name()));
+            ItemMeta meta = item.getItemMeta();
+            if (meta != null) {
+                meta.setDisplayName(ChatColor.GREEN + type.name());
+                meta.setLore(List.of(
+                        ChatColor.GRAY + "Not found yet",
+                        ChatColor.GRAY + "Points to the nearest one around you",
                         "",
                         ChatColor.YELLOW + "Click to set compass target"
                 ));
                 item.setItemMeta(meta);
             }
-            menu.setItem(slot++, item);
+            menu.slotDestinations[slot] = type.name();
+            inventory.setItem(slot++, item);
         }
-
-        player.openInventory(menu);
-        playersInMenu.add(player);
+        return menu;
     }
 
     @EventHandler
     public void onInventoryClick(InventoryClickEvent event) {
         if (!(event.getWhoClicked() instanceof Player)) return;
+        if (!(event.getInventory().getHolder(false) instanceof DestinationMenu menu)) return;
 
         Player player = (Player) event.getWhoClicked();
+        event.setCancelled(true);
 
-        if (event.getView().getTitle().startsWith(GUI_TITLE_PREFIX)) {
-            event.setCancelled(true);
-
-            if (event.getCurrentItem() == null || event.getCurrentItem().getType() == Material.AIR) {
-                return;
-            }
-
-            ItemStack clickedItem = event.getCurrentItem();
-            ItemStack filler = getFillerItem(player.getWorld());
-            if (clickedItem.getType() == filler.getType() &&
-                    clickedItem.hasItemMeta() && filler.hasItemMeta() &&
-                    Objects.equals(clickedItem.getItemMeta().getDisplayName(), filler.getItemMeta().getDisplayName())) {
-                return;
-            }
-
-            ItemMeta clickedItemMeta = clickedItem.getItemMeta();
-            if (clickedItemMeta == null || !clickedItemMeta.hasDisplayName()) {
-                return;
-            }
+        // Clicks in the player's own inventory or on filler have no destination
+        int slot = event.getRawSlot();
+        if (slot < 0 || slot >= menu.slotDestinations.length) return;
+        String destinationName = menu.slotDestinations[slot];
+        if (destinationName == null) return;
 
-            String destinationName = ChatColor.stripColor(clickedItemMeta.getDisplayName());
+        World playerWorld = player.getWorld();
+        Map<String, Location> destinationsForWorld = predefinedDestinationsByWorld.get(playerWorld);
 
-            World playerWorld = player.getWorld();
-            Map<String, Location> destinationsForWorld = predefinedDestinationsByWorld.get(playerWorld);
+        if (destinationsForWorld != null && destinationsForWorld.containsKey(destinationName)) {
+            // A discovered structure type points to its instance nearest to the player
+            StructureType type = StructureType.fromKey(destinationName);
+            Location target = (type != null) ? plugin.getStructureManager().getNearestInstance(type, player.getLocation()) : null;
+            if (target == null || target.getWorld() != playerWorld) target = destinationsForWorld.get(destinationName);
+            setPlayerDestination(player, destinationName, target);
+            player.closeInventory();
+        } else if (menu.withLocated && StructureType.fromKey(destinationName) != null) {
+            // Not discovered yet: ask the locator, whose cell cache usually answers at once
+            StructureType type = StructureType.fromKey(destinationName);
+            player.closeInventory();
+            plugin.getStructureLocator().locate(type, player.getLocation()).thenAccept(loc -> {
+                if (!player.isOnline()) return;
+                if (loc == null || loc.getWorld() != player.getWorld()) {
+                    player.sendMessage(ChatColor.RED + "No " + destinationName + " found nearby.");
+                    return;
+                }
+                setPlayerDestination(player, destinationName, loc);
+            });
+        } else {
+            player.sendMessage(ChatColor.RED + "Error: Destination not found or not available in this dimension.");
+        }
+    }
 
-            if (destinationsForWorld != null && destinationsForWorld.containsKey(destinationName)) {
-                setPlayerDestination(player, destinationsForWorld.get(destinationName));
-                player.closeInventory();
-            } else {
-                player.sendMessage(ChatColor.RED + "Error: Destination not found or not available in this dimension.");
-            }
+    @EventHandler
+    public void onInventoryDrag(InventoryDragEvent event) {
+        // Menus are shared by every viewer, so nothing may be dragged into them
+        if (event.getInventory().getHolder(false) instanceof DestinationMenu) {
+            event.setCancelled(true);
         }
     }
 
@@ -277,105 +381,241 @@ public class CompassListener implements Listener {
         if (!(event.getPlayer() instanceof Player)) return;
 
         Player player = (Player) event.getPlayer();
-        if (event.getView().getTitle().startsWith(GUI_TITLE_PREFIX)) {
+        if (event.getInventory().getHolder(false) instanceof DestinationMenu) {
             playersInMenu.remove(player);
         }
+        // Items may have been moved into or out of the hands
+        refreshHeldCompass(player);
     }
 
     public void setPlayerDestination(Player player, Location targetLocation) {
+        setPlayerDestination(player, null, targetLocation);
+    }
+
+    private void setPlayerDestination(Player player, @Nullable String destinationName, Location targetLocation) {
         if (targetLocation != null) {
             playerDestinations.put(player, targetLocation);
-            String destinationName = null;
-            if (predefinedDestinationsByWorld.containsKey(targetLocation.getWorld())) {
-                destinationName = getKeyByValue(predefinedDestinationsByWorld.get(targetLocation.getWorld()), targetLocation);
+            if (destinationName != null) {
+                playerDestinationNames.put(player, destinationName);
+            } else {
+                playerDestinationNames.remove(player);
             }
 
             player.sendMessage(ChatColor.GREEN + "Compass now pointing to " + (destinationName != null ? destinationName : "a custom location") + " in " + targetLocation.getWorld().getName() + "!");
 
-            // This is the only method influencing the compass target without NBT API
-            player.setCompassTarget(targetLocation);
+            pointCompass(player, player.getLocation());
+            updateCompassDisplay(player, player.getLocation());
         } else {
             player.sendMessage(ChatColor.RED + "Could not set compass target. Invalid location.");
         }
     }
 
     /**
-     * Updates the player's current compass target, for use when player respawns etc.
-     * Note: Without NBT API, this will not make the compass point correctly in Nether/End.
+     * Points every Navigation Compass in the player's inventory at a location, for use when player respawns etc.
+     * The target is stored on each compass, so only compasses whose target actually changes are rewritten.
+     * Note: A compass still spins while its holder is in another dimension than the target.
      * @param player The player whose compass target is to be updated.
-     * @param targetLocation The location to set as the compass target.
+     * @param targetLocation The location to set as the compass target, or null to clear it.
      */
-    public void updatePlayerNavigationCompass(Player player, Location targetLocation) {
-        // Without NBT API, we can only rely on player.setCompassTarget()
-        player.setCompassTarget(targetLocation);
-        // You might want to send a message to the player if the target is in a different dimension
-        // so they understand why their compass is spinning.
+    public void updatePlayerNavigationCompass(Player player, @Nullable Location targetLocation) {
+        PlayerInventory inventory = player.getInventory();
+        ItemStack[] contents = inventory.getContents();
+        for (int i = 0; i < contents.length; i++) {
+            ItemStack item = contents[i];
+            if (NavigationCompass.isNavigationCompass(item) && NavigationCompass.setTarget(item, targetLocation)) {
+                inventory.setItem(i, item);
+            }
+        }
     }
 
 
+    /**
+     * Keeps the action bar of compass holders from fading. Changes are sent as they happen by
+     * {@link #updateCompassDisplay}; this slow timer only resends the cached text of players who hold the compass,
+     * without reading items or computing distances.
+     */
     private void startCompassUpdateTask() {
         compassUpdateTask = new BukkitRunnable() {
             @Override
             public void run() {
-                for (Player player : Bukkit.getOnlinePlayers()) {
-                    if (playersInMenu.contains(player)) {
-                        continue;
+                for (UUID id : compassHolders) {
+                    Player player = Bukkit.getPlayer(id);
+                    String text = lastActionBar.get(id);
+                    if (player != null && text != null && !playersInMenu.contains(player)) {
+                        player.sendActionBar(text);
                     }
+                }
+            }
+        };
+        compassUpdateTask.runTaskTimer(plugin, 40L, 40L);
+    }
 
-                    ItemStack mainHandItem = player.getInventory().getItemInMainHand();
-                    ItemStack offHandItem = player.getInventory().getItemInOffHand();
+    /**
+     * Warms the structure locator for the player's region cell, if it is enabled, so choosing a structure that has
+     * not been discovered yet resolves at once. The locator caches per cell, so this only searches when a player
+     * enters a new cell. Results depend on the player's position and are only read when that player clicks, so the
+     * shared destinations and menus are left untouched.
+     */
+    @EventHandler
+    public void onPlayerChunkChange(PlayerChunkChangeEvent event) {
+        StructureLocator locator = plugin.getStructureLocator();
+        if (!locator.isEnabled() || compassUpdateTask == null || compassUpdateTask.isCancelled()) return;
+
+        Player player = event.getPlayer();
+        World world = event.getToWorld();
+        for (StructureType type : getLocatableTypes(world, predefinedDestinationsByWorld.getOrDefault(world, Map.of()))) {
+            locator.locate(type, player.getLocation());
+        }
+    }
 
-                    boolean isHoldingCompass = false;
-                    if (mainHandItem != null && mainHandItem.getType() == Material.COMPASS) {
-                        ItemMeta meta = mainHandItem.getItemMeta();
-                        if (meta != null && meta.hasDisplayName() && meta.getDisplayName().equals(ChatColor.GOLD + "Navigation Compass")) {
-                            isHoldingCompass = true;
-                        }
-                    }
-                    if (!isHoldingCompass && offHandItem != null && offHandItem.getType() == Material.COMPASS) {
-                        ItemMeta meta = offHandItem.getItemMeta();
-                        if (meta != null && meta.hasDisplayName() && meta.getDisplayName().equals(ChatColor.GOLD + "Navigation Compass")) {
-                            isHoldingCompass = true;
-                        }
-                    }
+    @EventHandler
+    public void onPlayerBlockChange(PlayerBlockChangeEvent event) {
+        updateCompassDisplay(event.getPlayer(), event.getTo());
+    }
+
+    // The hands only hold their new items after these events, so the holding state is refreshed on the next tick
+
+    @EventHandler
+    public void onItemHeld(PlayerItemHeldEvent event) {
+        refreshHeldCompass(event.getPlayer());
+    }
+
+    @EventHandler
+    public void onSwapHands(PlayerSwapHandItemsEvent event) {
+        refreshHeldCompass(event.getPlayer());
+    }
+
+    @EventHandler
+    public void onItemDrop(PlayerDropItemEvent event) {
+        refreshHeldCompass(event.getPlayer());
+    }
+
+    @EventHandler
+    public void onItemPickup(EntityPickupItemEvent event) {
+        if (event.getEntity() instanceof Player player) refreshHeldCompass(player);
+    }
+
+    @EventHandler
+    public void onPlayerJoin(PlayerJoinEvent event) {
+        refreshHeldCompass(event.getPlayer());
+    }
+
+    @EventHandler
+    public void onPlayerRespawn(PlayerRespawnEvent event) {
+        refreshHeldCompass(event.getPlayer());
+    }
+
+    @EventHandler
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        UUID id = event.getPlayer().getUniqueId();
+        compassHolders.remove(id);
+        lastActionBar.remove(id);
+        compassPointing.remove(id);
+        portalRouter.forget(id);
+    }
 
-                    if (isHoldingCompass) {
-                        Location destination = playerDestinations.get(player);
-                        if (destination != null) {
-                            player.setCompassTarget(destination); // Always attempt to set target
-
-                            String destinationName = getKeyByValue(predefinedDestinationsByWorld.getOrDefault(destination.getWorld(), Collections.emptyMap()), destination);
-                            String targetWorldDisplayName;
-
-                            // Determine the display name for the target world
-                            if (destination.getWorld().getEnvironment() == World.Environment.NETHER) {
-                                targetWorldDisplayName = "the Nether";
-                            } else if (destination.getWorld().getEnvironment() == World.Environment.NORMAL) {
-                                targetWorldDisplayName = "the Overworld";
-                            } else { // This would catch the End or any other custom world environment
-                                targetWorldDisplayName = destination.getWorld().getName(); // Fallback to raw name
-                            }
-
-                            // Adjust action bar message to inform about spinning compass in non-overworld dimensions
-                            if (!player.getWorld().equals(destination.getWorld())) {
-                                player.sendActionBar(ChatColor.RED + "Target (" + (destinationName != null ? ChatColor.AQUA + destinationName + ChatColor.RED : "location") + ") in " + targetWorldDisplayName + "! ");
-                            } else if (player.getWorld().getEnvironment() != World.Environment.NORMAL) {
-                                // If player is in Nether/End, even if target is in same dimension, it will spin
-                                String distanceString = String.format("%.1f", player.getLocation().distance(destination)) + "m";
-                                player.sendActionBar(ChatColor.RED + "Target (" + (destinationName != null ? ChatColor.AQUA + destinationName + ChatColor.RED : "location") + ") in " + " (" + distanceString + ") " + ChatColor.DARK_RED + "Compass spins in this dimension.");
-                            }
-                            else {
-                                String distanceString = String.format("%.1f", player.getLocation().distance(destination)) + "m";
-                                player.sendActionBar(ChatColor.AQUA + "Target: " + Objects.requireNonNull(destinationName) + " (" + distanceString + ")");
-                            }
-                        } else {
-                            player.sendActionBar(ChatColor.GRAY + "No destination set. Right-click to choose!");
-                        }
+    /**
+     * Re-reads on the next tick whether the player holds the Navigation Compass in either hand.
+     * Call this after giving or taking the compass outside the events this listener already handles.
+     * @param player The player to check.
+     */
+    public void refreshHeldCompass(Player player) {
+        Bukkit.getScheduler().runTask(plugin, () -> {
+            if (!player.isOnline()) return;
+            UUID id = player.getUniqueId();
+            PlayerInventory inventory = player.getInventory();
+            if (NavigationCompass.isNavigationCompass(inventory.getItemInMainHand())
+                    || NavigationCompass.isNavigationCompass(inventory.getItemInOffHand())) {
+                // Show the action bar right away when the compass is taken in hand
+                if (compassHolders.add(id)) lastActionBar.remove(id);
+                // A compass received after the destination was chosen does not point anywhere yet
+                Location pointing = compassPointing.get(id);
+                if (pointing != null) {
+                    ItemStack mainHand = inventory.getItemInMainHand();
+                    if (NavigationCompass.isNavigationCompass(mainHand) && NavigationCompass.setTarget(mainHand, pointing)) {
+                        inventory.setItemInMainHand(mainHand);
+                    }
+                    ItemStack offHand = inventory.getItemInOffHand();
+                    if (NavigationCompass.isNavigationCompass(offHand) && NavigationCompass.setTarget(offHand, pointing)) {
+                        inventory.setItemInOffHand(offHand);
                     }
                 }
+                updateCompassDisplay(player, player.getLocation());
+            } else {
+                compassHolders.remove(id);
+                lastActionBar.remove(id);
             }
-        };
-        compassUpdateTask.runTaskTimer(plugin, 10L, 10L);
+        });
+    }
+
+    /**
+     * Points the player's compasses at their destination, or at the next portal of the cheapest route to it when the
+     * destination is in another dimension or is closer through the Nether. Compasses are only rewritten when that
+     * location changes.
+     * @param player The player whose compasses to point.
+     * @param current The player's current location.
+     * @return The next portal to take, or null if the compass points straight at the destination.
+     */
+    @Nullable
+    private Location pointCompass(Player player, Location current) {
+        Location destination = playerDestinations.get(player);
+        Location hop = (destination != null) ? portalRouter.nextHop(player, current, destination) : null;
+        Location target = (hop != null) ? hop : destination;
+        if (!Objects.equals(compassPointing.get(player.getUniqueId()), target)) {
+            updatePlayerNavigationCompass(player, target);
+            if (target != null) compassPointing.put(player.getUniqueId(), target);
+            else compassPointing.remove(player.getUniqueId());
+        }
+        return (hop != null && !hop.equals(destination)) ? hop : null;
+    }
+
+    /**
+     * Shows the destination and distance in the action bar if the player is holding the Navigation Compass.
+     * The text is only sent when it differs from the last one sent to the player; distances are shown in whole meters,
+     * so walking within the same meter sends nothing.
+     * @param player The player to update.
+     * @param current The player's current location.
+     */
+    private void updateCompassDisplay(Player player, Location current) {
+        // Nothing to show while the compass features are stopped
+        if (compassUpdateTask == null || compassUpdateTask.isCancelled() || playersInMenu.contains(player)
+                || !compassHolders.contains(player.getUniqueId())) {
+            return;
+        }
+
+        String text;
+        Location destination = playerDestinations.get(player);
+        if (destination != null) {
+            String destinationName = playerDestinationNames.get(player);
+            String targetWorldDisplayName;
+
+            // Determine the display name for the target world
+            if (destination.getWorld().getEnvironment() == World.Environment.NETHER) {
+                targetWorldDisplayName = "the Nether";
+            } else if (destination.getWorld().getEnvironment() == World.Environment.NORMAL) {
+                targetWorldDisplayName = "the Overworld";
+            } else { // This would catch the End or any other custom world environment
+                targetWorldDisplayName = destination.getWorld().getName(); // Fallback to raw name
+            }
+
+            // The compass points at its target in any dimension, but spins while the target is in another one
+            Location portal = pointCompass(player, current);
+            if (portal != null) {
+                String distanceString = Math.round(current.distance(portal)) + "m";
+                text = ChatColor.AQUA + "Target: " + (destinationName != null ? destinationName : "location") + ChatColor.LIGHT_PURPLE + " via portal" + ChatColor.AQUA + " (" + distanceString + ")";
+            } else if (!current.getWorld().equals(destination.getWorld())) {
+                text = ChatColor.RED + "Target (" + (destinationName != null ? ChatColor.AQUA + destinationName + ChatColor.RED : "location") + ") in " + targetWorldDisplayName + "! ";
+            } else {
+                String distanceString = Math.round(current.distance(destination)) + "m";
+                text = ChatColor.AQUA + "Target: " + (destinationName != null ? destinationName : "location") + " (" + distanceString + ")";
+            }
+        } else {
+            text = ChatColor.GRAY + "No destination set. Right-click to choose!";
+        }
+
+        if (!text.equals(lastActionBar.put(player.getUniqueId(), text))) {
+            player.sendActionBar(text);
+        }
     }
 
     public void stopCompassUpdateTask() {
@@ -402,7 +642,10 @@ public class CompassListener implements Listener {
 
         // Add the destination to the map for its respective world.
         // computeIfAbsent ensures the inner map exists for the world before adding.
-        predefinedDestinationsByWorld.computeIfAbsent(world, k -> new HashMap<>()).put(name, location);
+        Location previous = predefinedDestinationsByWorld.computeIfAbsent(world, k -> new HashMap<>()).put(name, location);
+        if (!location.equals(previous)) {
+            destinationMenus.remove(world); // Rebuilt on the next open
+        }
 
         // Notify the player
         if(player != null) {
@@ -423,20 +666,19 @@ public class CompassListener implements Listener {
         return playerDestinations.get(player);
     }
 
-    private <T, E> T getKeyByValue(Map<T, E> map, E value) {
-        for (Map.Entry<T, E> entry : map.entrySet()) {
-            if (Objects.equals(value, entry.getValue())) {
-                return entry.getKey();
-            }
-        }
-        return null;
-    }
-
     public void reset() {
         stopCompassUpdateTask(); // Stop the task before clearing data
         playerDestinations.clear(); // Clear player-specific dynamic destinations
+        playerDestinationNames.clear();
+        lastActionBar.clear(); // Holders get their action bar again on the next update
+        compassPointing.clear();
+        portalRouter.reset();
         predefinedDestinationsByWorld.clear(); // Clear any dynamically loaded/added predefined destinations
+        destinationMenus.clear();
         // (If these are *only* loaded from config once, you might not clear them here)
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            updatePlayerNavigationCompass(player, null); // Compasses carry their target, so clear it too
+        }
 
         // customDestinationIcons is typically static config, so it's usually NOT cleared on reset.
 
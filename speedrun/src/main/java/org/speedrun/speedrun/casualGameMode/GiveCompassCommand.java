@@ -3,15 +3,11 @@ package org.speedrun.speedrun.casualGameMode;
 import org.speedrun.speedrun.Speedrun; // Import your main plugin class
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
-import org.bukkit.Material;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
-import org.bukkit.inventory.meta.ItemMeta;
-
-import java.util.Collections;
 
 public class GiveCompassCommand implements CommandExecutor {
 
@@ -49,15 +45,12 @@ public class GiveCompassCommand implements CommandExecutor {
         }
 
         // Create the special compass item
-        ItemStack compass = new ItemStack(Material.COMPASS);
-        ItemMeta meta = compass.getItemMeta();
-        if (meta != null) {
-            meta.setDisplayName(ChatColor.GOLD + "Navigation Compass");
-            meta.setLore(Collections.singletonList(ChatColor.GRAY + "Right-click to open destinations menu."));
-            compass.setItemMeta(meta);
-        }
+        ItemStack compass = NavigationCompass.create();
 
         targetPlayer.getInventory().addItem(compass);
+        // The compass may have landed in the selected hotbar slot
+        CompassListener compassListener = plugin.getGameManager().getCompassListener();
+        if (compassListener != null) compassListener.refreshHeldCompass(targetPlayer);
         targetPlayer.sendMessage(ChatColor.GREEN + "You received a Navigation Compass!");
         if (!sender.equals(targetPlayer)) {
             sender.sendMessage(ChatColor.GREEN + "Gave a Navigation Compass to " + targetPlayer.getName() + ".");
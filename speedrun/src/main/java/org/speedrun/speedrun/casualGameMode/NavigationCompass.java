@@ -0,0 +1,82 @@
+package org.speedrun.speedrun.casualGameMode;
+
+import org.bukkit.ChatColor;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.NamespacedKey;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.CompassMeta;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.persistence.PersistentDataType;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collections;
+import java.util.Objects;
+
+/**
+ * Creates and recognises the Navigation Compass.
+ * The compass carries a persistent data tag, so recognising it is a tag lookup instead of a display name comparison.
+ * Its target is stored on the item as an untracked lodestone, which points the needle in any dimension the target is in.
+ */
+public final class NavigationCompass {
+
+    /** Marks an item as the Navigation Compass. */
+    public static final NamespacedKey KEY = Objects.requireNonNull(NamespacedKey.fromString("speedrun:navigation_compass"));
+
+    private static final String DISPLAY_NAME = ChatColor.GOLD + "Navigation Compass";
+
+    private NavigationCompass() {}
+
+    /**
+     * Creates a new, tagged Navigation Compass.
+     * @return The Navigation Compass ItemStack.
+     */
+    public static ItemStack create() {
+        ItemStack compass = new ItemStack(Material.COMPASS);
+        ItemMeta meta = compass.getItemMeta();
+        if (meta != null) {
+            meta.setDisplayName(DISPLAY_NAME);
+            meta.setLore(Collections.singletonList(ChatColor.GRAY + "Right-click to open destinations menu."));
+            meta.getPersistentDataContainer().set(KEY, PersistentDataType.BYTE, (byte) 1);
+            compass.setItemMeta(meta);
+        }
+        return compass;
+    }
+
+    /**
+     * Checks whether an item is the Navigation Compass.
+     * Compasses handed out before the tag existed are still recognised by their name.
+     * @param item The item to check, may be null.
+     * @return True if the item is the Navigation Compass.
+     */
+    public static boolean isNavigationCompass(@Nullable ItemStack item) {
+        if (item == null || item.getType() != Material.COMPASS) return false;
+        if (item.getPersistentDataContainer().has(KEY)) return true;
+
+        ItemMeta meta = item.getItemMeta();
+        return meta != null && meta.hasDisplayName() && meta.getDisplayName().equals(DISPLAY_NAME);
+    }
+
+    /**
+     * Points a compass at a location. The location is stored as the compass's lodestone with tracking off, so no
+     * lodestone block is needed. The meta is only written when the target block changes.
+     * @param compass The compass to update.
+     * @param target The location to point at, or null to clear the target.
+     * @return True if the item was changed.
+     */
+    public static boolean setTarget(ItemStack compass, @Nullable Location target) {
+        if (!(compass.getItemMeta() instanceof CompassMeta meta)) return false;
+        if (sameBlock(meta.getLodestone(), target)) return false;
+
+        meta.setLodestone(target != null ? target.toBlockLocation() : null);
+        meta.setLodestoneTracked(false);
+        compass.setItemMeta(meta);
+        return true;
+    }
+
+    private static boolean sameBlock(@Nullable Location a, @Nullable Location b) {
+        if (a == null || b == null) return a == b;
+        return Objects.equals(a.getWorld(), b.getWorld())
+                && a.getBlockX() == b.getBlockX() && a.getBlockY() == b.getBlockY() && a.getBlockZ() == b.getBlockZ();
+    }
+}
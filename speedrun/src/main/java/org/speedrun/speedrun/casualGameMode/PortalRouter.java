@@ -0,0 +1,225 @@
+package org.speedrun.speedrun.casualGameMode;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.Nullable;
+import org.speedrun.speedrun.Speedrun;
+import org.speedrun.speedrun.managers.PortalRegistry;
+import org.speedrun.speedrun.managers.StructureManager;
+import org.speedrun.speedrun.utils.LocationUtil;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Routes compass navigation through known nether portals. Portals form a small graph: walking between two portals of
+ * the same world costs their horizontal distance, and stepping through a portal costs a fixed delay. A portal whose
+ * exit is not known yet leads to its coordinates scaled by 8 into the other world, where vanilla would place the exit.
+ * The cheapest route is found with Dijkstra's algorithm, so travelling through the Nether is used whenever it is
+ * shorter than walking.
+ * <p>
+ * The graph is rebuilt only when a portal or the run's portal pair changes, and each player's route only when the
+ * graph, their destination or their chunk changes; moving within a chunk is a map lookup. Recomputing per chunk keeps
+ * the next hop the best one as the player walks, since a portal that was worth the detour may no longer be.
+ * Must only be used from the main thread.
+ */
+public class PortalRouter {
+
+    // Cost of stepping through a portal, in blocks walked: about the four seconds of the portal delay.
+    private static final double PORTAL_COST = 24.0;
+    // Extra cost of a portal whose exit is only estimated, since vanilla may pick another portal within 128 blocks.
+    private static final double ESTIMATED_EXIT_COST = 16.0;
+
+    /** A node of the portal graph: a location, the node it leads to when stepped through (or -1) and that step's cost. */
+    private record Node(Location location, int link, double linkCost) {}
+
+    /** The route last computed for a player, and the chunk they were in. */
+    private record Route(long graphVersion, Location destination, UUID world, long chunk, @Nullable Location nextHop) {}
+
+    private final Speedrun plugin;
+    private final Map<UUID, Route> routes = new HashMap<>();
+
+    private List<Node> graph = List.of();
+    private long graphVersion = -1;
+    private long registryVersion = -1;
+    private Location overworldPortal;
+    private Location netherPortal;
+
+    public PortalRouter(Speedrun plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Returns where the player should head next to reach a destination: the destination itself, or the portal to
+     * step through first.
+     * @param player The travelling player.
+     * @param from The player's current location.
+     * @param destination The final destination, in any world.
+     * @return The next location to head to in the player's world, or null if no known route leads there.
+     */
+    @Nullable
+    public Location nextHop(Player player, Location from, Location destination) {
+        refreshGraph();
+        UUID world = from.getWorld().getUID();
+        long chunk = LocationUtil.chunkKey(from.getBlockX() >> 4, from.getBlockZ() >> 4);
+
+        Route route = routes.get(player.getUniqueId());
+        if (route == null || route.graphVersion() != graphVersion || !route.world().equals(world)
+                || route.chunk() != chunk || !route.destination().equals(destination)) {
+            route = new Route(graphVersion, destination, world, chunk, computeNextHop(from, destination));
+            routes.put(player.getUniqueId(), route);
+        }
+        return route.nextHop();
+    }
+
+    /** Forgets a player's cached route. */
+    public void forget(UUID player) {
+        routes.remove(player);
+    }
+
+    /** Forgets every cached route and the graph. */
+    public void reset() {
+        routes.clear();
+        graph = List.of();
+        registryVersion = -1;
+        graphVersion++;
+    }
+
+    /** Rebuilds the graph if a portal or the run's portal pair has changed since it was built. */
+    private void refreshGraph() {
+        PortalRegistry registry = plugin.getPortalRegistry();
+        StructureManager structures = plugin.getStructureManager();
+        if (registry.getVersion() == registryVersion
+                && Objects.equals(structures.getOverworldPortalLocation(), overworldPortal)
+                && Objects.equals(structures.getNetherPortalLocation(), netherPortal)) {
+            return;
+        }
+        registryVersion = registry.getVersion();
+        overworldPortal = structures.getOverworldPortalLocation();
+        netherPortal = structures.getNetherPortalLocation();
+        graph = buildGraph(registry.getPortals(), overworldPortal, netherPortal);
+        graphVersion++;
+    }
+
+    private static List<Node> buildGraph(List<PortalRegistry.Portal> portals, @Nullable Location overworldPortal, @Nullable Location netherPortal) {
+        World overworld = null, nether = null;
+        for (World world : Bukkit.getWorlds()) {
+            if (overworld == null && world.getEnvironment() == World.Environment.NORMAL) overworld = world;
+            if (nether == null && world.getEnvironment() == World.Environment.NETHER) nether = world;
+        }
+
+        List<Location> locations = new ArrayList<>();
+        List<Integer> links = new ArrayList<>();
+        List<Double> linkCosts = new ArrayList<>();
+        Map<PortalRegistry.Portal, Integer> indices = new IdentityHashMap<>();
+        for (PortalRegistry.Portal portal : portals) {
+            indices.put(portal, locations.size());
+            locations.add(portal.getBase());
+            links.add(-1);
+            linkCosts.add(PORTAL_COST);
+        }
+        for (PortalRegistry.Portal portal : portals) {
+            Integer exit = (portal.getLink() != null) ? indices.get(portal.getLink()) : null;
+            if (exit != null) links.set(indices.get(portal), exit);
+        }
+
+        // The run's main portal pair leads both ways
+        if (overworldPortal != null && netherPortal != null) {
+            int o = locations.size();
+            locations.add(overworldPortal);
+            links.add(o + 1);
+            linkCosts.add(PORTAL_COST);
+            locations.add(netherPortal);
+            links.add(o);
+            linkCosts.add(PORTAL_COST);
+        }
+
+        // Portals without a known exit lead to where vanilla would look for one.
+        int known = locations.size();
+        for (int i = 0; i < known; i++) {
+            if (links.get(i) != -1) continue;
+            Location entry = locations.get(i);
+            World target = (entry.getWorld().getEnvironment() == World.Environment.NETHER) ? overworld : nether;
+            if (target == null || target.equals(entry.getWorld())) continue;
+            double scale = LocationUtil.coordinateScale(entry.getWorld(), target);
+            links.set(i, locations.size());
+            linkCosts.set(i, PORTAL_COST + ESTIMATED_EXIT_COST);
+            locations.add(new Location(target, entry.getX() * scale, entry.getY(), entry.getZ() * scale));
+            links.add(-1);
+            linkCosts.add(0.0);
+        }
+
+        List<Node> nodes = new ArrayList<>(locations.size());
+        for (int i = 0; i < locations.size(); i++) {
+            nodes.add(new Node(locations.get(i), links.get(i), linkCosts.get(i)));
+        }
+        return List.copyOf(nodes);
+    }
+
+    /**
+     * Runs Dijkstra's algorithm from the player to the destination. Node 0 is the start, node 1 the destination and
+     * the graph nodes follow. The graph is small and dense, so the unvisited node with the lowest cost is found with
+     * a linear scan instead of a heap.
+     */
+    @Nullable
+    private Location computeNextHop(Location from, Location destination) {
+        int n = graph.size() + 2;
+        double[] cost = new double[n];
+        int[] previous = new int[n];
+        boolean[] done = new boolean[n];
+        Arrays.fill(cost, Double.POSITIVE_INFINITY);
+        Arrays.fill(previous, -1);
+        cost[0] = 0;
+
+        while (true) {
+            int current = -1;
+            for (int i = 0; i < n; i++) {
+                if (!done[i] && cost[i] != Double.POSITIVE_INFINITY && (current == -1 || cost[i] < cost[current])) current = i;
+            }
+            if (current == -1 || current == 1) break;
+            done[current] = true;
+
+            Location here = (current == 0) ? from : graph.get(current - 2).location();
+            // Stepping through the portal
+            if (current >= 2) {
+                Node node = graph.get(current - 2);
+                if (node.link() != -1) relax(cost, previous, current, node.link() + 2, node.linkCost());
+            }
+            // Walking within the world
+            if (here.getWorld().equals(destination.getWorld())) {
+                relax(cost, previous, current, 1, horizontalDistance(here, destination));
+            }
+            for (int i = 0; i < graph.size(); i++) {
+                Location there = graph.get(i).location();
+                if (i + 2 != current && here.getWorld().equals(there.getWorld())) {
+                    relax(cost, previous, current, i + 2, horizontalDistance(here, there));
+                }
+            }
+        }
+
+        if (previous[1] == -1) return null;
+        int hop = 1;
+        while (previous[hop] != 0) hop = previous[hop];
+        return (hop == 1) ? destination : graph.get(hop - 2).location();
+    }
+
+    private static void relax(double[] cost, int[] previous, int from, int to, double edge) {
+        if (cost[from] + edge < cost[to]) {
+            cost[to] = cost[from] + edge;
+            previous[to] = from;
+        }
+    }
+
+    private static double horizontalDistance(Location a, Location b) {
+        double dx = a.getX() - b.getX(), dz = a.getZ() - b.getZ();
+        return Math.sqrt(dx * dx + dz * dz);
+    }
+}
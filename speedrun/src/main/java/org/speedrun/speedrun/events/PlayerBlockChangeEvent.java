@@ -0,0 +1,67 @@
+package org.speedrun.speedrun.events;
+
+import org.bukkit.Location;
+import org.bukkit.entity.Player;
+import org.bukkit.event.Event;
+import org.bukkit.event.HandlerList;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * An internal event called when a player moves into a different block (or world).
+ * Movement inside a single block, including pure head rotation, never fires it,
+ * so HUD pieces and scanners subscribed to it cost nothing while a player stands still.
+ * |
+ * Внутрішня подія, яка викликається, коли гравець переходить в інший блок (або світ).
+ * Рух у межах одного блоку, включно з поворотом голови, її ніколи не викликає,
+ * тож елементи інтерфейсу та сканери, підписані на неї, нічого не коштують, поки гравець стоїть на місці.
+ */
+public class PlayerBlockChangeEvent extends Event {
+    // Standard Bukkit event handler list required for custom events.
+    // Стандартний список обробників Bukkit, необхідний для кастомних подій.
+    private static final HandlerList handlers = new HandlerList();
+
+    private final Player player;
+    private final Location from;
+    private final Location to;
+
+    /**
+     * Constructs a new PlayerBlockChangeEvent.
+     * |
+     * Створює нову подію PlayerBlockChangeEvent.
+     *
+     * @param player The player who moved. / Гравець, який перемістився.
+     * @param from The previous location. / Попередня локація.
+     * @param to The new location. / Нова локація.
+     */
+    public PlayerBlockChangeEvent(Player player, Location from, Location to) {
+        this.player = player;
+        this.from = from;
+        this.to = to;
+    }
+
+    /** @return The player who moved. / Гравець, який перемістився. */
+    public Player getPlayer() { return player; }
+
+    /** @return The previous location. / Попередня локація. */
+    public Location getFrom() { return from; }
+
+    /** @return The new location. / Нова локація. */
+    public Location getTo() { return to; }
+
+    /**
+     * Standard Bukkit method to get the handlers for this event.
+     * Стандартний метод Bukkit для отримання обробників цієї події.
+     */
+    @Override
+    public @NotNull HandlerList getHandlers() {
+        return handlers;
+    }
+
+    /**
+     * Standard Bukkit static method to get the handler list.
+     * Стандартний статичний метод Bukkit для отримання списку обробників.
+     */
+    public static HandlerList getHandlerList() {
+        return handlers;
+    }
+}
@@ -0,0 +1,85 @@
+package org.speedrun.speedrun.events;
+
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.event.Event;
+import org.bukkit.event.HandlerList;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * An internal event called when a player crosses into a different chunk (or world).
+ * Chunks are passed as packed keys (see {@link org.speedrun.speedrun.utils.LocationUtil#chunkKey(int, int)}).
+ * |
+ * Внутрішня подія, яка викликається, коли гравець переходить в інший чанк (або світ).
+ * Чанки передаються як упаковані ключі (див. {@link org.speedrun.speedrun.utils.LocationUtil#chunkKey(int, int)}).
+ */
+public class PlayerChunkChangeEvent extends Event {
+    // Standard Bukkit event handler list required for custom events.
+    // Стандартний список обробників Bukkit, необхідний для кастомних подій.
+    private static final HandlerList handlers = new HandlerList();
+
+    private final Player player;
+    private final World fromWorld;
+    private final long fromChunk;
+    private final World toWorld;
+    private final long toChunk;
+
+    /**
+     * Constructs a new PlayerChunkChangeEvent.
+     * |
+     * Створює нову подію PlayerChunkChangeEvent.
+     *
+     * @param player The player who moved. / Гравець, який перемістився.
+     * @param fromWorld The previous world, or null when the player has just joined. / Попередній світ, або null, якщо гравець щойно зайшов.
+     * @param fromChunk The packed key of the previous chunk. / Упакований ключ попереднього чанка.
+     * @param toWorld The new world. / Новий світ.
+     * @param toChunk The packed key of the new chunk. / Упакований ключ нового чанка.
+     */
+    public PlayerChunkChangeEvent(Player player, @Nullable World fromWorld, long fromChunk, World toWorld, long toChunk) {
+        this.player = player;
+        this.fromWorld = fromWorld;
+        this.fromChunk = fromChunk;
+        this.toWorld = toWorld;
+        this.toChunk = toChunk;
+    }
+
+    /** @return The player who moved. / Гравець, який перемістився. */
+    public Player getPlayer() { return player; }
+
+    /** @return The previous world, or null when the player has just joined. / Попередній світ, або null, якщо гравець щойно зайшов. */
+    @Nullable
+    public World getFromWorld() { return fromWorld; }
+
+    /** @return The packed key of the previous chunk. / Упакований ключ попереднього чанка. */
+    public long getFromChunk() { return fromChunk; }
+
+    /** @return The new world. / Новий світ. */
+    public World getToWorld() { return toWorld; }
+
+    /** @return The packed key of the new chunk. / Упакований ключ нового чанка. */
+    public long getToChunk() { return toChunk; }
+
+    /** @return The X coordinate of the new chunk. / Координата X нового чанка. */
+    public int getToChunkX() { return (int) toChunk; }
+
+    /** @return The Z coordinate of the new chunk. / Координата Z нового чанка. */
+    public int getToChunkZ() { return (int) (toChunk >> 32); }
+
+    /**
+     * Standard Bukkit method to get the handlers for this event.
+     * Стандартний метод Bukkit для отримання обробників цієї події.
+     */
+    @Override
+    public @NotNull HandlerList getHandlers() {
+        return handlers;
+    }
+
+    /**
+     * Standard Bukkit static method to get the handler list.
+     * Стандартний статичний метод Bukkit для отримання списку обробників.
+     */
+    public static HandlerList getHandlerList() {
+        return handlers;
+    }
+}
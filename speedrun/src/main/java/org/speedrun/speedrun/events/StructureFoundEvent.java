@@ -6,6 +6,7 @@ import org.bukkit.event.Event;
 import org.bukkit.event.HandlerList;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import org.speedrun.speedrun.StructureType;
 
 /**
  * A custom Bukkit event that is called whenever a key structure is found during the speedrun.
@@ -20,8 +21,9 @@ public class StructureFoundEvent extends Event {
     private static final HandlerList handlers = new HandlerList();
 
     private final Player player;
-    private final String structureKey;
+    private final StructureType structureType;
     private final Location location;
+    private final boolean firstInstance;
 
     /**
      * Constructs a new StructureFoundEvent.
@@ -29,13 +31,15 @@ public class StructureFoundEvent extends Event {
      * Створює нову подію StructureFoundEvent.
      *
      * @param player The player who found the structure. / Гравець, який знайшов структуру.
-     * @param structureKey The unique identifier for the structure (e.g., "VILLAGE"). / Унікальний ідентифікатор структури (напр., "VILLAGE").
+     * @param structureType The type of the structure. / Тип структури.
      * @param location The location where the structure was found. / Місцезнаходження, де було знайдено структуру.
+     * @param firstInstance True if no structure of this type was found before. / True, якщо структуру цього типу раніше не знаходили.
      */
-    public StructureFoundEvent(@Nullable Player player, String structureKey, Location location){
+    public StructureFoundEvent(@Nullable Player player, StructureType structureType, Location location, boolean firstInstance){
         this.player = player;
-        this.structureKey = structureKey;
+        this.structureType = structureType;
         this.location = location;
+        this.firstInstance = firstInstance;
     }
 
     /**
@@ -44,15 +48,25 @@ public class StructureFoundEvent extends Event {
     public Player getPlayer() { return player; }
 
     /**
-     * @return The unique key of the found structure. / Унікальний ключ знайденої структури.
+     * @return The type of the found structure. / Тип знайденої структури.
      */
-    public String getStructureKey() { return structureKey; }
+    public StructureType getStructureType() { return structureType; }
 
     /**
      * @return The location of the found structure. / Місцезнаходження знайденої структури.
      */
     public Location getLocation() { return location; }
 
+    /**
+     * Further instances of a type (e.g. a second bastion) are reported too; one-per-type reactions such as
+     * waypoints should only handle the first.
+     * Наступні екземпляри типу (напр. другий бастіон) теж повідомляються; реакції "одна на тип", як-от вейпоінти,
+     * мають обробляти лише перший.
+     *
+     * @return True if this is the first found structure of its type. / True, якщо це перша знайдена структура свого типу.
+     */
+    public boolean isFirstInstance() { return firstInstance; }
+
     /**
      * Standard Bukkit method to get the handlers for this event.
      * Стандартний метод Bukkit для отримання обробників цієї події.
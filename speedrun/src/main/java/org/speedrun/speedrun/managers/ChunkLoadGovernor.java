@@ -0,0 +1,222 @@
+package org.speedrun.speedrun.managers;
+
+import org.bukkit.Chunk;
+import org.bukkit.World;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.jetbrains.annotations.Nullable;
+import org.speedrun.speedrun.Speedrun;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The single gate for every chunk load the plugin initiates.
+ * Requests wait in per-priority queues and are dispatched to {@link World#getChunkAtAsync(int, int)}
+ * under a global concurrency cap and a per-player quota, so several players using portals at once
+ * cannot cause a chunk I/O spike. Cancelling a returned future withdraws the request; requests of a
+ * player who leaves are cancelled automatically. Must only be used from the main thread.
+ * |
+ * Єдина точка для кожного завантаження чанків, ініційованого плагіном.
+ * Запити чекають у чергах за пріоритетом і передаються в {@link World#getChunkAtAsync(int, int)}
+ * з глобальним обмеженням одночасності та квотою на гравця, тож кілька гравців, що одночасно користуються
+ * порталами, не спричинять сплеску вводу-виводу чанків. Скасування повернутого ф'ючерса відкликає запит;
+ * запити гравця, що вийшов, скасовуються автоматично. Використовувати лише з основного потоку.
+ */
+public class ChunkLoadGovernor implements Listener {
+
+    /**
+     * Request priorities, highest first.
+     * Пріоритети запитів, від найвищого.
+     */
+    public enum Priority {
+        /** Locating the exit of a portal a player just used. / Пошук виходу порталу, яким щойно скористався гравець. */
+        PORTAL_SEARCH,
+        /** Speculative loads ahead of running players. / Спекулятивні завантаження попереду гравців. */
+        PREFETCH
+    }
+
+    private record Request(World world, int chunkX, int chunkZ, @Nullable UUID requester, CompletableFuture<Chunk> future) {}
+
+    private final Speedrun plugin;
+    private final Map<Priority, ArrayDeque<Request>> queues = new EnumMap<>(Priority.class);
+    private final Map<UUID, Integer> inFlightByPlayer = new HashMap<>();
+    private int inFlight = 0;
+    // True while dispatch() runs. Loads that finish at once are held in completions until it returns, so callers'
+    // callbacks never run inside the dispatch loop and never modify the queues under its iterator.
+    // True, поки виконується dispatch(). Завантаження, що завершуються одразу, чекають у completions, доки він не
+    // завершиться, тож зворотні виклики ніколи не виконуються всередині циклу й не змінюють черги під його ітератором.
+    private boolean dispatching = false;
+    private final List<Runnable> completions = new ArrayList<>();
+
+    private int maxConcurrent;
+    private int perPlayerQuota;
+
+    // Statistics for /run status. / Статистика для /run status.
+    private long served = 0;
+    private long cancelled = 0;
+
+    public ChunkLoadGovernor(Speedrun plugin) {
+        this.plugin = plugin;
+        for (Priority priority : Priority.values()) {
+            queues.put(priority, new ArrayDeque<>());
+        }
+        reload();
+    }
+
+    /** Re-reads the limits from the config. / Перечитує обмеження з конфігурації. */
+    public void reload() {
+        this.maxConcurrent = Math.max(1, plugin.getConfigManager().getChunkLoadMaxConcurrent());
+        this.perPlayerQuota = Math.max(1, plugin.getConfigManager().getChunkLoadPerPlayer());
+        dispatch();
+    }
+
+    /**
+     * Requests a chunk. Loaded chunks are returned immediately; others are queued.
+     * Запитує чанк. Завантажені чанки повертаються одразу; інші стають у чергу.
+     *
+     * @param requester The player the load is for, or null for global work. / Гравець, для якого завантаження, або null для загальної роботи.
+     * @return A future completed on the main thread; cancel it to withdraw the request. / Ф'ючерс, що завершується в основному потоці; скасуйте його, щоб відкликати запит.
+     */
+    public CompletableFuture<Chunk> request(World world, int chunkX, int chunkZ, Priority priority, @Nullable UUID requester) {
+        if (world.isChunkLoaded(chunkX, chunkZ)) {
+            served++;
+            return CompletableFuture.completedFuture(world.getChunkAt(chunkX, chunkZ));
+        }
+        CompletableFuture<Chunk> future = new CompletableFuture<>();
+        queues.get(priority).add(new Request(world, chunkX, chunkZ, requester, future));
+        dispatch();
+        return future;
+    }
+
+    /**
+     * Starts queued loads, highest priority first, while the global cap and the requesters' quotas allow.
+     * Loads that completed during a pass are finished afterwards, and the freed slots are used by another pass.
+     * |
+     * Запускає завантаження з черги, спершу з найвищим пріоритетом, поки дозволяють глобальний ліміт і квоти.
+     * Завантаження, що завершилися під час проходу, обробляються після нього, а звільнені місця використовує наступний прохід.
+     */
+    private void dispatch() {
+        if (dispatching) return; // The running pass picks up new work. / Поточний прохід підхопить нову роботу.
+        while (true) {
+            dispatching = true;
+            try {
+                dispatchPass();
+            } finally {
+                dispatching = false;
+            }
+            if (completions.isEmpty()) return;
+            List<Runnable> ready = new ArrayList<>(completions);
+            completions.clear();
+            ready.forEach(Runnable::run);
+        }
+    }
+
+    private void dispatchPass() {
+        for (Priority priority : Priority.values()) {
+            Iterator<Request> it = queues.get(priority).iterator();
+            while (it.hasNext()) {
+                Request request = it.next();
+                if (request.future().isDone()) { // Cancelled while waiting. / Скасовано під час очікування.
+                    it.remove();
+                    cancelled++;
+                    continue;
+                }
+                // Loaded in the meantime, e.g. by a player walking there: no slot needed.
+                // Тим часом завантажено, напр. гравцем, що прийшов туди: місце не потрібне.
+                if (request.world().isChunkLoaded(request.chunkX(), request.chunkZ())) {
+                    it.remove();
+                    served++;
+                    Chunk chunk = request.world().getChunkAt(request.chunkX(), request.chunkZ());
+                    completions.add(() -> request.future().complete(chunk));
+                    continue;
+                }
+                if (inFlight >= maxConcurrent) return;
+                if (request.requester() != null
+                        && inFlightByPlayer.getOrDefault(request.requester(), 0) >= perPlayerQuota) {
+                    continue; // This player's quota is used up; others may go first. / Квоту гравця вичерпано; інші можуть піти першими.
+                }
+                it.remove();
+                start(request);
+            }
+        }
+    }
+
+    private void start(Request request) {
+        inFlight++;
+        if (request.requester() != null) inFlightByPlayer.merge(request.requester(), 1, Integer::sum);
+
+        request.world().getChunkAtAsync(request.chunkX(), request.chunkZ()).whenComplete((chunk, error) -> {
+            Runnable finish = () -> {
+                inFlight--;
+                if (request.requester() != null) {
+                    inFlightByPlayer.computeIfPresent(request.requester(), (id, n) -> n > 1 ? n - 1 : null);
+                }
+                if (error != null) {
+                    request.future().completeExceptionally(error);
+                } else {
+                    served++;
+                    request.future().complete(chunk);
+                }
+            };
+            // A future that was already complete calls back inside dispatch(). / Уже завершений ф'ючерс викликає назад усередині dispatch().
+            if (dispatching) {
+                completions.add(finish);
+            } else {
+                finish.run();
+                dispatch();
+            }
+        });
+    }
+
+    /**
+     * Withdraws every queued request of a player.
+     * Відкликає всі запити гравця з черги.
+     */
+    public void cancel(UUID requester) {
+        for (ArrayDeque<Request> queue : queues.values()) {
+            Iterator<Request> it = queue.iterator();
+            while (it.hasNext()) {
+                Request request = it.next();
+                if (requester.equals(request.requester())) {
+                    it.remove();
+                    request.future().cancel(false);
+                    cancelled++;
+                }
+            }
+        }
+    }
+
+    @EventHandler
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        cancel(event.getPlayer().getUniqueId());
+    }
+
+    // =========================================================================================
+    // Statistics
+    // =========================================================================================
+
+    /** @return The number of requests waiting in the queues. / Кількість запитів, що чекають у чергах. */
+    public int getQueued() {
+        int queued = 0;
+        for (ArrayDeque<Request> queue : queues.values()) queued += queue.size();
+        return queued;
+    }
+
+    /** @return The number of loads currently running. / Кількість завантажень, що виконуються зараз. */
+    public int getInFlight() { return inFlight; }
+
+    /** @return How many requests were served. / Скільки запитів обслужено. */
+    public long getServed() { return served; }
+
+    /** @return How many requests were cancelled. / Скільки запитів скасовано. */
+    public long getCancelled() { return cancelled; }
+}
@@ -0,0 +1,196 @@
+package org.speedrun.speedrun.managers;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+import org.bukkit.scheduler.BukkitTask;
+import org.jetbrains.annotations.Nullable;
+import org.speedrun.speedrun.Speedrun;
+import org.speedrun.speedrun.casualGameMode.CompassListener;
+import org.speedrun.speedrun.events.PlayerChunkChangeEvent;
+import org.speedrun.speedrun.utils.LocationUtil;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Optionally loads chunks ahead of running players so they do not hit chunk-load stalls.
+ * On every chunk crossing the player's heading is taken from their compass destination or the predicted
+ * stronghold when one is known, and from their last chunk step otherwise. Chunks along that line are
+ * requested through the {@link ChunkLoadGovernor} at the lowest priority and held with a plugin chunk ticket
+ * for a short while. In-flight loads are capped.
+ * |
+ * Опціонально завантажує чанки попереду гравців, щоб вони не впиралися в затримки завантаження чанків.
+ * При кожному переході між чанками напрямок гравця береться з цілі його компаса або передбаченої твердині,
+ * якщо вона відома, а інакше з його останнього кроку між чанками. Чанки вздовж цієї лінії запитуються
+ * через {@link ChunkLoadGovernor} з найнижчим пріоритетом і утримуються тікетом плагіна недовгий час.
+ * Кількість одночасних завантажень обмежена.
+ */
+public class ChunkPrefetcher implements Listener {
+
+    private final Speedrun plugin;
+    // World -> packed chunk key -> tick at which the ticket is released. / Світ -> ключ чанка -> тік звільнення тікета.
+    private final Map<UUID, Map<Long, Integer>> tickets = new HashMap<>();
+    private BukkitTask releaseTask;
+    private int inFlight = 0;
+
+    private boolean enabled;
+    private int lookahead;
+    private int maxInFlight;
+    private int ticketTicks;
+
+    public ChunkPrefetcher(Speedrun plugin) {
+        this.plugin = plugin;
+        reload();
+    }
+
+    /**
+     * Re-reads the prefetch settings and starts or stops the ticket release task accordingly.
+     * Перечитує налаштування попереднього завантаження та відповідно запускає або зупиняє задачу звільнення тікетів.
+     */
+    public void reload() {
+        ConfigManager cm = plugin.getConfigManager();
+        this.enabled = cm.isChunkPrefetchEnabled();
+        this.lookahead = Math.max(1, cm.getChunkPrefetchLookahead());
+        this.maxInFlight = Math.max(1, cm.getChunkPrefetchMaxInFlight());
+        this.ticketTicks = Math.max(20, cm.getChunkPrefetchTicketSeconds() * 20);
+
+        if (enabled && releaseTask == null) {
+            releaseTask = Bukkit.getScheduler().runTaskTimer(plugin, this::releaseExpiredTickets, 20L, 20L);
+        } else if (!enabled) {
+            shutdown();
+        }
+    }
+
+    /**
+     * Stops prefetching and releases every chunk ticket held by the prefetcher.
+     * Зупиняє попереднє завантаження та звільняє всі тікети чанків, утримувані ним.
+     */
+    public void shutdown() {
+        if (releaseTask != null) {
+            releaseTask.cancel();
+            releaseTask = null;
+        }
+        for (Map.Entry<UUID, Map<Long, Integer>> entry : tickets.entrySet()) {
+            World world = Bukkit.getWorld(entry.getKey());
+            if (world == null) continue;
+            for (long key : entry.getValue().keySet()) {
+                world.removePluginChunkTicket((int) key, (int) (key >> 32), plugin);
+            }
+        }
+        tickets.clear();
+    }
+
+    @EventHandler
+    public void onPlayerChunkChange(PlayerChunkChangeEvent event) {
+        if (!enabled || event.getFromWorld() != event.getToWorld()) return;
+
+        Player player = event.getPlayer();
+        World world = event.getToWorld();
+        int toX = event.getToChunkX(), toZ = event.getToChunkZ();
+
+        double dirX, dirZ;
+        Location target = findTarget(player, world);
+        if (target != null) {
+            dirX = (target.getBlockX() >> 4) - toX;
+            dirZ = (target.getBlockZ() >> 4) - toZ;
+        } else {
+            // No target: keep going the way the player just stepped. / Немає цілі: продовжуємо в напрямку останнього кроку.
+            dirX = toX - (int) event.getFromChunk();
+            dirZ = toZ - (int) (event.getFromChunk() >> 32);
+        }
+        double length = Math.sqrt(dirX * dirX + dirZ * dirZ);
+        if (length < 1e-6) return;
+        dirX /= length;
+        dirZ /= length;
+
+        // The line ahead plus one chunk to each side, nearest first. / Лінія попереду плюс по одному чанку з боків, спершу ближчі.
+        for (int step = 1; step <= lookahead; step++) {
+            int cx = toX + (int) Math.round(dirX * step);
+            int cz = toZ + (int) Math.round(dirZ * step);
+            int sideX = (int) Math.round(-dirZ), sideZ = (int) Math.round(dirX);
+            if (!prefetch(player, world, cx, cz)) return;
+            if (!prefetch(player, world, cx + sideX, cz + sideZ)) return;
+            if (!prefetch(player, world, cx - sideX, cz - sideZ)) return;
+        }
+    }
+
+    /**
+     * Requests one chunk unless it is already loaded or held.
+     * Запитує один чанк, якщо він ще не завантажений і не утримується.
+     *
+     * @return False once the in-flight cap is reached. / False, коли досягнуто ліміту одночасних завантажень.
+     */
+    private boolean prefetch(Player player, World world, int chunkX, int chunkZ) {
+        if (inFlight >= maxInFlight) return false;
+
+        long key = LocationUtil.chunkKey(chunkX, chunkZ);
+        Map<Long, Integer> held = tickets.computeIfAbsent(world.getUID(), id -> new HashMap<>());
+        if (held.containsKey(key)) {
+            held.put(key, Bukkit.getCurrentTick() + ticketTicks); // Still ahead of someone, keep it longer. / Усе ще попереду когось, тримаємо довше.
+            return true;
+        }
+        if (world.isChunkLoaded(chunkX, chunkZ)) return true;
+
+        inFlight++;
+        held.put(key, Bukkit.getCurrentTick() + ticketTicks);
+        plugin.getChunkLoadGovernor().request(world, chunkX, chunkZ, ChunkLoadGovernor.Priority.PREFETCH, player.getUniqueId())
+                .whenComplete((chunk, error) -> {
+                    inFlight--;
+                    // The prefetcher may have been stopped in the meantime. / Тим часом попереднє завантаження могли зупинити.
+                    if (chunk != null && tickets.getOrDefault(world.getUID(), Map.of()).containsKey(key)) {
+                        chunk.addPluginChunkTicket(plugin);
+                    }
+                });
+        return true;
+    }
+
+    /**
+     * Picks where the player is heading: their compass destination, or the predicted stronghold.
+     * Coordinates in the other dimension are converted with the 8:1 Nether scale.
+     * |
+     * Визначає, куди прямує гравець: ціль його компаса або передбачена твердиня.
+     * Координати в іншому вимірі перераховуються за масштабом Незеру 8:1.
+     */
+    @Nullable
+    private Location findTarget(Player player, World world) {
+        Location target = null;
+        CompassListener compass = plugin.getGameManager().getCompassListener();
+        if (compass != null) target = compass.getPlayerDestination(player);
+        if (target == null) target = plugin.getStructureManager().getPredictedEndPortalLocation();
+        if (target == null || target.getWorld() == null) return null;
+
+        World.Environment from = target.getWorld().getEnvironment();
+        World.Environment to = world.getEnvironment();
+        if (from == to) return target;
+        if (from == World.Environment.NORMAL && to == World.Environment.NETHER) {
+            return new Location(world, target.getX() / 8, target.getY(), target.getZ() / 8);
+        }
+        if (from == World.Environment.NETHER && to == World.Environment.NORMAL) {
+            return new Location(world, target.getX() * 8, target.getY(), target.getZ() * 8);
+        }
+        return null; // No meaningful line to the End. / Немає осмисленої лінії до Краю.
+    }
+
+    private void releaseExpiredTickets() {
+        int now = Bukkit.getCurrentTick();
+        for (Map.Entry<UUID, Map<Long, Integer>> entry : tickets.entrySet()) {
+            World world = Bukkit.getWorld(entry.getKey());
+            Iterator<Map.Entry<Long, Integer>> it = entry.getValue().entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<Long, Integer> ticket = it.next();
+                if (ticket.getValue() > now) continue;
+                if (world != null) {
+                    long key = ticket.getKey();
+                    world.removePluginChunkTicket((int) key, (int) (key >> 32), plugin);
+                }
+                it.remove();
+            }
+        }
+    }
+}
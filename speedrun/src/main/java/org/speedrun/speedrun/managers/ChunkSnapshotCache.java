@@ -0,0 +1,239 @@
+package org.speedrun.speedrun.managers;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockState;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.block.BlockExplodeEvent;
+import org.bukkit.event.block.BlockPlaceEvent;
+import org.bukkit.event.entity.EntityExplodeEvent;
+import org.bukkit.event.world.ChunkUnloadEvent;
+import org.bukkit.event.world.PortalCreateEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
+import org.jetbrains.annotations.Nullable;
+import org.speedrun.speedrun.Speedrun;
+import org.speedrun.speedrun.utils.LocationUtil;
+import org.speedrun.speedrun.utils.SnapshotGrid;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * A plugin-wide cache of chunk snapshots shared by all scanners.
+ * Snapshots are keyed by packed chunk coordinates, evicted least-recently-used beyond a size bound,
+ * expire after a time-to-live and are dropped as soon as a block in their chunk is placed, broken or exploded,
+ * or a portal is created in it.
+ * The cache itself must only be used from the main thread; the snapshots it hands out are immutable
+ * and can be read from any thread.
+ * |
+ * Загальний для плагіна кеш знімків чанків, спільний для всіх сканерів.
+ * Знімки зберігаються за упакованими координатами чанка, витісняються за принципом LRU понад межу розміру,
+ * застарівають після часу життя та відкидаються, щойно в їхньому чанку ставлять, ламають чи підривають блок
+ * або створюється портал.
+ * Сам кеш використовується лише з основного потоку; знімки, які він видає, незмінні
+ * й можуть читатися з будь-якого потоку.
+ */
+public class ChunkSnapshotCache implements Listener {
+
+    private record CachedSnapshot(ChunkSnapshot snapshot, int capturedTick) {}
+
+    private final Speedrun plugin;
+    // One access-ordered map per world. / Одна мапа з порядком доступу на кожен світ.
+    private final Map<UUID, LinkedHashMap<Long, CachedSnapshot>> worlds = new HashMap<>();
+
+    private int maxChunks;
+    private int ttlTicks;
+
+    // Cache statistics. / Статистика кешу.
+    private long hits = 0;
+    private long misses = 0;
+
+    public ChunkSnapshotCache(Speedrun plugin) {
+        this.plugin = plugin;
+        reload();
+    }
+
+    /**
+     * Re-reads the cache limits from the config and drops everything cached so far.
+     * Перечитує обмеження кешу з конфігурації та відкидає все, що вже закешовано.
+     */
+    public void reload() {
+        this.maxChunks = Math.max(1, plugin.getConfigManager().getSnapshotCacheMaxChunks());
+        this.ttlTicks = Math.max(0, plugin.getConfigManager().getSnapshotCacheTtlTicks());
+        clear();
+    }
+
+    /**
+     * Returns a snapshot (with height maps) of a loaded chunk, capturing it only if no fresh copy is cached.
+     * Unloaded chunks are never loaded here.
+     * |
+     * Повертає знімок (з картами висот) завантаженого чанка, захоплюючи його лише тоді, коли немає свіжої копії в кеші.
+     * Незавантажені чанки тут ніколи не завантажуються.
+     *
+     * @return The snapshot, or null if the chunk is not loaded. / Знімок, або null, якщо чанк не завантажений.
+     */
+    @Nullable
+    public ChunkSnapshot get(World world, int chunkX, int chunkZ) {
+        LinkedHashMap<Long, CachedSnapshot> cache = cacheOf(world);
+        long key = LocationUtil.chunkKey(chunkX, chunkZ);
+
+        CachedSnapshot entry = cache.get(key);
+        if (entry != null) {
+            if (Bukkit.getCurrentTick() - entry.capturedTick() <= ttlTicks) {
+                hits++;
+                return entry.snapshot();
+            }
+            cache.remove(key);
+        }
+
+        if (!world.isChunkLoaded(chunkX, chunkZ)) return null;
+        misses++;
+        return store(cache, key, world.getChunkAt(chunkX, chunkZ));
+    }
+
+    /**
+     * Returns a snapshot of a chunk the caller already holds, e.g. one just loaded asynchronously.
+     * Повертає знімок чанка, який уже є у викликача, напр. щойно завантаженого асинхронно.
+     */
+    public ChunkSnapshot get(Chunk chunk) {
+        ChunkSnapshot snapshot = get(chunk.getWorld(), chunk.getX(), chunk.getZ());
+        return snapshot != null ? snapshot
+                : store(cacheOf(chunk.getWorld()), LocationUtil.chunkKey(chunk.getX(), chunk.getZ()), chunk);
+    }
+
+    /**
+     * Builds a snapshot grid covering a block area from cached or freshly captured snapshots.
+     * Будує сітку знімків для області блоків із закешованих або щойно захоплених знімків.
+     */
+    public SnapshotGrid capture(World world, int minX, int minZ, int maxX, int maxZ) {
+        SnapshotGrid grid = new SnapshotGrid(world, minX >> 4, minZ >> 4, maxX >> 4, maxZ >> 4);
+        for (int cx = minX >> 4; cx <= maxX >> 4; cx++) {
+            for (int cz = minZ >> 4; cz <= maxZ >> 4; cz++) {
+                ChunkSnapshot snapshot = get(world, cx, cz);
+                if (snapshot != null) grid.set(cx, cz, snapshot);
+            }
+        }
+        return grid;
+    }
+
+    /** Drops the cached snapshot of one chunk. / Відкидає закешований знімок одного чанка. */
+    public void invalidate(World world, int chunkX, int chunkZ) {
+        LinkedHashMap<Long, CachedSnapshot> cache = worlds.get(world.getUID());
+        if (cache != null) cache.remove(LocationUtil.chunkKey(chunkX, chunkZ));
+    }
+
+    /** Drops every cached snapshot. / Відкидає всі закешовані знімки. */
+    public void clear() {
+        worlds.clear();
+    }
+
+    private ChunkSnapshot store(LinkedHashMap<Long, CachedSnapshot> cache, long key, Chunk chunk) {
+        ChunkSnapshot snapshot = chunk.getChunkSnapshot(true, false, false);
+        cache.put(key, new CachedSnapshot(snapshot, Bukkit.getCurrentTick()));
+        return snapshot;
+    }
+
+    private LinkedHashMap<Long, CachedSnapshot> cacheOf(World world) {
+        return worlds.computeIfAbsent(world.getUID(), id -> new LinkedHashMap<Long, CachedSnapshot>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, CachedSnapshot> eldest) {
+                return size() > maxChunks;
+            }
+        });
+    }
+
+    private void invalidate(Block block) {
+        invalidate(block.getWorld(), block.getX() >> 4, block.getZ() >> 4);
+    }
+
+    /**
+     * Drops the snapshots of every chunk touched by a list of blocks. Explosion lists hold hundreds of blocks
+     * that mostly share a few chunks, so a run of blocks in the same chunk costs a single comparison.
+     * Відкидає знімки всіх чанків, яких торкається список блоків. Списки вибухів містять сотні блоків,
+     * що здебільшого належать кільком чанкам, тож серія блоків в одному чанку коштує одне порівняння.
+     */
+    private void invalidate(List<Block> blocks) {
+        long lastKey = Long.MIN_VALUE;
+        for (Block block : blocks) {
+            long key = LocationUtil.chunkKey(block.getX() >> 4, block.getZ() >> 4);
+            if (key == lastKey) continue;
+            lastKey = key;
+            invalidate(block.getWorld(), block.getX() >> 4, block.getZ() >> 4);
+        }
+    }
+
+    // =========================================================================================
+    // Invalidation Events
+    // =========================================================================================
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockPlace(BlockPlaceEvent event) {
+        invalidate(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockBreak(BlockBreakEvent event) {
+        invalidate(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEntityExplode(EntityExplodeEvent event) {
+        invalidate(event.blockList());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockExplode(BlockExplodeEvent event) {
+        invalidate(event.blockList());
+    }
+
+    /**
+     * A new portal must be visible to the snapshot-based exit search right away, not after the snapshot expires.
+     * Новий портал має бути видимим для пошуку виходу за знімками одразу, а не після застарівання знімка.
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPortalCreate(PortalCreateEvent event) {
+        long lastKey = Long.MIN_VALUE;
+        for (BlockState state : event.getBlocks()) {
+            long key = LocationUtil.chunkKey(state.getX() >> 4, state.getZ() >> 4);
+            if (key == lastKey) continue;
+            lastKey = key;
+            invalidate(event.getWorld(), state.getX() >> 4, state.getZ() >> 4);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkUnload(ChunkUnloadEvent event) {
+        invalidate(event.getWorld(), event.getChunk().getX(), event.getChunk().getZ());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onWorldUnload(WorldUnloadEvent event) {
+        worlds.remove(event.getWorld().getUID());
+    }
+
+    // =========================================================================================
+    // Statistics
+    // =========================================================================================
+
+    /** @return The number of snapshots currently cached. / Кількість знімків у кеші. */
+    public int size() {
+        int size = 0;
+        for (LinkedHashMap<Long, CachedSnapshot> cache : worlds.values()) size += cache.size();
+        return size;
+    }
+
+    /** @return How many requests were served from the cache. / Скільки запитів обслужено з кешу. */
+    public long getHits() { return hits; }
+
+    /** @return How many requests needed a fresh capture. / Скільки запитів потребували нового захоплення. */
+    public long getMisses() { return misses; }
+}
@@ -3,16 +3,24 @@ package org.speedrun.speedrun.managers;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.serializer.legacy.LegacyComponentSerializer;
 import org.bukkit.*;
+import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.entity.Player;
 import org.jetbrains.annotations.Nullable;
 import org.speedrun.speedrun.Speedrun;
+import org.speedrun.speedrun.StructureType;
+import org.speedrun.speedrun.utils.BlockSignature;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.logging.Level;
 
 /**
@@ -27,6 +35,8 @@ public class ConfigManager {
     private final Speedrun plugin;
     private FileConfiguration config;
     private FileConfiguration lang;
+    private List<BlockSignature> blockSignatures = Collections.emptyList();
+    private Map<World.Environment, Set<Material>> highlightTargets = Collections.emptyMap();
 
     /**
      * Defines how player-collected resources are tracked for tasks.
@@ -66,6 +76,67 @@ public class ConfigManager {
         }
 
         lang = YamlConfiguration.loadConfiguration(langFile);
+        blockSignatures = loadBlockSignatures();
+        highlightTargets = loadHighlightTargets();
+    }
+
+    /**
+     * Parses the blocks to highlight near players, per dimension. Dimensions are keyed by their environment name
+     * (normal, nether, the_end); unknown names and materials are skipped with a warning.
+     * |
+     * Розбирає блоки для підсвічування біля гравців, для кожного виміру. Виміри задаються назвою середовища
+     * (normal, nether, the_end); невідомі назви та матеріали пропускаються з попередженням.
+     */
+    private Map<World.Environment, Set<Material>> loadHighlightTargets() {
+        ConfigurationSection section = config.getConfigurationSection("casual.highlights.targets");
+        if (section == null) return Collections.emptyMap();
+
+        Map<World.Environment, Set<Material>> targets = new EnumMap<>(World.Environment.class);
+        for (String key : section.getKeys(false)) {
+            World.Environment environment;
+            try {
+                environment = World.Environment.valueOf(key.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                plugin.getLogger().warning("Unknown dimension '" + key + "' in casual.highlights.targets. Skipping it.");
+                continue;
+            }
+
+            Set<Material> materials = EnumSet.noneOf(Material.class);
+            for (String name : section.getStringList(key)) {
+                Material material = Material.matchMaterial(name);
+                if (material == null || !material.isBlock()) {
+                    plugin.getLogger().warning("Unknown block material '" + name + "' in casual.highlights.targets." + key + ". Skipping it.");
+                    continue;
+                }
+                materials.add(material);
+            }
+            if (!materials.isEmpty()) targets.put(environment, Collections.unmodifiableSet(materials));
+        }
+        return Collections.unmodifiableMap(targets);
+    }
+
+    /**
+     * Parses the block signatures of the proximity scanner.
+     * Older configs without a `signatures` section keep detecting villages by their bell.
+     * |
+     * Розбирає сигнатури блоків сканера близькості.
+     * Старі конфіги без секції `signatures` і далі виявляють села за дзвоном.
+     */
+    private List<BlockSignature> loadBlockSignatures() {
+        ConfigurationSection section = config.getConfigurationSection("settings.proximity-scanner.signatures");
+        if (section == null) {
+            int radius = getVillageBellRadius();
+            return List.of(new BlockSignature("village", StructureType.VILLAGE, EnumSet.of(Material.BELL), 1, radius, radius, null));
+        }
+
+        List<BlockSignature> signatures = new ArrayList<>();
+        for (String key : section.getKeys(false)) {
+            ConfigurationSection cs = section.getConfigurationSection(key);
+            if (cs == null) continue;
+            BlockSignature signature = BlockSignature.fromConfig(key, cs, plugin.getLogger());
+            if (signature != null) signatures.add(signature);
+        }
+        return Collections.unmodifiableList(signatures);
     }
 
     /**
@@ -241,26 +312,86 @@ public class ConfigManager {
         return config.getInt("settings.proximity-scanner.lava-pool.radius", 16);
     }
 
-    /** @return The minimum number of lava source blocks to qualify as a "pool". / Мінімальна кількість блоків-джерел лави, щоб вважатися "озером". */
+    /** @return The minimum number of connected lava source blocks to qualify as a "pool". / Мінімальна кількість з'єднаних блоків-джерел лави, щоб вважатися "озером". */
     public int getLavaPoolRequiredSources() {
         return config.getInt("settings.proximity-scanner.lava-pool.required-source-blocks", 12);
     }
 
-    /** @return The radius for detecting a village by scanning for a bell. / Радіус для виявлення села шляхом сканування дзвона. */
+    /** @return The radius for detecting a village by scanning for a bell (legacy configs). / Радіус для виявлення села шляхом сканування дзвона (старі конфіги). */
     public int getVillageBellRadius() {
         return config.getInt("settings.proximity-scanner.village.radius", 32);
     }
 
+    /** @return The enabled block signatures of the proximity scanner. / Увімкнені сигнатури блоків сканера близькості. */
+    public List<BlockSignature> getBlockSignatures() {
+        return blockSignatures;
+    }
+
+    /** @return The maximum number of chunk snapshots cached per world. / Максимальна кількість знімків чанків у кеші на один світ. */
+    public int getSnapshotCacheMaxChunks() {
+        return config.getInt("settings.proximity-scanner.snapshot-cache.max-chunks", 512);
+    }
+
+    /** @return How long a cached chunk snapshot stays valid, in ticks. / Скільки тіків закешований знімок чанка залишається дійсним. */
+    public int getSnapshotCacheTtlTicks() {
+        return config.getInt("settings.proximity-scanner.snapshot-cache.ttl-ticks", 100);
+    }
+
+    /** @return Whether chunks are loaded ahead of running players. / Чи завантажуються чанки попереду гравців. */
+    public boolean isChunkPrefetchEnabled() {
+        return config.getBoolean("settings.chunk-prefetch.enabled", false);
+    }
+
+    /** @return How many chunks ahead of a player are prefetched. / На скільки чанків попереду гравця виконується попереднє завантаження. */
+    public int getChunkPrefetchLookahead() {
+        return config.getInt("settings.chunk-prefetch.lookahead-chunks", 4);
+    }
+
+    /** @return The maximum number of prefetch loads in flight. / Максимальна кількість одночасних попередніх завантажень. */
+    public int getChunkPrefetchMaxInFlight() {
+        return config.getInt("settings.chunk-prefetch.max-in-flight", 6);
+    }
+
+    /** @return How long a prefetched chunk is held, in seconds. / Скільки секунд утримується попередньо завантажений чанк. */
+    public int getChunkPrefetchTicketSeconds() {
+        return config.getInt("settings.chunk-prefetch.ticket-seconds", 15);
+    }
+
+    /** @return The maximum number of plugin chunk loads running at once. / Максимальна кількість одночасних завантажень чанків плагіном. */
+    public int getChunkLoadMaxConcurrent() {
+        return config.getInt("settings.chunk-governor.max-concurrent", 16);
+    }
+
+    /** @return The maximum number of plugin chunk loads running at once for one player. / Максимальна кількість одночасних завантажень чанків плагіном для одного гравця. */
+    public int getChunkLoadPerPlayer() {
+        return config.getInt("settings.chunk-governor.per-player", 8);
+    }
+
+    /** @return Whether the structure locator is enabled. / Чи увімкнено пошук структур. */
+    public boolean isStructureLocatorEnabled() {
+        return config.getBoolean("settings.structure-locator.enabled", false);
+    }
+
+    /** @return The width of a structure locator cache cell in blocks. / Ширина клітинки кешу пошуку структур у блоках. */
+    public int getStructureLocatorCellSize() {
+        return config.getInt("settings.structure-locator.cell-size", 512);
+    }
+
+    /** @return The structure locator search radius in chunks. / Радіус пошуку структур у чанках. */
+    public int getStructureLocatorRadius() {
+        return config.getInt("settings.structure-locator.radius", 64);
+    }
+
+    /** @return The maximum number of structure searches per tick. / Максимальна кількість пошуків структур за тік. */
+    public int getStructureLocatorPerTick() {
+        return config.getInt("settings.structure-locator.per-tick", 1);
+    }
+
     /** @return Whether admins can reassign structure locations using commands. / Чи можуть адміністратори перепризначати розташування структур за допомогою команд. */
     public boolean isReassigningLocationsEnabled() {
         return config.getBoolean("settings.allow-reassigning-locations", true);
     }
 
-    /** @return The radius around a lit block to check for a Nether Portal frame. / Радіус навколо запаленого блоку для перевірки наявності рамки порталу в Незер. */
-    public int getNetherPortalCheckRadius() {
-        return config.getInt("settings.proximity-scanner.nether-portal.check-radius", 4);
-    }
-
     /** @return The search radius to find the precise portal block after a player teleports. / Радіус пошуку для знаходження точного блоку порталу після телепортації гравця. */
     public int getTeleportPortalSearchRadius() {
         return config.getInt("settings.proximity-scanner.nether-portal.search-radius", 90);
@@ -271,5 +402,20 @@ public class ConfigManager {
         return config.getBoolean("casual.structure_waypoints.enabled", true);
     }
 
+    /** @return Whether players see bastion highlights until they turn them off. / Чи бачать гравці підсвічування бастіонів, доки не вимкнуть його. */
+    public boolean areHighlightsShownByDefault() {
+        return config.getBoolean("casual.highlights.shown-by-default", true);
+    }
+
+    /** @return The blocks to highlight near players in a dimension, empty if none. / Блоки для підсвічування біля гравців у вимірі, порожньо, якщо немає. */
+    public Set<Material> getHighlightTargets(World.Environment environment) {
+        return highlightTargets.getOrDefault(environment, Collections.emptySet());
+    }
+
+    /** @return How many chunks around a player are searched for highlight targets. / Скільки чанків навколо гравця перевіряється на цілі підсвічування. */
+    public int getHighlightRadiusChunks() {
+        return Math.max(0, config.getInt("casual.highlights.radius-chunks", 2));
+    }
+
     public boolean isCasualGameModeEnabled() {return config.getBoolean("casual.enabled", true);}
 }
\ No newline at end of file
@@ -2,20 +2,34 @@ package org.speedrun.speedrun.managers;
 
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
-import org.bukkit.Material;
-import org.bukkit.block.Block;
-import org.bukkit.block.data.Levelled;
 import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerQuitEvent;
 import org.bukkit.scheduler.BukkitRunnable;
 import org.bukkit.scheduler.BukkitTask;
 import org.speedrun.speedrun.Speedrun;
+import org.speedrun.speedrun.StructureType;
 import org.speedrun.speedrun.SpeedrunLogger;
 import org.speedrun.speedrun.casualGameMode.CompassListener;
+import org.speedrun.speedrun.events.PlayerBlockChangeEvent;
+import org.speedrun.speedrun.utils.BlockSignature;
+import org.speedrun.speedrun.utils.LavaPoolDetector;
+import org.speedrun.speedrun.utils.ScanRegion;
+import org.speedrun.speedrun.utils.SignatureScanner;
+import org.speedrun.speedrun.utils.SnapshotGrid;
 import org.speedrun.speedrun.utils.TimeUtil;
 import org.speedrun.speedrun.casualGameMode.CasualModeStructureManager;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 /**
@@ -25,7 +39,7 @@ import java.util.stream.Collectors;
  * Керує основним ігровим станом спідрану.
  * Це включає головний таймер, статус гри (триває, на паузі) та сканери для пошуку структур поблизу.
  */
-public class GameManager {
+public class GameManager implements Listener {
 
     private final Speedrun plugin;
     private final CasualModeStructureManager casualModeStructureManager;
@@ -44,6 +58,22 @@ public class GameManager {
     private BukkitTask mainTimerTask;
     private BukkitTask proximityScannerTask;
 
+    // True while an asynchronous lava pool detection is running, so cycles never pile up.
+    // True, поки триває асинхронне виявлення лавового озера, щоб цикли не накопичувалися.
+    private volatile boolean lavaScanInFlight = false;
+    // Same for the block signature scan. / Те саме для сканування сигнатур блоків.
+    private volatile boolean signatureScanInFlight = false;
+
+    // Players who moved since their surroundings were last scanned. Idle players are rescanned only when a search
+    // becomes active or the configuration is reloaded.
+    // Гравці, які перемістилися з моменту останнього сканування їхнього оточення. Гравці без руху скануються повторно
+    // лише тоді, коли пошук стає активним або конфігурацію перезавантажено.
+    private final Set<UUID> pendingSignatureScan = new HashSet<>();
+    private final Set<UUID> pendingLavaScan = new HashSet<>();
+    // The searches active in the last scanner cycle, to notice new ones. / Пошуки, активні в останньому циклі сканера, щоб помітити нові.
+    private final Set<StructureType> activeSignatureSearches = new HashSet<>();
+    private boolean lavaSearchActive = false;
+
     // Specific task timers
     // Таймери для конкретних завдань
     public long villageTimeElapsed = 0;
@@ -86,8 +116,13 @@ public class GameManager {
 
         plugin.getTaskManager().reloadTasks();
         plugin.getStructureManager().reset();
+        plugin.getPortalRegistry().clear();
 
         startTimer();
+        // Everyone's surroundings are unknown at the start of a run. / На початку гри оточення кожного невідоме.
+        activeSignatureSearches.clear();
+        lavaSearchActive = false;
+        requestRescan();
         startProximityScanner();
 
         Bukkit.broadcast(plugin.getConfigManager().getFormatted("messages.run-started"));
@@ -178,7 +213,7 @@ public class GameManager {
                 if (!isPaused) {
                     totalSeconds++;
                     if (plugin.getStructureManager().isVillageSearchActive()
-                            && plugin.getStructureManager().getFoundStructures().get("VILLAGE") == null) {
+                            && !plugin.getStructureManager().isFound(StructureType.VILLAGE)) {
                         villageTimeElapsed++;
                     }
                 }
@@ -193,10 +228,16 @@ public class GameManager {
 
     /**
      * Starts the proximity scanner task.
-     * This task periodically checks the surroundings of each player for specific structures like villages or lava pools.
+     * This task periodically checks the surroundings of each player for structures described by block signatures
+     * (villages by their bell, and any other configured pattern) and for lava pools.
+     * Only players who entered another block since their last scan are considered, and players standing close
+     * to each other are grouped so that each shared area is scanned only once per cycle.
      * |
      * Запускає завдання сканера близькості.
-     * Це завдання періодично перевіряє оточення кожного гравця на наявність структур, як-от села чи озера лави.
+     * Це завдання періодично перевіряє оточення кожного гравця на наявність структур, описаних сигнатурами блоків
+     * (села за дзвоном та будь-які інші налаштовані шаблони), а також озер лави.
+     * Враховуються лише гравці, що перейшли в інший блок після останнього сканування, а гравці, що стоять поруч,
+     * групуються, тож кожна спільна область сканується лише один раз за цикл.
      */
     private void startProximityScanner() {
         if (proximityScannerTask != null) proximityScannerTask.cancel();
@@ -205,75 +246,181 @@ public class GameManager {
             public void run() {
                 if (isPaused || !isRunning) return;
 
-                boolean needsVillage = plugin.getStructureManager().isVillageSearchActive();
+                List<BlockSignature> signatures = new ArrayList<>();
+                for (BlockSignature signature : plugin.getConfigManager().getBlockSignatures()) {
+                    if (plugin.getStructureManager().isStructureSearchActive(signature.getStructureType())) {
+                        signatures.add(signature);
+                    }
+                }
                 boolean needsLava = plugin.getStructureManager().isLavaPoolSearchActive();
-                if (!needsVillage && !needsLava) return;
 
-                for (Player player : Bukkit.getOnlinePlayers()) {
-                    if (needsVillage) findNearbyBell(player);
-                    if (needsLava) findNearbyLavaPool(player);
+                // A search that just became active has never looked around idle players.
+                // Пошук, що щойно став активним, ще не оглядав гравців без руху.
+                Set<StructureType> active = new HashSet<>();
+                for (BlockSignature signature : signatures) active.add(signature.getStructureType());
+                if (!activeSignatureSearches.containsAll(active)) queueAll(pendingSignatureScan);
+                if (needsLava && !lavaSearchActive) queueAll(pendingLavaScan);
+                activeSignatureSearches.clear();
+                activeSignatureSearches.addAll(active);
+                lavaSearchActive = needsLava;
+
+                if (signatures.isEmpty() && !needsLava) return;
+
+                if (!signatures.isEmpty() && !signatureScanInFlight && !pendingSignatureScan.isEmpty()) {
+                    findSignatures(new SignatureScanner(signatures), drainPending(pendingSignatureScan));
+                }
+                if (needsLava && !lavaScanInFlight && !pendingLavaScan.isEmpty()) {
+                    int radius = plugin.getConfigManager().getLavaPoolRadius();
+                    findNearbyLavaPool(ScanRegion.cluster(drainPending(pendingLavaScan), radius, 0));
                 }
             }
         }.runTaskTimer(plugin, 100L, 60L); // Runs every 3 seconds (60 ticks), starts after 5 seconds. / Працює кожні 3 сек, починається через 5 сек.
     }
 
     /**
-     * Scans for a village bell near the player to detect a village.
-     * Сканує наявність дзвона біля гравця для виявлення села.
+     * Marks a player's surroundings for the next scanner cycle whenever they enter another block.
+     * Позначає оточення гравця для наступного циклу сканера щоразу, коли він переходить в інший блок.
      */
-    private void findNearbyBell(Player player) {
-        // Already found?  Stop scanning.
-        if (plugin.getStructureManager().getFoundStructures().containsKey("VILLAGE")
-                && plugin.getStructureManager().getFoundStructures().get("VILLAGE") != null) {
-            return;
+    @EventHandler
+    public void onPlayerBlockChange(PlayerBlockChangeEvent event) {
+        if (!isRunning) return;
+        pendingSignatureScan.add(event.getPlayer().getUniqueId());
+        pendingLavaScan.add(event.getPlayer().getUniqueId());
+    }
+
+    @EventHandler
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        pendingSignatureScan.remove(event.getPlayer().getUniqueId());
+        pendingLavaScan.remove(event.getPlayer().getUniqueId());
+    }
+
+    /**
+     * Queues every online player for both scans, e.g. after the configuration was reloaded.
+     * Ставить усіх гравців онлайн у чергу обох сканувань, наприклад після перезавантаження конфігурації.
+     */
+    public void requestRescan() {
+        queueAll(pendingSignatureScan);
+        queueAll(pendingLavaScan);
+    }
+
+    private void queueAll(Set<UUID> pending) {
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            pending.add(player.getUniqueId());
+        }
+    }
+
+    /** Resolves and clears a set of pending players. / Отримує та очищує набір гравців в очікуванні. */
+    private List<Player> drainPending(Set<UUID> pending) {
+        List<Player> players = new ArrayList<>(pending.size());
+        for (UUID id : pending) {
+            Player player = Bukkit.getPlayer(id);
+            if (player != null) players.add(player);
         }
-        scanForBlock(player, plugin.getConfigManager().getVillageBellRadius(), Material.BELL, "VILLAGE");
+        pending.clear();
+        return players;
     }
 
     /**
-     * Scans for a significant number of lava source blocks to detect a lava pool.
-     * Сканує наявність значної кількості джерел лави для виявлення лавового озера.
+     * Evaluates all active block signatures around the players in a single pass per scan region.
+     * Snapshots are captured here on the main thread, the scan runs asynchronously,
+     * and each satisfied signature is reported back on the main thread.
+     * |
+     * Перевіряє всі активні сигнатури блоків навколо гравців за один прохід на кожну область сканування.
+     * Знімки захоплюються тут, в основному потоці, сканування виконується асинхронно,
+     * а кожна виконана сигнатура повертається в основний потік.
      */
-    private void findNearbyLavaPool(Player player) {
-        final int radius = plugin.getConfigManager().getLavaPoolRadius();
-        final int requiredSources = plugin.getConfigManager().getLavaPoolRequiredSources();
-        int lavaCount = 0;
-        Location playerLoc = player.getLocation();
-
-        for (int x = -radius; x <= radius; x++) {
-            for (int y = -4; y <= 4; y++) { // Scan a limited vertical range. / Скануємо обмежений вертикальний діапазон.
-                for (int z = -radius; z <= radius; z++) {
-                    Block block = playerLoc.clone().add(x, y, z).getBlock();
-                    // Check for lava source blocks (level 0).
-                    // Перевірка на блоки-джерела лави (рівень 0).
-                    if (block.getType() == Material.LAVA && block.getBlockData() instanceof Levelled level && level.getLevel() == 0) {
-                        if (++lavaCount >= requiredSources) {
-                            plugin.getStructureManager().structureFound(player, "LAVA_POOL", block.getLocation());
-                            return; // Found, no need to continue scanning. / Знайдено, не потрібно продовжувати.
-                        }
+    private void findSignatures(SignatureScanner scanner, Collection<? extends Player> players) {
+        List<ScanRegion> regions = ScanRegion.cluster(players, scanner.getMaxRadius(), scanner.getMaxVerticalSpan());
+        List<SnapshotGrid> grids = new ArrayList<>(regions.size());
+        for (ScanRegion region : regions) {
+            grids.add(plugin.getChunkSnapshotCache().capture(region.getWorld(),
+                    region.getMinX(), region.getMinZ(), region.getMaxX(), region.getMaxZ()));
+        }
+
+        signatureScanInFlight = true;
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+            // Keep only the first match of each signature across all regions.
+            // Залишаємо лише перший збіг кожної сигнатури серед усіх областей.
+            Map<BlockSignature, SignatureScanner.Match> matches = new LinkedHashMap<>();
+            try {
+                for (int i = 0; i < regions.size(); i++) {
+                    for (SignatureScanner.Match match : scanner.scan(grids.get(i), regions.get(i))) {
+                        matches.putIfAbsent(match.signature(), match);
                     }
                 }
+            } finally {
+                // Always report back, so a failed scan never blocks the following ones.
+                // Завжди повертаємо результат, щоб невдале сканування ніколи не блокувало наступні.
+                Bukkit.getScheduler().runTask(plugin, () -> {
+                    signatureScanInFlight = false;
+                    if (!isRunning) return;
+                    for (SignatureScanner.Match match : matches.values()) {
+                        StructureType type = match.signature().getStructureType();
+                        // Another signature or an admin may have set this structure while we were scanning.
+                        // Інша сигнатура або адміністратор могли встановити цю структуру, поки тривало сканування.
+                        if (!plugin.getStructureManager().isStructureSearchActive(type)) continue;
+                        plugin.getStructureManager().structureFound(match.finder(), type,
+                                new Location(match.world(), match.x(), match.y(), match.z()));
+                    }
+                });
             }
-        }
+        });
     }
 
     /**
-     * A generic method to scan for a specific block material in a radius around a player.
-     * Загальний метод для сканування певного матеріалу блоку в радіусі навколо гравця.
+     * Looks for a connected lava pool around each scan region.
+     * Snapshots are captured here on the main thread; the flood-fill detection itself runs asynchronously
+     * and the result is reported back on the main thread.
+     * |
+     * Шукає зв'язне лавове озеро навколо кожної області сканування.
+     * Знімки захоплюються тут, в основному потоці; саме виявлення заповненням виконується асинхронно,
+     * а результат повертається в основний потік.
      */
-    private void scanForBlock(Player player, int radius, Material material, String structureKey) {
-        Location playerLoc = player.getLocation();
-        for (int x = -radius; x <= radius; x++) {
-            for (int y = -radius; y <= radius; y++) {
-                for (int z = -radius; z <= radius; z++) {
-                    Block block = playerLoc.clone().add(x, y, z).getBlock();
-                    if (block.getType() == material) {
-                        plugin.getStructureManager().structureFound(player, structureKey, block.getLocation());
-                        return;
-                    }
+    private void findNearbyLavaPool(List<ScanRegion> regions) {
+        final int requiredSources = plugin.getConfigManager().getLavaPoolRequiredSources();
+        final int reach = LavaPoolDetector.MAX_POOL_REACH;
+
+        List<SnapshotGrid> grids = new ArrayList<>(regions.size());
+        for (ScanRegion region : regions) {
+            grids.add(plugin.getChunkSnapshotCache().capture(region.getWorld(),
+                    region.getMinX() - reach, region.getMinZ() - reach,
+                    region.getMaxX() + reach, region.getMaxZ() + reach));
+        }
+
+        lavaScanInFlight = true;
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+            ScanRegion foundIn = null;
+            LavaPoolDetector.Pool pool = null;
+            try {
+                for (int i = 0; i < regions.size() && pool == null; i++) {
+                    SnapshotGrid grid = grids.get(i);
+                    ScanRegion region = regions.get(i);
+                    // Under a bedrock ceiling (the Nether) the height map points at the roof, so seed around the players instead.
+                    // Під бедроковою стелею (Незер) карта висот вказує на дах, тому зерна беруться навколо гравців.
+                    pool = region.getWorld().hasCeiling()
+                            ? LavaPoolDetector.detectAround(grid, region.getMinX(), region.getMinY(), region.getMinZ(),
+                                    region.getMaxX(), region.getMaxY(), region.getMaxZ(), requiredSources)
+                            : LavaPoolDetector.detect(grid, region.getMinX(), region.getMinZ(), region.getMaxX(), region.getMaxZ(), requiredSources);
+                    foundIn = region;
                 }
+            } finally {
+                // Always report back, so a failed scan never blocks the following ones.
+                // Завжди повертаємо результат, щоб невдале сканування ніколи не блокувало наступні.
+                final ScanRegion region = foundIn;
+                final LavaPoolDetector.Pool result = pool;
+                Bukkit.getScheduler().runTask(plugin, () -> {
+                    lavaScanInFlight = false;
+                    // The run may have ended or the pool may have been set by hand while we were scanning.
+                    // Гра могла завершитися або озеро могли встановити вручну, поки тривало сканування.
+                    if (result == null || !isRunning || !plugin.getStructureManager().isLavaPoolSearchActive()) return;
+
+                    Location poolCenter = new Location(region.getWorld(), result.x(), result.y(), result.z());
+                    plugin.getStructureManager().structureFound(
+                            region.nearestPlayer(poolCenter.getBlockX(), poolCenter.getBlockY(), poolCenter.getBlockZ()),
+                            StructureType.LAVA_POOL, poolCenter);
+                });
             }
-        }
+        });
     }
 
     // =========================================================================================
@@ -0,0 +1,110 @@
+package org.speedrun.speedrun.managers;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerMoveEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.player.PlayerRespawnEvent;
+import org.bukkit.event.player.PlayerTeleportEvent;
+import org.speedrun.speedrun.events.PlayerBlockChangeEvent;
+import org.speedrun.speedrun.events.PlayerChunkChangeEvent;
+import org.speedrun.speedrun.utils.LocationUtil;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Turns raw player movement into the internal {@link PlayerBlockChangeEvent} and {@link PlayerChunkChangeEvent}.
+ * Most move events only rotate the head or shift inside a block and are discarded after a few integer comparisons;
+ * the internal events are only built when something is actually listening to them.
+ * |
+ * Перетворює сирий рух гравців на внутрішні події {@link PlayerBlockChangeEvent} та {@link PlayerChunkChangeEvent}.
+ * Більшість подій руху лише повертають голову чи зсувають гравця в межах блоку й відкидаються після кількох порівнянь цілих чисел;
+ * внутрішні події створюються лише тоді, коли їх хтось справді слухає.
+ */
+public class PlayerChunkTracker implements Listener {
+
+    // Last reported location of every online player. / Остання повідомлена локація кожного гравця онлайн.
+    private final Map<UUID, Location> lastLocations = new HashMap<>();
+
+    public PlayerChunkTracker() {
+        // Players already online after a plugin reload start from their current position.
+        // Гравці, які вже онлайн після перезавантаження плагіна, починають з поточної позиції.
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            lastLocations.put(player.getUniqueId(), player.getLocation());
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPlayerMove(PlayerMoveEvent event) {
+        Location from = event.getFrom();
+        Location to = event.getTo();
+        // Fast path: the player stayed inside the same block. / Швидкий шлях: гравець залишився в тому ж блоці.
+        if (from.getBlockX() == to.getBlockX() && from.getBlockY() == to.getBlockY()
+                && from.getBlockZ() == to.getBlockZ() && from.getWorld() == to.getWorld()) {
+            return;
+        }
+        update(event.getPlayer(), to);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPlayerTeleport(PlayerTeleportEvent event) {
+        update(event.getPlayer(), event.getTo());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerChangedWorld(PlayerChangedWorldEvent event) {
+        update(event.getPlayer(), event.getPlayer().getLocation());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerRespawn(PlayerRespawnEvent event) {
+        update(event.getPlayer(), event.getRespawnLocation());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerJoin(PlayerJoinEvent event) {
+        lastLocations.remove(event.getPlayer().getUniqueId());
+        update(event.getPlayer(), event.getPlayer().getLocation());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        lastLocations.remove(event.getPlayer().getUniqueId());
+    }
+
+    /**
+     * Compares a new location with the last reported one and fires the internal events that apply.
+     * Порівнює нову локацію з останньою повідомленою та викликає відповідні внутрішні події.
+     */
+    private void update(Player player, Location to) {
+        Location last = lastLocations.get(player.getUniqueId());
+        boolean sameWorld = last != null && last.getWorld() == to.getWorld();
+        if (sameWorld && last.getBlockX() == to.getBlockX() && last.getBlockY() == to.getBlockY()
+                && last.getBlockZ() == to.getBlockZ()) {
+            return;
+        }
+
+        Location from = (last != null) ? last : to;
+        lastLocations.put(player.getUniqueId(), to.clone());
+
+        if (PlayerBlockChangeEvent.getHandlerList().getRegisteredListeners().length > 0) {
+            Bukkit.getPluginManager().callEvent(new PlayerBlockChangeEvent(player, from, to));
+        }
+
+        long fromChunk = LocationUtil.chunkKey(from.getBlockX() >> 4, from.getBlockZ() >> 4);
+        long toChunk = LocationUtil.chunkKey(to.getBlockX() >> 4, to.getBlockZ() >> 4);
+        if ((!sameWorld || fromChunk != toChunk)
+                && PlayerChunkChangeEvent.getHandlerList().getRegisteredListeners().length > 0) {
+            Bukkit.getPluginManager().callEvent(new PlayerChunkChangeEvent(player,
+                    last != null ? last.getWorld() : null, fromChunk, to.getWorld(), toChunk));
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package org.speedrun.speedrun.managers;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.BlockState;
+import org.jetbrains.annotations.Nullable;
+import org.speedrun.speedrun.utils.LocationUtil;
+import org.speedrun.speedrun.utils.SpatialIndex;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Keeps every nether portal seen during a run, together with the portal each one leads to.
+ * Every portal block is indexed by its packed block position, so the portal a player stands in is a single
+ * hash lookup. Once the exit of a portal has been resolved, the link is memoized and later traversals reuse it
+ * without searching again. Must only be used from the main thread.
+ * |
+ * Зберігає кожен портал у Незер, побачений під час забігу, разом із порталом, до якого він веде.
+ * Кожен блок порталу індексується за упакованою позицією блоку, тож портал, у якому стоїть гравець, знаходиться
+ * одним пошуком у хеш-мапі. Щойно вихід порталу визначено, зв'язок запам'ятовується, і наступні переходи
+ * використовують його без повторного пошуку. Використовувати лише з основного потоку.
+ */
+public class PortalRegistry {
+
+    // The largest possible portal is 21x21 blocks. / Найбільший можливий портал має 21x21 блок.
+    private static final int MAX_PORTAL_BLOCKS = 21 * 21;
+    // An exit is generated within a tick or two of entering; older expectations belong to a cancelled teleport.
+    // Вихід генерується за тік-два після входу; старіші очікування належать скасованому телепорту.
+    private static final int PENDING_EXIT_TICKS = 200;
+
+    /** The portal a player entered and the tick after which its exit is no longer expected. / Портал входу гравця та тік, після якого його вихід більше не очікується. */
+    private record PendingExit(Portal source, int expiresAt) {}
+
+    /**
+     * A known portal: its lowest block and, once resolved, the portal it leads to.
+     * Відомий портал: його найнижчий блок та, після визначення, портал, до якого він веде.
+     */
+    public static final class Portal {
+        private final Location base;
+        private final List<Long> blocks;
+        private Portal link;
+
+        private Portal(Location base, List<Long> blocks) {
+            this.base = base;
+            this.blocks = blocks;
+        }
+
+        /** @return The lowest portal block. / Найнижчий блок порталу. */
+        public Location getBase() {
+            return base.clone();
+        }
+
+        /** @return The portal this one leads to, if already resolved. / Портал, до якого веде цей, якщо вже визначено. */
+        @Nullable
+        public Portal getLink() {
+            return link;
+        }
+    }
+
+    // World -> packed block position -> portal. / Світ -> упакована позиція блоку -> портал.
+    private final Map<UUID, Map<Long, Portal>> byBlock = new HashMap<>();
+    // Portals by their lowest block, for nearest-portal queries. / Портали за найнижчим блоком, для запитів найближчого порталу.
+    private final SpatialIndex<Portal> byPosition = new SpatialIndex<>(128, portal -> portal.base);
+    // Every known portal, in registration order. / Кожен відомий портал у порядку реєстрації.
+    private final List<Portal> portals = new ArrayList<>();
+    // Players in transit -> the portal they entered, until its exit is known. / Гравці в дорозі -> портал входу, поки вихід невідомий.
+    private final Map<UUID, PendingExit> pendingSources = new HashMap<>();
+    // Bumped whenever a portal or link changes. / Збільшується щоразу, коли змінюється портал або зв'язок.
+    private long version;
+
+    /** Forgets all portals. Called at the start of a run. / Забуває всі портали. Викликається на початку забігу. */
+    public void clear() {
+        byBlock.clear();
+        byPosition.clear();
+        portals.clear();
+        pendingSources.clear();
+        version++;
+    }
+
+    /** @return Every known portal. / Кожен відомий портал. */
+    public List<Portal> getPortals() {
+        return Collections.unmodifiableList(portals);
+    }
+
+    /**
+     * Returns a counter that changes whenever a portal is added or removed or a link is memoized, so derived data
+     * can be cached until it does.
+     * Повертає лічильник, що змінюється щоразу, коли портал додано чи видалено або зв'язок запам'ятовано, тож похідні
+     * дані можна кешувати, доки він не зміниться.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Registers a newly created portal from the blocks reported by {@code PortalCreateEvent}.
+     * Реєструє щойно створений портал за блоками з {@code PortalCreateEvent}.
+     *
+     * @return The portal, or null if the blocks contain no portal block. / Портал, або null, якщо серед блоків немає блоку порталу.
+     */
+    @Nullable
+    public Portal register(List<BlockState> blocks) {
+        List<Long> keys = new ArrayList<>();
+        BlockState base = null;
+        for (BlockState state : blocks) {
+            if (state.getType() != Material.NETHER_PORTAL) continue;
+            keys.add(LocationUtil.blockKey(state.getX(), state.getY(), state.getZ()));
+            if (base == null || state.getY() < base.getY()) base = state;
+        }
+        if (base == null) return null;
+
+        Portal existing = find(base.getLocation());
+        return (existing != null) ? existing : add(base.getLocation(), keys);
+    }
+
+    /**
+     * Returns the portal at a location, registering it from the world if it is not known yet.
+     * The portal's blocks are collected with a bounded flood fill over live block types.
+     * |
+     * Повертає портал у локації, реєструючи його зі світу, якщо він ще невідомий.
+     * Блоки порталу збираються обмеженим заливанням по живих типах блоків.
+     *
+     * @return The portal, or null if there is no portal block at the location. / Портал, або null, якщо в локації немає блоку порталу.
+     */
+    @Nullable
+    public Portal registerAt(Location loc) {
+        Portal existing = find(loc);
+        if (existing != null) return existing;
+
+        World world = loc.getWorld();
+        int startY = loc.getBlockY();
+        if (world.getType(loc.getBlockX(), startY, loc.getBlockZ()) != Material.NETHER_PORTAL) {
+            startY++; // The entry location may be the block below the player's head. / Локація входу може бути блоком під головою гравця.
+            if (world.getType(loc.getBlockX(), startY, loc.getBlockZ()) != Material.NETHER_PORTAL) return null;
+        }
+
+        List<Long> keys = new ArrayList<>();
+        Set<Long> visited = new HashSet<>();
+        ArrayDeque<int[]> queue = new ArrayDeque<>();
+        queue.add(new int[]{loc.getBlockX(), startY, loc.getBlockZ()});
+        visited.add(LocationUtil.blockKey(loc.getBlockX(), startY, loc.getBlockZ()));
+        int[] base = null;
+
+        while (!queue.isEmpty() && keys.size() < MAX_PORTAL_BLOCKS) {
+            int[] pos = queue.poll();
+            keys.add(LocationUtil.blockKey(pos[0], pos[1], pos[2]));
+            if (base == null || pos[1] < base[1]) base = pos;
+
+            int[][] neighbours = {
+                    {pos[0] + 1, pos[1], pos[2]}, {pos[0] - 1, pos[1], pos[2]},
+                    {pos[0], pos[1] + 1, pos[2]}, {pos[0], pos[1] - 1, pos[2]},
+                    {pos[0], pos[1], pos[2] + 1}, {pos[0], pos[1], pos[2] - 1}
+            };
+            for (int[] next : neighbours) {
+                if (!visited.add(LocationUtil.blockKey(next[0], next[1], next[2]))) continue;
+                if (world.getType(next[0], next[1], next[2]) == Material.NETHER_PORTAL) queue.add(next);
+            }
+        }
+        return add(new Location(world, base[0], base[1], base[2]), keys);
+    }
+
+    private Portal add(Location base, List<Long> keys) {
+        UUID worldId = base.getWorld().getUID();
+        Portal portal = new Portal(base, keys);
+        Map<Long, Portal> blocks = byBlock.computeIfAbsent(worldId, id -> new HashMap<>());
+        for (long key : keys) {
+            blocks.put(key, portal);
+        }
+        byPosition.add(portal);
+        portals.add(portal);
+        version++;
+        return portal;
+    }
+
+    private void remove(Portal portal) {
+        UUID worldId = portal.base.getWorld().getUID();
+        Map<Long, Portal> blocks = byBlock.get(worldId);
+        if (blocks != null) {
+            for (long key : portal.blocks) {
+                blocks.remove(key, portal);
+            }
+        }
+        byPosition.remove(portal);
+        portals.remove(portal);
+        for (Portal other : portals) {
+            if (other.link == portal) other.link = null;
+        }
+        version++;
+    }
+
+    /**
+     * Finds the known portal containing a location (its block or the one above).
+     * Знаходить відомий портал, що містить локацію (її блок або блок вище).
+     */
+    @Nullable
+    public Portal find(Location loc) {
+        Map<Long, Portal> blocks = byBlock.get(loc.getWorld().getUID());
+        if (blocks == null) return null;
+        Portal portal = blocks.get(LocationUtil.blockKey(loc.getBlockX(), loc.getBlockY(), loc.getBlockZ()));
+        return (portal != null) ? portal : blocks.get(LocationUtil.blockKey(loc.getBlockX(), loc.getBlockY() + 1, loc.getBlockZ()));
+    }
+
+    /**
+     * Returns the memoized exit of a portal. A link whose exit has been destroyed (checked only if its chunk is loaded)
+     * is dropped together with that portal.
+     * |
+     * Повертає запам'ятований вихід порталу. Зв'язок, вихід якого зруйновано (перевіряється лише якщо його чанк завантажений),
+     * видаляється разом із тим порталом.
+     */
+    @Nullable
+    public Portal getLink(Portal source) {
+        Portal exit = source.link;
+        if (exit == null) return null;
+
+        Location base = exit.base;
+        if (base.getWorld().isChunkLoaded(base.getBlockX() >> 4, base.getBlockZ() >> 4)
+                && base.getWorld().getType(base.getBlockX(), base.getBlockY(), base.getBlockZ()) != Material.NETHER_PORTAL) {
+            remove(exit);
+            return null;
+        }
+        return exit;
+    }
+
+    /**
+     * Memoizes where a portal leads. The exit is assumed to lead back to the source until a traversal of the exit
+     * shows otherwise, so the way back resolves without a search too.
+     * Запам'ятовує, куди веде портал. Вважається, що вихід веде назад до джерела, доки перехід через вихід не покаже
+     * інше, тож шлях назад теж визначається без пошуку.
+     */
+    public void link(Portal source, Portal exit) {
+        if (source == exit) return;
+        if (source.link != exit) {
+            source.link = exit;
+            version++;
+        }
+        if (exit.link == null) {
+            exit.link = source;
+            version++;
+        }
+    }
+
+    /**
+     * Remembers the portal a player has just entered, so an exit generated for them can be linked to it.
+     * Запам'ятовує портал, у який щойно увійшов гравець, щоб згенерований для нього вихід можна було з ним зв'язати.
+     */
+    public void expectExit(UUID player, Portal source) {
+        pendingSources.put(player, new PendingExit(source, Bukkit.getCurrentTick() + PENDING_EXIT_TICKS));
+    }
+
+    /**
+     * Drops a player's expected exit, e.g. when they leave the server.
+     * Відкидає очікуваний вихід гравця, напр. коли він залишає сервер.
+     */
+    public void forgetExpected(UUID player) {
+        pendingSources.remove(player);
+    }
+
+    /**
+     * Links the portal a player entered to the exit they arrived through, if one was expected.
+     * Зв'язує портал, у який увійшов гравець, з виходом, через який він прибув, якщо вихід очікувався.
+     */
+    public void resolveExit(UUID player, Portal exit) {
+        PendingExit pending = pendingSources.remove(player);
+        if (pending != null && Bukkit.getCurrentTick() <= pending.expiresAt()) link(pending.source(), exit);
+    }
+
+    /**
+     * Finds the known portal closest to a location in the same world.
+     * Знаходить відомий портал, найближчий до локації в тому ж світі.
+     *
+     * @return The portal's lowest block, or null if none is known there. / Найнижчий блок порталу, або null, якщо там жоден невідомий.
+     */
+    @Nullable
+    public Location findNearest(Location loc) {
+        List<Portal> nearest = byPosition.nearest(loc, 1);
+        return nearest.isEmpty() ? null : nearest.get(0).getBase();
+    }
+}
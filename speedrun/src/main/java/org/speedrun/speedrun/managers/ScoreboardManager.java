@@ -11,6 +11,7 @@ import org.bukkit.scoreboard.Scoreboard;
 import org.jetbrains.annotations.NotNull;
 import org.speedrun.speedrun.utils.LocationUtil;
 import org.speedrun.speedrun.Speedrun;
+import org.speedrun.speedrun.StructureType;
 import org.speedrun.speedrun.Task;
 import org.speedrun.speedrun.utils.TimeUtil;
 
@@ -86,37 +87,40 @@ public class ScoreboardManager {
 
         // Lines 4+: Found Structures
         // Рядки 4+: Знайдені структури
-        for (Map.Entry<String, Location> entry : sm.getFoundStructures().entrySet()) {
-            String key = entry.getKey();
-
-            // if (sm.getFoundStructures().containsKey(key) && sm.isStructureHidden(key)) continue;
-            if (sm.isStructureHidden(key)) continue;
+        for (StructureType type : StructureType.values()) {
+            if (sm.isStructureHidden(type)) continue;
+            if (!type.isAlwaysListed() && !sm.isFound(type)) continue;
 
             // Don't show Lava Pool if a Nether Portal has been found.
             // Не показуємо Озеро Лави, якщо портал в Незер вже знайдено.
-            if (key.equals("LAVA_POOL") && sm.isPortalPartiallyFound()) continue;
-            if (key.equals("VILLAGE") && sm.isVillageSearchFailed()) continue;
+            if (type == StructureType.LAVA_POOL && sm.isPortalPartiallyFound()) continue;
+            if (type == StructureType.VILLAGE && sm.isVillageSearchFailed()) continue;
 
-            String displayName = sm.getLocalizedStructureName(key);
+            String displayName = sm.getLocalizedStructureName(type);
             String line;
             Location displayLoc;
 
-            // Special handling for Nether Portal to show coords for the player's current dimension.
-            // Спеціальна обробка для порталу в Незер, щоб показувати координати для поточного виміру гравця.
-            if (key.equals("NETHER_PORTAL")) {
-                displayLoc = sm.getPortalLocationForWorld(player.getWorld().getEnvironment());
+            // Special handling for Nether Portal: the nearest known portal, or the main pair's side in the player's dimension.
+            // Спеціальна обробка для порталу в Незер: найближчий відомий портал або сторона основної пари у вимірі гравця.
+            if (type == StructureType.NETHER_PORTAL) {
+                displayLoc = plugin.getPortalRegistry().findNearest(player.getLocation());
+                if (displayLoc == null) displayLoc = sm.getPortalLocationForWorld(player.getWorld().getEnvironment());
             } else {
-                displayLoc = entry.getValue();
+                // The instance nearest to the player. / Екземпляр, найближчий до гравця.
+                displayLoc = sm.getNearestInstance(type, player.getLocation());
             }
 
             // Special handling for End Portal to show predicted coordinates.
             // Спеціальна обробка для порталу в Край, щоб показувати передбачені координати.
-            if (key.equals("END_PORTAL") && displayLoc == null) {
+            if (type == StructureType.END_PORTAL && displayLoc == null) {
                 Location predictedLoc = sm.getPredictedEndPortalLocation();
                 if (predictedLoc != null) {
                     int netherX = predictedLoc.getBlockX() / 8;
                     int netherZ = predictedLoc.getBlockZ() / 8;
                     line = "§e" + displayName + ": §6" + predictedLoc.getBlockX() + ", " + predictedLoc.getBlockZ() + " §7(§c" + netherX + ", " + netherZ + "§7)";
+                    // Confidence of the probability grid, once it has been computed. / Впевненість сітки ймовірностей, щойно її обчислено.
+                    double confidence = sm.getPredictionConfidence();
+                    if (!Double.isNaN(confidence)) line += " §a" + Math.round(confidence * 100) + "%";
                 } else {
                     line = cm.getFormattedText("scoreboard.location-pending", "%name%", displayName);
                 }
@@ -126,7 +130,7 @@ public class ScoreboardManager {
                 } else {
                     // If a village is being searched for, show the countdown timer.
                     // Якщо ведеться пошук села, показуємо таймер зворотного відліку.
-                    if (key.equals("VILLAGE") && sm.isVillageSearchActive()) {
+                    if (type == StructureType.VILLAGE && sm.isVillageSearchActive()) {
                         String timer = cm.getFormattedText("scoreboard.village-timer", "%time%", TimeUtil.formatMinutesSeconds(gm.getVillageTimeRemaining()));
                         line = cm.getFormattedText("scoreboard.location-pending", "%name%", displayName) + " " + timer;
                     } else {
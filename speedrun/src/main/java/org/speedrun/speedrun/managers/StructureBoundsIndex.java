@@ -0,0 +1,180 @@
+package org.speedrun.speedrun.managers;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.world.ChunkLoadEvent;
+import org.bukkit.event.world.ChunkUnloadEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
+import org.bukkit.generator.structure.GeneratedStructure;
+import org.bukkit.util.BoundingBox;
+import org.jetbrains.annotations.Nullable;
+import org.speedrun.speedrun.Speedrun;
+import org.speedrun.speedrun.StructureType;
+import org.speedrun.speedrun.events.PlayerBlockChangeEvent;
+import org.speedrun.speedrun.utils.LocationUtil;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Keeps an index of the real bounding boxes of generated villages, fortresses, bastions and strongholds.
+ * Boxes are read from {@link Chunk#getStructures()} (every structure intersecting the chunk) as chunks load and are
+ * dropped again when they unload, so a player entering a structure is detected exactly, on the block they step in,
+ * without any block sweeps, and the index only ever holds loaded chunks.
+ * |
+ * Зберігає індекс справжніх обмежувальних рамок згенерованих сіл, фортець, бастіонів і твердинь.
+ * Рамки читаються з {@link Chunk#getStructures()} (усі структури, що перетинають чанк) під час завантаження чанків
+ * і відкидаються під час їх вивантаження, тож вхід гравця в структуру виявляється точно, на тому блоці, куди він
+ * ступив, без перебору блоків, а індекс містить лише завантажені чанки.
+ */
+public class StructureBoundsIndex implements Listener {
+
+    /**
+     * A generated structure: the plugin's structure type and its bounding box.
+     * Згенерована структура: тип структури плагіна та її обмежувальна рамка.
+     */
+    public record Bounds(StructureType type, BoundingBox box) {
+        /** @return The centre of the box on the given world. / Центр рамки у вказаному світі. */
+        public Location center(World world) {
+            return box.getCenter().toLocation(world);
+        }
+    }
+
+    private final Speedrun plugin;
+    // World -> packed key of a loaded chunk -> structures overlapping that chunk.
+    // Світ -> ключ завантаженого чанка -> структури, що перетинають цей чанк.
+    private final Map<UUID, Map<Long, List<Bounds>>> byChunk = new HashMap<>();
+
+    public StructureBoundsIndex(Speedrun plugin) {
+        this.plugin = plugin;
+        // Chunks loaded before the plugin was enabled never fire ChunkLoadEvent for us.
+        // Чанки, завантажені до ввімкнення плагіна, не викликають для нас ChunkLoadEvent.
+        for (World world : Bukkit.getWorlds()) {
+            for (Chunk chunk : world.getLoadedChunks()) {
+                index(chunk);
+            }
+        }
+    }
+
+    /**
+     * Maps a vanilla structure to the plugin's structure type.
+     * Зіставляє ванільну структуру з типом структури плагіна.
+     *
+     * @return The type, or null if the structure is not tracked. / Тип, або null, якщо структура не відстежується.
+     */
+    @Nullable
+    private static StructureType toStructureType(GeneratedStructure structure) {
+        String name = structure.getStructure().getKey().getKey();
+        if (name.startsWith("village_")) return StructureType.VILLAGE;
+        return switch (name) {
+            case "fortress" -> StructureType.FORTRESS;
+            case "bastion_remnant" -> StructureType.BASTION;
+            case "stronghold" -> StructureType.END_PORTAL;
+            case "ruined_portal", "ruined_portal_desert", "ruined_portal_jungle", "ruined_portal_swamp",
+                 "ruined_portal_mountain", "ruined_portal_ocean", "ruined_portal_nether" -> StructureType.RUINED_PORTAL;
+            case "desert_pyramid" -> StructureType.DESERT_TEMPLE;
+            default -> null;
+        };
+    }
+
+    private void index(Chunk chunk) {
+        List<Bounds> list = null;
+        for (GeneratedStructure structure : chunk.getStructures()) {
+            StructureType type = toStructureType(structure);
+            if (type == null) continue;
+            if (list == null) list = new ArrayList<>(1);
+            list.add(new Bounds(type, structure.getBoundingBox()));
+        }
+        // Chunks without tracked structures take no memory. / Чанки без відстежуваних структур не займають пам'яті.
+        if (list == null) return;
+        byChunk.computeIfAbsent(chunk.getWorld().getUID(), id -> new HashMap<>())
+                .put(LocationUtil.chunkKey(chunk.getX(), chunk.getZ()), list);
+    }
+
+    /**
+     * Finds the indexed structure of a given type that contains a location.
+     * Знаходить проіндексовану структуру заданого типу, що містить локацію.
+     *
+     * @param loc The location to test. / Локація для перевірки.
+     * @param type The structure type. / Тип структури.
+     * @return The structure bounds, or null if the location is not inside one. / Межі структури, або null, якщо локація не всередині неї.
+     */
+    @Nullable
+    public Bounds find(Location loc, StructureType type) {
+        for (Bounds bounds : boundsAt(loc)) {
+            if (bounds.type() == type && bounds.box().contains(loc.getX(), loc.getY(), loc.getZ())) {
+                return bounds;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Checks whether none of the recorded instances of the box's type lies inside the box.
+     * Перевіряє, чи жоден із записаних екземплярів типу рамки не лежить усередині неї.
+     */
+    private boolean isNewInstance(Bounds bounds, World world) {
+        for (Location instance : plugin.getStructureManager().getInstances(bounds.type())) {
+            if (instance.getWorld() == world && bounds.box().contains(instance.toVector())) return false;
+        }
+        return true;
+    }
+
+    private List<Bounds> boundsAt(Location loc) {
+        Map<Long, List<Bounds>> chunks = byChunk.get(loc.getWorld().getUID());
+        if (chunks == null) return Collections.emptyList();
+        List<Bounds> list = chunks.get(LocationUtil.chunkKey(loc.getBlockX() >> 4, loc.getBlockZ() >> 4));
+        return list != null ? list : Collections.emptyList();
+    }
+
+    // =========================================================================================
+    // Events
+    // =========================================================================================
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkLoad(ChunkLoadEvent event) {
+        index(event.getChunk());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkUnload(ChunkUnloadEvent event) {
+        Map<Long, List<Bounds>> chunks = byChunk.get(event.getWorld().getUID());
+        if (chunks != null) chunks.remove(LocationUtil.chunkKey(event.getChunk().getX(), event.getChunk().getZ()));
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onWorldUnload(WorldUnloadEvent event) {
+        byChunk.remove(event.getWorld().getUID());
+    }
+
+    /**
+     * Reports a structure as found the moment a player steps inside its bounding box.
+     * Повідомляє про знайдену структуру в момент, коли гравець заходить у її обмежувальну рамку.
+     */
+    @EventHandler
+    public void onPlayerBlockChange(PlayerBlockChangeEvent event) {
+        if (!plugin.getGameManager().isRunning()) return;
+        Location to = event.getTo();
+
+        for (Bounds bounds : boundsAt(to)) {
+            if (!bounds.box().contains(to.getX(), to.getY(), to.getZ())) continue;
+            // The stronghold box is huge, so its portal is better approximated by where the player entered.
+            // Рамка твердині величезна, тож її портал краще наближати місцем, де гравець увійшов.
+            Location found = (bounds.type() == StructureType.END_PORTAL) ? to.clone() : bounds.center(to.getWorld());
+
+            // Further instances of a type are recorded too, e.g. a second bastion; each box is reported once.
+            // Наступні екземпляри типу теж записуються, напр. другий бастіон; кожна рамка повідомляється один раз.
+            if (!plugin.getStructureManager().isStructureSearchActive(bounds.type()) && !isNewInstance(bounds, to.getWorld())) continue;
+            plugin.getStructureManager().structureFound(event.getPlayer(), bounds.type(), found);
+        }
+    }
+}
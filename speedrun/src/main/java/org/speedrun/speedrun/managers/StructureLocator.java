@@ -0,0 +1,214 @@
+package org.speedrun.speedrun.managers;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+import org.bukkit.event.world.WorldUnloadEvent;
+import org.bukkit.generator.structure.Structure;
+import org.bukkit.scheduler.BukkitTask;
+import org.bukkit.util.StructureSearchResult;
+import org.speedrun.speedrun.Speedrun;
+import org.speedrun.speedrun.StructureType;
+import org.speedrun.speedrun.utils.LocationUtil;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Finds the nearest generated structure of a type with {@link World#locateNearestStructure}, without main-thread spikes.
+ * A type can map to several vanilla structures (five village styles, seven ruined portals); each of them is one
+ * locate call, and only a few calls run per tick, so a request is spread over several ticks. Results are cached per
+ * world and per region cell: every query from the same cell is answered with the structure nearest to the cell's
+ * centre, so repeated queries from different players in the same area are free. Must only be used from the main thread.
+ * |
+ * Знаходить найближчу згенеровану структуру типу через {@link World#locateNearestStructure} без сплесків в основному потоці.
+ * Тип може відповідати кільком ванільним структурам (п'ять стилів сіл, сім зруйнованих порталів); кожна з них є одним
+ * викликом пошуку, і за тік виконується лише кілька викликів, тож запит розподіляється на кілька тіків. Результати
+ * кешуються по світах і по клітинках регіону: кожен запит з тієї ж клітинки отримує структуру, найближчу до центру
+ * клітинки, тож повторні запити різних гравців в одній області безкоштовні. Використовувати лише з основного потоку.
+ */
+public class StructureLocator implements Listener {
+
+    private record CacheKey(UUID world, StructureType type, long cell) {}
+
+    /** One request, answered after all of its structures have been located. / Один запит, що отримує відповідь після пошуку всіх його структур. */
+    private static final class Job {
+        final CacheKey key;
+        final World world;
+        final Location origin;
+        final List<Structure> structures;
+        final CompletableFuture<Location> future = new CompletableFuture<>();
+        int next = 0;
+        Location nearest;
+        double nearestDistance = Double.MAX_VALUE;
+
+        Job(CacheKey key, World world, Location origin, List<Structure> structures) {
+            this.key = key;
+            this.world = world;
+            this.origin = origin;
+            this.structures = structures;
+        }
+    }
+
+    private static final List<Structure> VILLAGES = List.of(Structure.VILLAGE_PLAINS, Structure.VILLAGE_DESERT,
+            Structure.VILLAGE_SAVANNA, Structure.VILLAGE_SNOWY, Structure.VILLAGE_TAIGA);
+    private static final List<Structure> OVERWORLD_RUINED_PORTALS = List.of(Structure.RUINED_PORTAL, Structure.RUINED_PORTAL_DESERT,
+            Structure.RUINED_PORTAL_JUNGLE, Structure.RUINED_PORTAL_SWAMP, Structure.RUINED_PORTAL_MOUNTAIN, Structure.RUINED_PORTAL_OCEAN);
+
+    private final Speedrun plugin;
+    // An empty Optional caches "nothing within the radius". / Порожній Optional кешує "нічого в радіусі".
+    private final Map<CacheKey, Optional<Location>> cache = new HashMap<>();
+    private final Map<CacheKey, Job> pending = new HashMap<>();
+    private final ArrayDeque<Job> queue = new ArrayDeque<>();
+    private BukkitTask task;
+
+    private boolean enabled;
+    private int cellShift;
+    private int radiusChunks;
+    private int locatesPerTick;
+
+    public StructureLocator(Speedrun plugin) {
+        this.plugin = plugin;
+        reload();
+    }
+
+    /** Re-reads the settings from the config. Cached results are kept unless the cell size changed. / Перечитує налаштування з конфігурації. Кеш зберігається, якщо розмір клітинки не змінився. */
+    public void reload() {
+        ConfigManager cm = plugin.getConfigManager();
+        int shift = 32 - Integer.numberOfLeadingZeros(Math.max(16, cm.getStructureLocatorCellSize()) - 1);
+        if (shift != cellShift) cache.clear();
+        this.cellShift = shift;
+        this.enabled = cm.isStructureLocatorEnabled();
+        this.radiusChunks = Math.max(1, cm.getStructureLocatorRadius());
+        this.locatesPerTick = Math.max(1, cm.getStructureLocatorPerTick());
+    }
+
+    /** @return True if the locator is enabled in the config. / True, якщо пошук увімкнено в конфігурації. */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Finds the structure of a type nearest to a location. Cached answers complete immediately.
+     * Знаходить структуру типу, найближчу до локації. Відповіді з кешу завершуються одразу.
+     *
+     * @return A future completed on the main thread with the structure's location, or null if there is none within the
+     *         radius, the type cannot generate in this dimension, or the locator is disabled.
+     *         / Ф'ючерс, що завершується в основному потоці локацією структури, або null, якщо в радіусі її немає,
+     *         тип не генерується в цьому вимірі, або пошук вимкнено.
+     */
+    public CompletableFuture<Location> locate(StructureType type, Location near) {
+        World world = near.getWorld();
+        List<Structure> structures = structuresFor(type, world.getEnvironment());
+        if (!enabled || structures.isEmpty()) return CompletableFuture.completedFuture(null);
+
+        int cellX = near.getBlockX() >> cellShift, cellZ = near.getBlockZ() >> cellShift;
+        CacheKey key = new CacheKey(world.getUID(), type, LocationUtil.chunkKey(cellX, cellZ));
+        Optional<Location> cached = cache.get(key);
+        if (cached != null) return CompletableFuture.completedFuture(cached.map(Location::clone).orElse(null));
+
+        Job job = pending.get(key);
+        if (job == null) {
+            int half = 1 << (cellShift - 1);
+            Location origin = new Location(world, (cellX << cellShift) + half, near.getY(), (cellZ << cellShift) + half);
+            job = new Job(key, world, origin, structures);
+            pending.put(key, job);
+            queue.add(job);
+            if (task == null) task = Bukkit.getScheduler().runTaskTimer(plugin, this::tick, 1L, 1L);
+        }
+        return job.future.thenApply(loc -> (loc != null) ? loc.clone() : null);
+    }
+
+    /**
+     * Runs up to {@code locatesPerTick} locate calls, finishing jobs as their last structure is located.
+     * Виконує до {@code locatesPerTick} викликів пошуку, завершуючи запити, коли знайдено їхню останню структуру.
+     */
+    private void tick() {
+        for (int calls = 0; calls < locatesPerTick && !queue.isEmpty(); calls++) {
+            Job job = queue.peek();
+            StructureSearchResult result = job.world.locateNearestStructure(job.origin, job.structures.get(job.next++), radiusChunks, false);
+            if (result != null) {
+                Location loc = result.getLocation();
+                double dx = loc.getX() - job.origin.getX(), dz = loc.getZ() - job.origin.getZ();
+                double distance = dx * dx + dz * dz;
+                if (distance < job.nearestDistance) {
+                    job.nearestDistance = distance;
+                    job.nearest = loc;
+                }
+            }
+            if (job.next < job.structures.size()) continue;
+
+            queue.poll();
+            pending.remove(job.key);
+            cache.put(job.key, Optional.ofNullable(job.nearest));
+            job.future.complete(job.nearest);
+        }
+        if (queue.isEmpty()) {
+            task.cancel();
+            task = null;
+        }
+    }
+
+    /**
+     * The vanilla structures a type stands for in a dimension.
+     * Ванільні структури, яким відповідає тип у вимірі.
+     */
+    private static List<Structure> structuresFor(StructureType type, World.Environment environment) {
+        if (environment == World.Environment.NORMAL) {
+            return switch (type) {
+                case VILLAGE -> VILLAGES;
+                case END_PORTAL -> List.of(Structure.STRONGHOLD);
+                case DESERT_TEMPLE -> List.of(Structure.DESERT_PYRAMID);
+                case RUINED_PORTAL -> OVERWORLD_RUINED_PORTALS;
+                default -> Collections.emptyList();
+            };
+        }
+        if (environment == World.Environment.NETHER) {
+            return switch (type) {
+                case FORTRESS -> List.of(Structure.FORTRESS);
+                case BASTION -> List.of(Structure.BASTION_REMNANT);
+                case RUINED_PORTAL -> List.of(Structure.RUINED_PORTAL_NETHER);
+                default -> Collections.emptyList();
+            };
+        }
+        return Collections.emptyList();
+    }
+
+    /** @return True if the type is generated in the dimension. / True, якщо тип генерується у вимірі. */
+    public static boolean canGenerateIn(StructureType type, World.Environment environment) {
+        return !structuresFor(type, environment).isEmpty();
+    }
+
+    @EventHandler
+    public void onWorldUnload(WorldUnloadEvent event) {
+        UUID worldId = event.getWorld().getUID();
+        cache.keySet().removeIf(key -> key.world().equals(worldId));
+        queue.removeIf(job -> {
+            if (!job.key.world().equals(worldId)) return false;
+            pending.remove(job.key);
+            job.future.complete(null);
+            return true;
+        });
+    }
+
+    /** Cancels the pending work. Called when the plugin is disabled. / Скасовує незавершену роботу. Викликається при вимкненні плагіна. */
+    public void shutdown() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        for (Job job : queue) {
+            job.future.complete(null);
+        }
+        queue.clear();
+        pending.clear();
+    }
+}
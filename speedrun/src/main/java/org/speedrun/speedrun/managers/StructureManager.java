@@ -7,10 +7,16 @@ import org.bukkit.Location;
 import org.bukkit.World;
 import org.bukkit.entity.Player;
 import org.speedrun.speedrun.utils.LocationUtil;
+import org.speedrun.speedrun.utils.RayIntersector;
+import org.speedrun.speedrun.utils.StrongholdGrid;
+import org.speedrun.speedrun.utils.SpatialIndex;
+import org.jetbrains.annotations.Nullable;
 import org.speedrun.speedrun.Speedrun;
+import org.speedrun.speedrun.StructureType;
 import org.speedrun.speedrun.events.StructureFoundEvent;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Manages the detection, storage, and state of key structures.
@@ -21,9 +27,17 @@ import java.util.*;
  */
 public class StructureManager {
     private final Speedrun plugin;
-    // Stores locations of all tracked structures. Using LinkedHashMap to maintain insertion order.
-    // Зберігає локації всіх відстежуваних структур. Використовується LinkedHashMap для збереження порядку додавання.
-    private final Map<String, Location> foundLocations = new LinkedHashMap<>();
+    // Every discovered instance of each structure type, in discovery order; the first one is the primary.
+    // Кожен знайдений екземпляр кожного типу структури в порядку знаходження; перший є основним.
+    private final Map<StructureType, List<Location>> foundLocations = new EnumMap<>(StructureType.class);
+    // The same instances, indexed for nearest and radius queries. / Ті самі екземпляри, проіндексовані для запитів найближчого та в радіусі.
+    private final Map<StructureType, SpatialIndex<Location>> instanceIndex = new EnumMap<>(StructureType.class);
+
+    // Grid cell width for the instance index; structures are sparse. / Ширина клітинки індексу екземплярів; структури розріджені.
+    private static final int INDEX_CELL_SIZE = 256;
+
+    // Two finds of the same type closer than this are the same structure. / Дві знахідки одного типу, ближчі за це, є тією самою структурою.
+    private static final double SAME_INSTANCE_DISTANCE = 64.0;
 
     public boolean villageSearchFailed = false;
 
@@ -33,8 +47,17 @@ public class StructureManager {
     private Location netherPortalLocation;
 
     private Location predictedEndPortalLocation;
+    // Every captured eye-of-ender throw of the run. / Кожен захоплений кидок ока Енду за забіг.
+    private final RayIntersector strongholdRays = new RayIntersector();
+    // Probability mass around the predicted End Portal, or NaN if the prediction has none. / Ймовірнісна маса навколо передбаченого порталу в Край, або NaN, якщо її немає.
+    private double predictionConfidence = Double.NaN;
+    // Bumped on every new grid request and on reset, so stale grid results are dropped. / Збільшується з кожним запитом сітки та при скиданні, щоб застарілі результати відкидалися.
+    private int predictionGeneration = 0;
+
+    // Half the width of the stronghold probability grid, in chunks. / Половина ширини сітки ймовірностей фортеці, у чанках.
+    private static final int STRONGHOLD_GRID_RADIUS = 256;
 
-    private final Set<String> hiddenStructures = new HashSet<>();
+    private final Set<StructureType> hiddenStructures = EnumSet.noneOf(StructureType.class);
 
     public StructureManager(Speedrun plugin) {
         this.plugin = plugin;
@@ -50,54 +73,61 @@ public class StructureManager {
      */
     public void reset() {
         foundLocations.clear();
+        instanceIndex.clear();
         predictedEndPortalLocation = null;
+        strongholdRays.clear();
+        predictionConfidence = Double.NaN;
+        predictionGeneration++;
         overworldPortalLocation = null;
         netherPortalLocation = null;
 
         villageSearchFailed = false;
-
-        // Initialize the map with all structures that need to be tracked.
-        // Ініціалізуємо мапу всіма структурами, які потрібно відстежувати.
-        foundLocations.put("LAVA_POOL", null);
-        foundLocations.put("VILLAGE", null);
-        foundLocations.put("NETHER_PORTAL", null); // This key is a placeholder for display purposes. / Цей ключ є плейсхолдером для відображення.
-        foundLocations.put("FORTRESS", null);
-        foundLocations.put("BASTION", null);
-        foundLocations.put("END_PORTAL", null);
     }
 
     /**
      * Registers a found structure (except for Nether Portals, which have special handling).
-     * Fires a StructureFoundEvent and broadcasts a message.
+     * Fires a StructureFoundEvent and broadcasts a message. A further instance of an already found type
+     * (e.g. a second bastion) is recorded and fires the event, but does not complete tasks or broadcast again.
      * |
      * Реєструє знайдену структуру (окрім порталів у Незер, які мають спеціальну обробку).
-     * Викликає подію StructureFoundEvent та розсилає повідомлення.
+     * Викликає подію StructureFoundEvent та розсилає повідомлення. Ще один екземпляр уже знайденого типу
+     * (напр. другий бастіон) записується й викликає подію, але не виконує завдань і не розсилається повторно.
      *
      * @param player The player who found the structure. / Гравець, який знайшов структуру.
-     * @param key The unique key of the structure (e.g., "VILLAGE"). / Унікальний ключ структури (напр., "VILLAGE").
+     * @param type The type of the structure. / Тип структури.
      * @param loc The location of the structure. / Місцезнаходження структури.
      */
-    public void structureFound(Player player, String key, Location loc) {
+    public void structureFound(Player player, StructureType type, Location loc) {
         // Nether portals are handled by portalLit() and portalExitFound().
         // Портали в Незер обробляються методами portalLit() та portalExitFound().
-        if (key.equals("NETHER_PORTAL")) {
+        if (type == StructureType.NETHER_PORTAL) {
             return;
         }
 
-        if (key.equals("VILLAGE")) {
+        List<Location> instances = foundLocations.computeIfAbsent(type, t -> new ArrayList<>(1));
+        SpatialIndex<Location> index = instanceIndex.computeIfAbsent(type, t -> new SpatialIndex<>(INDEX_CELL_SIZE, l -> l));
+        if (!index.within(loc, SAME_INSTANCE_DISTANCE).isEmpty()) {
+            return; // Already known. / Вже відома.
+        }
+        boolean first = instances.isEmpty();
+
+        if (type == StructureType.VILLAGE) {
             // plugin.getGameManager().villageTimeElapsed = plugin.getConfigManager().getVillageTimeout();
             villageSearchFailed = false;
             plugin.getGameManager().villageTimeElapsed = 0;
         }
 
-        foundLocations.put(key, loc);
-        plugin.getGameManager().getLogger().info("Structure '" + key + "' found/updated by " + player.getName() + " at " + LocationUtil.format(loc));
+        instances.add(loc);
+        index.add(loc);
+        plugin.getGameManager().getLogger().info("Structure '" + type + "' found/updated by " + player.getName() + " at " + LocationUtil.format(loc));
 
-        Bukkit.getPluginManager().callEvent(new StructureFoundEvent(player, key, loc));
-        plugin.getTaskManager().onStructureFound(key, player);
+        Bukkit.getPluginManager().callEvent(new StructureFoundEvent(player, type, loc, first));
+        if (!first) return;
+
+        plugin.getTaskManager().onStructureFound(type, player);
         plugin.getConfigManager().executeRewardCommands("on-task-complete", player);
 
-        String displayName = getLocalizedStructureName(key);
+        String displayName = getLocalizedStructureName(type);
         Bukkit.broadcast(plugin.getConfigManager().getFormatted("messages.structure-found",
                 "%player%", player.getName(),
                 "%structure%", displayName,
@@ -156,13 +186,13 @@ public class StructureManager {
 
         // Update the placeholder for scoreboard display.
         // Оновлюємо плейсхолдер для відображення на скорборді.
-        foundLocations.put("NETHER_PORTAL", loc);
-        Bukkit.getPluginManager().callEvent(new StructureFoundEvent(player, "NETHER_PORTAL", loc));
+        setInstances(StructureType.NETHER_PORTAL, loc);
+        Bukkit.getPluginManager().callEvent(new StructureFoundEvent(player, StructureType.NETHER_PORTAL, loc, true));
 
         String playerName = (player != null) ? player.getName() : "GAME_WORLD";
         plugin.getGameManager().getLogger().info("Nether Portal lit by " + playerName + " in " + world.name() + " at " + LocationUtil.format(loc));
 
-        plugin.getTaskManager().onStructureFound("NETHER_PORTAL_OVERWORLD", player);
+        plugin.getTaskManager().onStructureFound(StructureType.NETHER_PORTAL, player);
         Bukkit.broadcast(plugin.getConfigManager().getFormatted("messages.portal-lit", "%player%", playerName));
         plugin.getConfigManager().executeRewardCommands("on-task-complete", player);
 
@@ -184,11 +214,11 @@ public class StructureManager {
         World.Environment exitWorld = exitLoc.getWorld().getEnvironment();
         if (exitWorld == World.Environment.NETHER && this.netherPortalLocation == null) {
             this.netherPortalLocation = exitLoc;
-            Bukkit.getPluginManager().callEvent(new StructureFoundEvent(null, "NETHER_PORTAL", exitLoc));
+            Bukkit.getPluginManager().callEvent(new StructureFoundEvent(null, StructureType.NETHER_PORTAL, exitLoc, true));
             plugin.getGameManager().getLogger().info("Nether Portal exit (Nether-side) found at " + LocationUtil.format(exitLoc));
         } else if (exitWorld == World.Environment.NORMAL && this.overworldPortalLocation == null) {
             this.overworldPortalLocation = exitLoc;
-            Bukkit.getPluginManager().callEvent(new StructureFoundEvent(null, "NETHER_PORTAL", exitLoc));
+            Bukkit.getPluginManager().callEvent(new StructureFoundEvent(null, StructureType.NETHER_PORTAL, exitLoc, true));
             plugin.getGameManager().getLogger().info("Nether Portal exit (Overworld-side) found at " + LocationUtil.format(exitLoc));
         }
         Bukkit.getOnlinePlayers().forEach(p -> plugin.getScoreboardManager().updateScoreboard(p));
@@ -215,49 +245,42 @@ public class StructureManager {
     }
 
     /**
-     * Updates a structure's location via an admin command.
+     * Updates a structure's location via an admin command. The given location replaces every known instance.
      * |
-     * Оновлює локацію структури через команду адміністратора.
+     * Оновлює локацію структури через команду адміністратора. Вказана локація замінює всі відомі екземпляри.
      *
-     * @param naturalName The user-friendly name of the structure (e.g., "Bastion Remnant"). / Зрозуміла назва структури (напр., "Bastion Remnant").
+     * @param type The structure type. / Тип структури.
      * @param newLocation The new location to set. / Нова локація для встановлення.
      * @param player The player who issued the command. / Гравець, що видав команду.
      * @return True on success. / True у разі успіху.
      */
-    public boolean updateStructureLocation(String naturalName, Location newLocation, Player player) {
-        String key = naturalName.replace(' ', '_').toUpperCase();
-
-        if (!foundLocations.containsKey(key)) {
-            player.sendMessage(plugin.getConfigManager().getFormatted("messages.unknown-structure-name", "%name%", naturalName));
-            return false;
-        }
-
-        if (foundLocations.get(key) != null && !plugin.getConfigManager().isReassigningLocationsEnabled()) {
+    public boolean updateStructureLocation(StructureType type, Location newLocation, Player player) {
+        if (isFound(type) && !plugin.getConfigManager().isReassigningLocationsEnabled()) {
             player.sendMessage("§cReassigning locations is disabled in the config.");
             return false;
         }
 
-        if (key.equals("NETHER_PORTAL")) {
+        if (type == StructureType.NETHER_PORTAL) {
             player.sendMessage("§cUse '/run new nether portal' to reassign the portal.");
             return false;
         }
         // Use the standard structureFound method to ensure all logic (events, messages) is triggered.
         // Використовуємо стандартний метод structureFound, щоб гарантувати спрацювання всієї логіки (події, повідомлення).
-        structureFound(player, key, newLocation);
+        foundLocations.remove(type);
+        instanceIndex.remove(type);
+        structureFound(player, type, newLocation);
         return true;
     }
 
-    public void restoreStructure(String key) {
-        if (!foundLocations.containsKey(key)) return;
-
-        hiddenStructures.remove(key); // un-hide line
+    public void restoreStructure(StructureType type) {
+        hiddenStructures.remove(type); // un-hide line
         Bukkit.getOnlinePlayers().forEach(p -> plugin.getScoreboardManager().updateScoreboard(p));
     }
 
-    public boolean removeStructure(String key) {
-        if (!foundLocations.containsKey(key)) return false;
+    public boolean removeStructure(StructureType type) {
+        if (!type.isAlwaysListed() && !isFound(type)) return false;
 
-        hiddenStructures.add(key); // hide line
+        hiddenStructures.add(type); // hide line
         Bukkit.getOnlinePlayers().forEach(p -> plugin.getScoreboardManager().updateScoreboard(p));
         return true;
     }
@@ -267,8 +290,8 @@ public class StructureManager {
     // Getters & State Checks
     // =========================================================================================
 
-    public boolean isStructureHidden(String key) {
-        return hiddenStructures.contains(key);
+    public boolean isStructureHidden(StructureType type) {
+        return hiddenStructures.contains(type);
     }
 
     /** @return The location of the Overworld-side portal, or null if not found. / Локація порталу у Звичайному світі, або null, якщо не знайдено. */
@@ -297,20 +320,55 @@ public class StructureManager {
         return overworldPortalLocation != null && netherPortalLocation != null;
     }
 
-    /** @return A map of all tracked structures and their locations. / Мапа всіх відстежуваних структур та їхніх локацій. */
-    public Map<String, Location> getFoundStructures() {
-        return foundLocations;
+    /** @return True if at least one instance of the structure has been found. / True, якщо знайдено хоча б один екземпляр структури. */
+    public boolean isFound(StructureType type) {
+        List<Location> instances = foundLocations.get(type);
+        return instances != null && !instances.isEmpty();
+    }
+
+    /** @return The first found instance of a structure, or null. / Перший знайдений екземпляр структури, або null. */
+    @Nullable
+    public Location getLocation(StructureType type) {
+        List<Location> instances = foundLocations.get(type);
+        return (instances == null || instances.isEmpty()) ? null : instances.get(0);
+    }
+
+    /** @return Every found instance of a structure, in discovery order. / Усі знайдені екземпляри структури в порядку знаходження. */
+    public List<Location> getInstances(StructureType type) {
+        List<Location> instances = foundLocations.get(type);
+        return (instances == null) ? Collections.emptyList() : Collections.unmodifiableList(instances);
+    }
+
+    /**
+     * Finds the instance of a structure nearest to a location. Instances in the same world win; otherwise the
+     * location is scaled into the other dimensions (8:1 between the Overworld and the Nether).
+     * Знаходить екземпляр структури, найближчий до локації. Перевагу мають екземпляри в тому ж світі; інакше
+     * локація масштабується в інші виміри (8:1 між Верхнім світом та Незером).
+     *
+     * @return The nearest instance, or null if none is found. / Найближчий екземпляр, або null, якщо жодного не знайдено.
+     */
+    @Nullable
+    public Location getNearestInstance(StructureType type, Location from) {
+        SpatialIndex<Location> index = instanceIndex.get(type);
+        return (index == null) ? null : index.nearestInAnyWorld(from);
+    }
+
+    private void setInstances(StructureType type, Location loc) {
+        foundLocations.put(type, new ArrayList<>(List.of(loc)));
+        SpatialIndex<Location> index = new SpatialIndex<>(INDEX_CELL_SIZE, l -> l);
+        index.add(loc);
+        instanceIndex.put(type, index);
     }
 
-    /** Gets the localized, user-friendly name for a structure key. / Отримує локалізовану, зрозумілу назву для ключа структури. */
-    public String getLocalizedStructureName(String key) {
-        return plugin.getConfigManager().getLangString("structures." + key, key);
+    /** Gets the localized, user-friendly name for a structure type. / Отримує локалізовану, зрозумілу назву для типу структури. */
+    public String getLocalizedStructureName(StructureType type) {
+        return plugin.getConfigManager().getLangString("structures." + type.name(), type.name());
     }
 
     /** Checks if the village search timer has expired. / Перевіряє, чи не сплив час таймера пошуку села. */
     public void checkVillageTimeout() {
         // Only check timeout if village hasn't been found yet
-        if (foundLocations.get("VILLAGE") != null) return;
+        if (isFound(StructureType.VILLAGE)) return;
         // already handled or still time left?  skip
         if (villageSearchFailed
                 || plugin.getGameManager().getVillageTimeRemaining() > 0) {
@@ -318,14 +376,13 @@ public class StructureManager {
         }
 
         villageSearchFailed = true;
-        foundLocations.put("VILLAGE", null);
         Bukkit.broadcast(plugin.getConfigManager().getFormatted("messages.village-timeout"));
         Bukkit.getOnlinePlayers().forEach(p -> plugin.getScoreboardManager().updateScoreboard(p));
     }
 
     /** @return True if the plugin is currently actively searching for a village. / True, якщо плагін наразі активно шукає село. */
     public boolean isVillageSearchActive() {
-        return foundLocations.get("VILLAGE") == null
+        return !isFound(StructureType.VILLAGE)
                 && plugin.getGameManager().getVillageTimeElapsed() < plugin.getConfigManager().getVillageTimeout()
                 && !villageSearchFailed;
         // return plugin.getGameManager().getVillageTimeElapsed() < plugin.getConfigManager().getVillageTimeout() && !villageSearchFailed;
@@ -340,7 +397,23 @@ public class StructureManager {
     public boolean isLavaPoolSearchActive() {
         // Search for lava only if a portal hasn't been found yet.
         // Шукаємо лаву, тільки якщо портал ще не знайдено.
-        return foundLocations.containsKey("LAVA_POOL") && foundLocations.get("LAVA_POOL") == null && !isPortalPartiallyFound();
+        return !isFound(StructureType.LAVA_POOL) && !isPortalPartiallyFound();
+    }
+
+    /**
+     * Checks whether a structure still needs to be found by the proximity scanner.
+     * Villages and lava pools keep their own rules; any other structure is searched until it is found once.
+     * |
+     * Перевіряє, чи сканер близькості ще має шукати структуру.
+     * Села та озера лави мають власні правила; будь-яка інша структура шукається, доки її не знайдено.
+     */
+    public boolean isStructureSearchActive(StructureType type) {
+        return switch (type) {
+            case VILLAGE -> isVillageSearchActive();
+            case LAVA_POOL -> isLavaPoolSearchActive();
+            case NETHER_PORTAL -> false; // Detected through portal events only. / Виявляється лише через події порталу.
+            default -> !isFound(type);
+        };
     }
 
     /** @return The predicted location of the End Portal from triangulation, or null. / Передбачена локація порталу в Край з тріангуляції, або null. */
@@ -348,8 +421,74 @@ public class StructureManager {
         return predictedEndPortalLocation;
     }
 
+    /**
+     * Records an eye of ender throw. See {@link #addStrongholdRay}.
+     * Записує кидок ока Енду. Див. {@link #addStrongholdRay}.
+     *
+     * @param from Where the eye was thrown from. / Звідки кинуто око.
+     * @param target Where the eye flies to. / Куди летить око.
+     */
+    public void eyeThrown(Location from, Location target) {
+        addStrongholdRay(from, target.getX() - from.getX(), target.getZ() - from.getZ());
+    }
+
+    /**
+     * Adds a line towards the stronghold and refreshes the prediction. The least-squares intersection of all lines is
+     * shown at once; the probability grid, which also weighs in the vanilla stronghold rings, is computed off the main
+     * thread and replaces it with the most likely chunk and its confidence. Ignored once the End Portal has been found.
+     * |
+     * Додає лінію в напрямку фортеці та оновлює передбачення. Перетин усіх ліній методом найменших квадратів
+     * показується одразу; сітка ймовірностей, що також враховує ванільні кільця фортець, обчислюється поза основним
+     * потоком і замінює його найімовірнішим чанком та його впевненістю. Ігнорується після знаходження порталу в Край.
+     */
+    public void addStrongholdRay(Location from, double dirX, double dirZ) {
+        if (isFound(StructureType.END_PORTAL) || from.getWorld().getEnvironment() != World.Environment.NORMAL) return;
+        if (!strongholdRays.add(from.getX(), from.getZ(), dirX, dirZ)) return;
+
+        World world = from.getWorld();
+        double[] estimate = strongholdRays.solve();
+        if (estimate != null) {
+            predictedEndPortalLocation = new Location(world, estimate[0], 64, estimate[1]);
+            predictionConfidence = Double.NaN;
+            plugin.getGameManager().getLogger().info("Stronghold line #" + strongholdRays.size() + ": estimated at "
+                    + LocationUtil.format(predictedEndPortalLocation) + String.format(" (±%.1f)", strongholdRays.getError()));
+            Bukkit.getOnlinePlayers().forEach(p -> plugin.getScoreboardManager().updateScoreboard(p));
+        }
+
+        // Centre the grid on the estimate, or further along a single line. / Центруємо сітку на оцінці або далі вздовж єдиної лінії.
+        RayIntersector.Ray last = strongholdRays.getRays().get(strongholdRays.size() - 1);
+        double reach = STRONGHOLD_GRID_RADIUS * 16.0;
+        double centerX = (estimate != null) ? estimate[0] : last.x() + last.dirX() * reach;
+        double centerZ = (estimate != null) ? estimate[1] : last.z() + last.dirZ() * reach;
+        List<RayIntersector.Ray> rays = List.copyOf(strongholdRays.getRays());
+        int generation = ++predictionGeneration;
+
+        CompletableFuture.supplyAsync(() -> StrongholdGrid.compute(rays, centerX, centerZ, STRONGHOLD_GRID_RADIUS))
+                .thenAccept(result -> Bukkit.getScheduler().runTask(plugin, () -> {
+                    if (result == null || generation != predictionGeneration || isFound(StructureType.END_PORTAL)) return;
+                    predictedEndPortalLocation = new Location(world, result.blockX(), 64, result.blockZ());
+                    predictionConfidence = result.confidence();
+                    Bukkit.getOnlinePlayers().forEach(p -> plugin.getScoreboardManager().updateScoreboard(p));
+                }));
+    }
+
+    /** @return The eye of ender throws captured this run. / Кидки ока Енду, захоплені за цей забіг. */
+    public RayIntersector getStrongholdRays() {
+        return strongholdRays;
+    }
+
+    /**
+     * @return How likely the End Portal is within a chunk of the prediction (0..1), or NaN if unknown.
+     *         / Наскільки ймовірно, що портал в Край в межах чанка від передбачення (0..1), або NaN, якщо невідомо.
+     */
+    public double getPredictionConfidence() {
+        return predictionConfidence;
+    }
+
     /** Sets the predicted location of the End Portal. / Встановлює передбачену локацію порталу в Край. */
     public void setPredictedEndPortalLocation(Location location) {
         this.predictedEndPortalLocation = location;
+        this.predictionConfidence = Double.NaN;
+        this.predictionGeneration++;
     }
 }
\ No newline at end of file
@@ -8,6 +8,7 @@ import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
 import org.speedrun.speedrun.Speedrun;
+import org.speedrun.speedrun.StructureType;
 import org.speedrun.speedrun.Task;
 
 import java.util.*;
@@ -22,6 +23,10 @@ import java.util.stream.Collectors;
  * Завантажує завдання з конфігурації, відстежує їхній прогрес та обробляє завершення етапів.
  */
 public class TaskManager {
+    // The task key portal lighting was reported under before structures were typed.
+    // Ключ завдання, під яким повідомлялося запалення порталу до типізації структур.
+    private static final String LEGACY_PORTAL_TASK_KEY = "STRUCTURE_NETHER_PORTAL_OVERWORLD";
+
     private final Speedrun plugin;
     private final List<Task> allTasks = new ArrayList<>();
     // Tasks grouped by their progression stage key.
@@ -260,9 +265,9 @@ public class TaskManager {
      * Викликається StructureManager, коли знайдено структуру.
      * Завершує будь-які відповідні завдання, пов'язані зі структурами.
      */
-    public void onStructureFound(String structureKey, Player player) {
+    public void onStructureFound(StructureType type, Player player) {
         allTasks.stream()
-                .filter(t -> t.getTaskType() == Task.Type.STRUCTURE && t.getKey().equalsIgnoreCase("STRUCTURE_" + structureKey))
+                .filter(t -> t.getTaskType() == Task.Type.STRUCTURE && isTaskFor(t, type))
                 .findFirst()
                 .ifPresent(task -> {
                     if (!task.isCompleted()) {
@@ -281,6 +286,17 @@ public class TaskManager {
         checkForStageCompletion();
     }
 
+    /**
+     * Checks whether a structure task is completed by a structure type. Lighting a portal used to be reported as
+     * "NETHER_PORTAL_OVERWORLD", so that task key is still accepted.
+     * Перевіряє, чи завдання структури виконується типом структури. Запалення порталу раніше повідомлялося як
+     * "NETHER_PORTAL_OVERWORLD", тож цей ключ завдання досі приймається.
+     */
+    private static boolean isTaskFor(Task task, StructureType type) {
+        return task.getKey().equalsIgnoreCase("STRUCTURE_" + type.name())
+                || (type == StructureType.NETHER_PORTAL && task.getKey().equalsIgnoreCase(LEGACY_PORTAL_TASK_KEY));
+    }
+
     // =========================================================================================
     // Getters
     // =========================================================================================
@@ -0,0 +1,214 @@
+package org.speedrun.speedrun.utils;
+
+/**
+ * A reusable, allocation-free cursor over block coordinates, shared by all scanners.
+ * It walks either a cube (column by column, so chunk snapshots can be looked up once per column)
+ * or Chebyshev shells around a centre in nearest-first order, using primitive ints only.
+ * Callers stop early simply by no longer calling {@link #next()}.
+ * |
+ * Багаторазовий курсор по координатах блоків без виділення пам'яті, спільний для всіх сканерів.
+ * Він обходить або куб (колона за колоною, щоб знімки чанків шукалися раз на колону),
+ * або оболонки Чебишева навколо центру від найближчих, використовуючи лише примітивні int.
+ * Викликачі зупиняються достроково, просто перестаючи викликати {@link #next()}.
+ *
+ * <pre>
+ * BlockCursor cursor = new BlockCursor().nearestFirst(x, y, z, radius).clampY(minY, maxY);
+ * while (cursor.next()) {
+ *     if (world.getType(cursor.x(), cursor.y(), cursor.z()) == Material.NETHER_PORTAL) break;
+ * }
+ * </pre>
+ */
+public final class BlockCursor {
+    private static final int CUBE = 0;
+    private static final int SHELLS = 1;
+
+    private int mode;
+    private boolean started;
+    private boolean done;
+
+    // Cube bounds. / Межі куба.
+    private int minX, minY, minZ, maxX, maxY, maxZ;
+    // Shell centre and distance range. / Центр оболонок та діапазон відстаней.
+    private int centerX, centerY, centerZ, firstDistance, lastDistance;
+    private int distance, dx, dy, dz;
+    // Optional vertical limits, e.g. the world height. / Необов'язкові вертикальні межі, напр. висота світу.
+    private int floorY = Integer.MIN_VALUE, ceilY = Integer.MAX_VALUE;
+
+    private int x, y, z;
+    private boolean newColumn;
+
+    /**
+     * Restarts the cursor on a cube, visited column by column (X, then Z, then Y innermost).
+     * Перезапускає курсор на кубі, який обходиться колона за колоною (X, потім Z, Y найглибше).
+     */
+    public BlockCursor cube(int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        this.mode = CUBE;
+        this.minX = minX;
+        this.minY = minY;
+        this.minZ = minZ;
+        this.maxX = maxX;
+        this.maxY = maxY;
+        this.maxZ = maxZ;
+        return restart();
+    }
+
+    /**
+     * Restarts the cursor on a cube of the given radius around a centre.
+     * Перезапускає курсор на кубі заданого радіуса навколо центру.
+     */
+    public BlockCursor cube(int centerX, int centerY, int centerZ, int radius) {
+        return cube(centerX - radius, centerY - radius, centerZ - radius, centerX + radius, centerY + radius, centerZ + radius);
+    }
+
+    /**
+     * Restarts the cursor on every shell from the centre out to the radius, so closer blocks always come first.
+     * Перезапускає курсор на всіх оболонках від центру до радіуса, тож ближчі блоки завжди йдуть першими.
+     */
+    public BlockCursor nearestFirst(int centerX, int centerY, int centerZ, int radius) {
+        return shells(centerX, centerY, centerZ, 0, radius);
+    }
+
+    /**
+     * Restarts the cursor on a single hollow shell at exactly the given Chebyshev distance.
+     * Перезапускає курсор на одній порожнистій оболонці рівно на заданій відстані Чебишева.
+     */
+    public BlockCursor shell(int centerX, int centerY, int centerZ, int distance) {
+        return shells(centerX, centerY, centerZ, distance, distance);
+    }
+
+    private BlockCursor shells(int centerX, int centerY, int centerZ, int firstDistance, int lastDistance) {
+        this.mode = SHELLS;
+        this.centerX = centerX;
+        this.centerY = centerY;
+        this.centerZ = centerZ;
+        this.firstDistance = Math.max(0, firstDistance);
+        this.lastDistance = lastDistance;
+        return restart();
+    }
+
+    /**
+     * Skips every position outside the given Y range (inclusive). Call it after choosing the shape.
+     * Пропускає всі позиції поза заданим діапазоном Y (включно). Викликати після вибору форми.
+     */
+    public BlockCursor clampY(int floorY, int ceilY) {
+        this.floorY = floorY;
+        this.ceilY = ceilY;
+        return this;
+    }
+
+    private BlockCursor restart() {
+        this.started = false;
+        this.done = false;
+        this.floorY = Integer.MIN_VALUE;
+        this.ceilY = Integer.MAX_VALUE;
+        return this;
+    }
+
+    /**
+     * Moves to the next position.
+     * Переходить до наступної позиції.
+     *
+     * @return False once every position has been visited. / False, коли всі позиції вже відвідано.
+     */
+    public boolean next() {
+        if (done) return false;
+        boolean more = (mode == CUBE) ? nextInCube() : nextInShells();
+        if (!more) done = true;
+        return more;
+    }
+
+    private boolean nextInCube() {
+        int lo = Math.max(minY, floorY), hi = Math.min(maxY, ceilY);
+        if (!started) {
+            started = true;
+            x = minX;
+            z = minZ;
+            y = lo;
+            newColumn = true;
+            return minX <= maxX && minZ <= maxZ && lo <= hi;
+        }
+        newColumn = false;
+        if (++y <= hi) return true;
+
+        y = lo;
+        newColumn = true;
+        if (++z <= maxZ) return true;
+
+        z = minZ;
+        return ++x <= maxX;
+    }
+
+    private boolean nextInShells() {
+        while (true) {
+            if (!started) {
+                started = true;
+                distance = firstDistance;
+                if (distance > lastDistance) return false;
+                dx = dy = dz = -distance;
+            } else if (!advanceInShell()) {
+                return false;
+            }
+
+            y = centerY + dy;
+            if (y < floorY || y > ceilY) {
+                // The whole Z run of this row is out of range. / Увесь ряд по Z поза діапазоном.
+                dz = distance;
+                continue;
+            }
+            x = centerX + dx;
+            z = centerZ + dz;
+            return true;
+        }
+    }
+
+    private boolean advanceInShell() {
+        int d = distance;
+        // Inside the shell's X/Y interior only the two Z faces belong to the shell.
+        // Усередині шару по X/Y до оболонки належать лише дві грані по Z.
+        boolean interior = Math.abs(dx) < d && Math.abs(dy) < d;
+        if (interior ? dz == -d : dz < d) {
+            dz = interior ? d : dz + 1;
+            return true;
+        }
+
+        dz = -d;
+        if (++dy <= d) return true;
+
+        dy = -d;
+        if (++dx <= d) return true;
+
+        if (++distance > lastDistance) return false;
+        dx = dy = dz = -distance;
+        return true;
+    }
+
+    /** @return The current block X. / Поточний X блоку. */
+    public int x() { return x; }
+
+    /** @return The current block Y. / Поточний Y блоку. */
+    public int y() { return y; }
+
+    /** @return The current block Z. / Поточний Z блоку. */
+    public int z() { return z; }
+
+    /** @return The current X inside its chunk (0-15). / Поточний X усередині чанка (0-15). */
+    public int localX() { return x & 15; }
+
+    /** @return The current Z inside its chunk (0-15). / Поточний Z усередині чанка (0-15). */
+    public int localZ() { return z & 15; }
+
+    /** @return The X of the current chunk. / X поточного чанка. */
+    public int chunkX() { return x >> 4; }
+
+    /** @return The Z of the current chunk. / Z поточного чанка. */
+    public int chunkZ() { return z >> 4; }
+
+    /**
+     * @return True if the last step entered a new X/Z column (cube mode), or always in shell mode.
+     *         / True, якщо останній крок перейшов у нову колону X/Z (режим куба), або завжди в режимі оболонок.
+     */
+    public boolean isNewColumn() { return mode != CUBE || newColumn; }
+
+    /** @return The Chebyshev distance of the current shell (shell mode). / Відстань Чебишева поточної оболонки (режим оболонок). */
+    public int distance() { return distance; }
+}
@@ -0,0 +1,117 @@
+package org.speedrun.speedrun.utils;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.configuration.ConfigurationSection;
+import org.jetbrains.annotations.Nullable;
+import org.speedrun.speedrun.StructureType;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.logging.Logger;
+
+/**
+ * A config-defined pattern of blocks that marks a structure, e.g. "at least one bell within 32 blocks".
+ * Signatures are evaluated together by {@link SignatureScanner}, so adding one costs no extra block iterations.
+ * |
+ * Визначений у конфігу шаблон блоків, що позначає структуру, напр. "хоча б один дзвін у радіусі 32 блоків".
+ * Сигнатури перевіряються разом через {@link SignatureScanner}, тож додавання нової не коштує додаткових ітерацій по блоках.
+ */
+public final class BlockSignature {
+    private final String id;
+    private final StructureType structureType;
+    private final Set<Material> materials;
+    private final int minCount;
+    private final int radius;
+    private final int verticalSpan;
+    @Nullable
+    private final BlockData blockData; // Optional state predicate, e.g. "minecraft:lava[level=0]". / Необов'язковий предикат стану.
+
+    public BlockSignature(String id, StructureType structureType, Set<Material> materials, int minCount, int radius,
+                          int verticalSpan, @Nullable BlockData blockData) {
+        this.id = id;
+        this.structureType = structureType;
+        this.materials = Collections.unmodifiableSet(materials);
+        this.minCount = Math.max(1, minCount);
+        this.radius = Math.max(0, radius);
+        this.verticalSpan = Math.max(0, verticalSpan);
+        this.blockData = blockData;
+    }
+
+    /**
+     * Parses a signature from its configuration section.
+     * Invalid materials or block data are reported and skipped; a signature without any valid material is rejected.
+     * |
+     * Розбирає сигнатуру з її секції конфігурації.
+     * Некоректні матеріали чи дані блоку повідомляються та пропускаються; сигнатура без жодного коректного матеріалу відхиляється.
+     *
+     * @param id The signature's key in config.yml. / Ключ сигнатури в config.yml.
+     * @param cs The section containing the signature. / Секція, що містить сигнатуру.
+     * @param logger Logger for configuration warnings. / Логер для попереджень конфігурації.
+     * @return The parsed signature, or null if it is disabled or invalid. / Розібрана сигнатура, або null, якщо вона вимкнена чи некоректна.
+     */
+    @Nullable
+    public static BlockSignature fromConfig(String id, ConfigurationSection cs, Logger logger) {
+        if (!cs.getBoolean("enabled", true)) return null;
+
+        String structureName = cs.getString("structure", id);
+        StructureType structureType = StructureType.fromKey(structureName);
+        if (structureType == null) {
+            logger.warning("Unknown structure '" + structureName + "' in signature '" + id + "'. The signature will be ignored.");
+            return null;
+        }
+
+        Set<Material> materials = EnumSet.noneOf(Material.class);
+        for (String name : cs.getStringList("materials")) {
+            Material material = Material.matchMaterial(name);
+            if (material == null || !material.isBlock()) {
+                logger.warning("Unknown block material '" + name + "' in signature '" + id + "'. Skipping it.");
+                continue;
+            }
+            materials.add(material);
+        }
+        if (materials.isEmpty()) {
+            logger.warning("Signature '" + id + "' has no valid materials and will be ignored.");
+            return null;
+        }
+
+        BlockData blockData = null;
+        String rawData = cs.getString("block-data");
+        if (rawData != null && !rawData.isBlank()) {
+            try {
+                blockData = Bukkit.createBlockData(rawData);
+            } catch (IllegalArgumentException e) {
+                logger.warning("Invalid block-data '" + rawData + "' in signature '" + id + "'. Ignoring the predicate.");
+            }
+        }
+
+        int radius = cs.getInt("radius", 32);
+        return new BlockSignature(id,
+                structureType,
+                materials,
+                cs.getInt("min-count", 1),
+                radius,
+                cs.getInt("vertical-span", radius),
+                blockData);
+    }
+
+    /**
+     * Checks the optional block-state predicate. Only called for blocks whose material already matched.
+     * Перевіряє необов'язковий предикат стану блоку. Викликається лише для блоків, матеріал яких уже збігся.
+     */
+    public boolean matchesData(BlockData data) {
+        return blockData == null || blockData.matches(data);
+    }
+
+    /** @return True if this signature needs the block data, not just the material. / True, якщо сигнатурі потрібні дані блоку, а не лише матеріал. */
+    public boolean hasDataPredicate() { return blockData != null; }
+
+    public String getId() { return id; }
+    public StructureType getStructureType() { return structureType; }
+    public Set<Material> getMaterials() { return materials; }
+    public int getMinCount() { return minCount; }
+    public int getRadius() { return radius; }
+    public int getVerticalSpan() { return verticalSpan; }
+}
@@ -0,0 +1,178 @@
+package org.speedrun.speedrun.utils;
+
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Material;
+import org.bukkit.block.data.Levelled;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.BitSet;
+
+/**
+ * Detects lava pools as connected groups of lava source blocks.
+ * Seeds are taken only from the surface of each column (via the snapshot height map), or from a band of heights
+ * in worlds under a ceiling, and every seed is flood-filled with a bounded breadth-first search, so scattered
+ * single sources never count as a pool.
+ * Works purely on chunk snapshots and is safe to run off the main thread.
+ * |
+ * Виявляє лавові озера як зв'язні групи блоків-джерел лави.
+ * Зерна беруться лише з поверхні кожної колони (через карту висот знімка) або зі смуги висот
+ * у світах під стелею, і кожне зерно заповнюється обмеженим пошуком у ширину, тож розкидані поодинокі джерела ніколи не вважаються озером.
+ * Працює лише зі знімками чанків і безпечно виконується поза основним потоком.
+ */
+public final class LavaPoolDetector {
+
+    /**
+     * A detected pool: its number of source blocks and its centroid.
+     * Виявлене озеро: кількість блоків-джерел та його центроїд.
+     */
+    public record Pool(int size, double x, double y, double z) {}
+
+    // How far a pool may extend past the seeded area. Callers must capture snapshots this much wider.
+    // Наскільки озеро може виходити за межі області зерен. Викликачі мають захоплювати знімки настільки ширше.
+    public static final int MAX_POOL_REACH = 8;
+
+    // A pool never spans more than a few blocks vertically.
+    // Озеро ніколи не займає більше кількох блоків по вертикалі.
+    private static final int VERTICAL_REACH = 4;
+
+    // Upper bound on blocks visited per pool, keeps the search bounded on huge lava lakes.
+    // Верхня межа відвіданих блоків на одне озеро, обмежує пошук на величезних лавових озерах.
+    private static final int MAX_POOL_SIZE = 1024;
+
+    private LavaPoolDetector() {}
+
+    /**
+     * Searches a block area for the first connected lava pool with at least the required number of sources.
+     * |
+     * Шукає в області блоків перше зв'язне лавове озеро з щонайменше необхідною кількістю джерел.
+     *
+     * @param grid Snapshots covering the area widened by {@link #MAX_POOL_REACH}. / Знімки, що покривають область, розширену на {@link #MAX_POOL_REACH}.
+     * @param minX Minimum X of the seeded area. / Мінімальний X області зерен.
+     * @param minZ Minimum Z of the seeded area. / Мінімальний Z області зерен.
+     * @param maxX Maximum X of the seeded area. / Максимальний X області зерен.
+     * @param maxZ Maximum Z of the seeded area. / Максимальний Z області зерен.
+     * @param requiredSources The minimum pool size. / Мінімальний розмір озера.
+     * @return The found pool, or null if there is none. / Знайдене озеро, або null, якщо його немає.
+     */
+    @Nullable
+    public static Pool detect(SnapshotGrid grid, int minX, int minZ, int maxX, int maxZ, int requiredSources) {
+        return detect(grid, minX, minZ, maxX, maxZ, true, 0, 0, requiredSources);
+    }
+
+    /**
+     * Same as {@link #detect(SnapshotGrid, int, int, int, int, int)}, but seeds every column within a few blocks of
+     * the given heights instead of its surface. Used under a ceiling (the Nether), where the height map points at the roof.
+     * |
+     * Те саме, що {@link #detect(SnapshotGrid, int, int, int, int, int)}, але зерна беруться з кожної колони в межах
+     * кількох блоків від заданих висот замість її поверхні. Використовується під стелею (Незер), де карта висот вказує на дах.
+     *
+     * @param minY Minimum Y of the seeded area. / Мінімальний Y області зерен.
+     * @param maxY Maximum Y of the seeded area. / Максимальний Y області зерен.
+     */
+    @Nullable
+    public static Pool detectAround(SnapshotGrid grid, int minX, int minY, int minZ, int maxX, int maxY, int maxZ, int requiredSources) {
+        return detect(grid, minX, minZ, maxX, maxZ, false, minY - VERTICAL_REACH, maxY + VERTICAL_REACH, requiredSources);
+    }
+
+    @Nullable
+    private static Pool detect(SnapshotGrid grid, int minX, int minZ, int maxX, int maxZ,
+                               boolean fromSurface, int seedMinY, int seedMaxY, int requiredSources) {
+        final int boxMinX = minX - MAX_POOL_REACH;
+        final int boxMinZ = minZ - MAX_POOL_REACH;
+        final int width = (maxX - minX + 1) + 2 * MAX_POOL_REACH;
+        final int depth = (maxZ - minZ + 1) + 2 * MAX_POOL_REACH;
+        final int height = 2 * VERTICAL_REACH + 1;
+
+        // Columns already covered by a flood fill never seed again.
+        // Колони, вже охоплені заповненням, більше не стають зернами.
+        BitSet filledColumns = new BitSet(width * depth);
+        BitSet visited = new BitSet(width * depth * height);
+        int[] queue = new int[MAX_POOL_SIZE];
+
+        for (int x = minX; x <= maxX; x++) {
+            for (int z = minZ; z <= maxZ; z++) {
+                if (filledColumns.get((z - boxMinZ) * width + (x - boxMinX))) continue;
+
+                ChunkSnapshot snapshot = grid.get(x, z);
+                if (snapshot == null) continue;
+
+                // The height map may point at the lava itself or at the block just above it.
+                // Карта висот може вказувати на саму лаву або на блок над нею.
+                int top = fromSurface ? snapshot.getHighestBlockYAt(x & 15, z & 15) : seedMaxY;
+                int bottom = fromSurface ? top - 1 : seedMinY;
+                for (int y = top; y >= bottom; y--) {
+                    if (!isLavaSource(grid, x, y, z)) continue;
+
+                    visited.clear();
+                    Pool pool = floodFill(grid, x, y, z, boxMinX, boxMinZ, width, depth, height, visited, filledColumns, queue);
+                    if (pool.size() >= requiredSources) return pool;
+                    break;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Breadth-first flood fill over connected lava sources using a primitive index queue.
+     * Заповнення в ширину по зв'язних джерелах лави з використанням примітивної черги індексів.
+     */
+    private static Pool floodFill(SnapshotGrid grid, int seedX, int seedY, int seedZ,
+                                  int boxMinX, int boxMinZ, int width, int depth, int height,
+                                  BitSet visited, BitSet filledColumns, int[] queue) {
+        final int boxMinY = seedY - VERTICAL_REACH;
+        int head = 0, tail = 0;
+        long sumX = 0, sumY = 0, sumZ = 0;
+
+        int seedIndex = index(seedX - boxMinX, seedY - boxMinY, seedZ - boxMinZ, width, depth);
+        visited.set(seedIndex);
+        queue[tail++] = seedIndex;
+
+        while (head < tail) {
+            int idx = queue[head++];
+            int lx = idx % width;
+            int rest = idx / width;
+            int lz = rest % depth;
+            int ly = rest / depth;
+
+            int x = lx + boxMinX, y = ly + boxMinY, z = lz + boxMinZ;
+            sumX += x;
+            sumY += y;
+            sumZ += z;
+            filledColumns.set(lz * width + lx);
+
+            // Visit the six face neighbours. / Відвідуємо шість сусідів по гранях.
+            for (int dir = 0; dir < 6 && tail < queue.length; dir++) {
+                int nx = lx + (dir == 0 ? 1 : dir == 1 ? -1 : 0);
+                int ny = ly + (dir == 2 ? 1 : dir == 3 ? -1 : 0);
+                int nz = lz + (dir == 4 ? 1 : dir == 5 ? -1 : 0);
+                if (nx < 0 || ny < 0 || nz < 0 || nx >= width || ny >= height || nz >= depth) continue;
+
+                int nIndex = index(nx, ny, nz, width, depth);
+                if (visited.get(nIndex)) continue;
+                visited.set(nIndex);
+                if (isLavaSource(grid, nx + boxMinX, ny + boxMinY, nz + boxMinZ)) {
+                    queue[tail++] = nIndex;
+                }
+            }
+        }
+
+        int size = head;
+        return new Pool(size, sumX / (double) size + 0.5, sumY / (double) size, sumZ / (double) size + 0.5);
+    }
+
+    private static int index(int lx, int ly, int lz, int width, int depth) {
+        return (ly * depth + lz) * width + lx;
+    }
+
+    private static boolean isLavaSource(SnapshotGrid grid, int x, int y, int z) {
+        if (!grid.isInHeight(y)) return false;
+        ChunkSnapshot snapshot = grid.get(x, z);
+        if (snapshot == null) return false;
+        int lx = x & 15, lz = z & 15;
+        // Check for lava source blocks (level 0).
+        // Перевірка на блоки-джерела лави (рівень 0).
+        return snapshot.getBlockType(lx, y, lz) == Material.LAVA
+                && snapshot.getBlockData(lx, y, lz) instanceof Levelled level && level.getLevel() == 0;
+    }
+}
@@ -1,6 +1,7 @@
 package org.speedrun.speedrun.utils;
 
 import org.bukkit.Location;
+import org.bukkit.World;
 
 import org.bukkit.util.Vector;
 import org.jetbrains.annotations.Nullable;
@@ -28,6 +29,36 @@ public final class LocationUtil {
         return String.format("%d, %d, %d", loc.getBlockX(), loc.getBlockY(), loc.getBlockZ());
     }
 
+    /**
+     * Packs chunk coordinates into a single long, used as a key for per-chunk maps.
+     * Пакує координати чанка в один long, що використовується як ключ для мап по чанках.
+     */
+    public static long chunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkZ << 32) | (chunkX & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Packs block coordinates into a single long (26 bits for X and Z, 12 bits for Y), used as a key for per-block maps.
+     * Пакує координати блоку в один long (26 біт для X і Z, 12 біт для Y), що використовується як ключ для мап по блоках.
+     */
+    public static long blockKey(int x, int y, int z) {
+        return ((long) (x & 0x3FFFFFF) << 38) | ((long) (z & 0x3FFFFFF) << 12) | (y & 0xFFFL);
+    }
+
+    /**
+     * Returns the factor that converts horizontal coordinates of one world into those of another:
+     * 1/8 from the Overworld into the Nether, 8 from the Nether out of it, and 1 otherwise.
+     * Повертає множник, що перетворює горизонтальні координати одного світу в координати іншого:
+     * 1/8 зі Звичайного світу в Незер, 8 з Незеру назовні, та 1 в інших випадках.
+     */
+    public static double coordinateScale(World from, World to) {
+        return blocksPerUnit(from.getEnvironment()) / blocksPerUnit(to.getEnvironment());
+    }
+
+    private static double blocksPerUnit(World.Environment environment) {
+        return (environment == World.Environment.NETHER) ? 8.0 : 1.0;
+    }
+
     /**
      * Calculates the intersection point of two lines in a 2D plane, defined by two points and their yaw angles.
      * This is used for triangulating the position of a stronghold.
@@ -0,0 +1,97 @@
+package org.speedrun.speedrun.utils;
+
+import org.bukkit.Axis;
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Material;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.block.data.Orientable;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Finds the nearest nether portal block around a point, working purely on chunk snapshots.
+ * Columns are visited in square rings of growing horizontal distance, and every column is read outwards
+ * from the centre height, so the first ring with a hit holds the nearest portal. Chunks whose palette
+ * has no portal block are skipped without reading a single block. Safe to run off the main thread.
+ * |
+ * Знаходить найближчий блок порталу в Незер навколо точки, працюючи лише зі знімками чанків.
+ * Колони обходяться квадратними кільцями зі зростаючою горизонтальною відстанню, а кожна колона читається
+ * від висоти центру назовні, тож перше кільце зі збігом містить найближчий портал. Чанки, палітра яких
+ * не містить блоку порталу, пропускаються без читання жодного блоку. Безпечно виконується поза основним потоком.
+ */
+public final class PortalLocator {
+
+    // Every state of the portal block, for the palette check. / Усі стани блоку порталу, для перевірки палітри.
+    private static final BlockData[] PORTAL_STATES = {
+            Material.NETHER_PORTAL.createBlockData(data -> ((Orientable) data).setAxis(Axis.X)),
+            Material.NETHER_PORTAL.createBlockData(data -> ((Orientable) data).setAxis(Axis.Z))
+    };
+
+    private PortalLocator() {}
+
+    /**
+     * Searches the rings from {@code firstRing} to {@code lastRing} (horizontal Chebyshev distance) for a portal block.
+     * Шукає блок порталу в кільцях від {@code firstRing} до {@code lastRing} (горизонтальна відстань Чебишева).
+     *
+     * @param grid Snapshots covering at least the searched rings. / Знімки, що покривають щонайменше кільця пошуку.
+     * @return {x, y, z} of the nearest portal block in the first ring that has one, or null. / {x, y, z} найближчого блоку порталу в першому кільці, де він є, або null.
+     */
+    @Nullable
+    public static int[] findNearest(SnapshotGrid grid, int centerX, int centerY, int centerZ, int firstRing, int lastRing) {
+        BlockCursor cursor = new BlockCursor();
+        ChunkSnapshot lastSnapshot = null;
+        boolean lastHasPortal = false;
+
+        for (int ring = Math.max(0, firstRing); ring <= lastRing; ring++) {
+            int[] best = null;
+            long bestDistance = Long.MAX_VALUE;
+
+            // A shell clamped to one layer is exactly the square ring of columns. / Оболонка, обмежена одним шаром, це якраз квадратне кільце колон.
+            cursor.shell(centerX, centerY, centerZ, ring).clampY(centerY, centerY);
+            while (cursor.next()) {
+                ChunkSnapshot snapshot = grid.get(cursor.x(), cursor.z());
+                if (snapshot == null) continue;
+                if (snapshot != lastSnapshot) {
+                    lastSnapshot = snapshot;
+                    lastHasPortal = hasPortal(snapshot);
+                }
+                if (!lastHasPortal) continue;
+
+                int y = findInColumn(grid, snapshot, cursor.localX(), cursor.localZ(), centerY);
+                if (y == Integer.MIN_VALUE) continue;
+
+                long dx = cursor.x() - centerX, dy = y - centerY, dz = cursor.z() - centerZ;
+                long distance = dx * dx + dy * dy + dz * dz;
+                if (distance < bestDistance) {
+                    bestDistance = distance;
+                    best = new int[]{cursor.x(), y, cursor.z()};
+                }
+            }
+            if (best != null) return best; // Nothing further out can be in a nearer ring. / Далі нічого не може бути в ближчому кільці.
+        }
+        return null;
+    }
+
+    private static boolean hasPortal(ChunkSnapshot snapshot) {
+        for (BlockData state : PORTAL_STATES) {
+            if (snapshot.contains(state)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Reads a column outwards from the centre height.
+     * Читає колону від висоти центру назовні.
+     *
+     * @return The Y of the portal block closest to {@code centerY}, or {@link Integer#MIN_VALUE}. / Y блоку порталу, найближчого до {@code centerY}, або {@link Integer#MIN_VALUE}.
+     */
+    private static int findInColumn(SnapshotGrid grid, ChunkSnapshot snapshot, int localX, int localZ, int centerY) {
+        for (int offset = 0; ; offset++) {
+            int up = centerY + offset, down = centerY - offset;
+            boolean upInside = grid.isInHeight(up), downInside = grid.isInHeight(down);
+            if (!upInside && !downInside) return Integer.MIN_VALUE;
+
+            if (upInside && snapshot.getBlockType(localX, up, localZ) == Material.NETHER_PORTAL) return up;
+            if (offset > 0 && downInside && snapshot.getBlockType(localX, down, localZ) == Material.NETHER_PORTAL) return down;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package org.speedrun.speedrun.utils;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A streaming least-squares intersection of horizontal rays, used to estimate the stronghold from eye-of-ender throws.
+ * Each ray adds its term to a 2x2 system of normal equations, so adding a ray and solving are both O(1) however many
+ * throws were captured. The point minimising the sum of squared perpendicular distances to all rays is the estimate,
+ * and the root-mean-square of those distances is its error. The rays themselves are kept for later analysis.
+ * |
+ * Потокове перетинання горизонтальних променів методом найменших квадратів, що використовується для оцінки фортеці
+ * за кидками ока Енду. Кожен промінь додає свій доданок до системи нормальних рівнянь 2x2, тож додавання променя і
+ * розв'язання виконуються за O(1) незалежно від кількості кидків. Оцінкою є точка, що мінімізує суму квадратів
+ * перпендикулярних відстаней до всіх променів, а середньоквадратична відстань є її похибкою. Самі промені зберігаються
+ * для подальшого аналізу.
+ */
+public final class RayIntersector {
+
+    /**
+     * A ray on the horizontal plane; the direction is normalised.
+     * Промінь на горизонтальній площині; напрямок нормалізовано.
+     */
+    public record Ray(double x, double z, double dirX, double dirZ) {}
+
+    // Below this determinant the rays are (nearly) parallel. / Нижче цього визначника промені (майже) паралельні.
+    private static final double MIN_DETERMINANT = 1e-6;
+
+    private final List<Ray> rays = new ArrayList<>();
+
+    // Sums of n*n^T, n*c and c^2 over the rays, with n the ray normal and c = n . origin.
+    // Суми n*n^T, n*c та c^2 по променях, де n — нормаль променя, а c = n . початок.
+    private double nxx, nxz, nzz;
+    private double bx, bz;
+    private double cc;
+
+    /**
+     * Adds a ray. Rays without a horizontal direction are ignored.
+     * Додає промінь. Промені без горизонтального напрямку ігноруються.
+     *
+     * @return True if the ray was added. / True, якщо промінь додано.
+     */
+    public boolean add(double x, double z, double dirX, double dirZ) {
+        double length = Math.sqrt(dirX * dirX + dirZ * dirZ);
+        if (length < 1e-9) return false;
+        dirX /= length;
+        dirZ /= length;
+
+        double nX = -dirZ, nZ = dirX;
+        double c = nX * x + nZ * z;
+        nxx += nX * nX;
+        nxz += nX * nZ;
+        nzz += nZ * nZ;
+        bx += nX * c;
+        bz += nZ * c;
+        cc += c * c;
+        rays.add(new Ray(x, z, dirX, dirZ));
+        return true;
+    }
+
+    /** Forgets every ray. / Забуває всі промені. */
+    public void clear() {
+        rays.clear();
+        nxx = nxz = nzz = bx = bz = cc = 0;
+    }
+
+    /** @return The number of rays added. / Кількість доданих променів. */
+    public int size() {
+        return rays.size();
+    }
+
+    /** @return The rays added so far, oldest first. / Додані промені, від найстарішого. */
+    public List<Ray> getRays() {
+        return Collections.unmodifiableList(rays);
+    }
+
+    /**
+     * Solves for the point closest to all rays.
+     * Знаходить точку, найближчу до всіх променів.
+     *
+     * @return {x, z}, or null if there are fewer than two non-parallel rays. / {x, z}, або null, якщо непаралельних променів менше двох.
+     */
+    @Nullable
+    public double[] solve() {
+        double det = nxx * nzz - nxz * nxz;
+        if (rays.size() < 2 || Math.abs(det) < MIN_DETERMINANT) return null;
+        return new double[]{(nzz * bx - nxz * bz) / det, (nxx * bz - nxz * bx) / det};
+    }
+
+    /**
+     * Returns the root-mean-square perpendicular distance from the estimate to the rays. Two rays always meet exactly,
+     * so this only becomes meaningful from the third ray on.
+     * Повертає середньоквадратичну перпендикулярну відстань від оцінки до променів. Два промені завжди перетинаються
+     * точно, тож значення стає змістовним лише з третього променя.
+     *
+     * @return The error in blocks, or {@link Double#NaN} if there is no estimate. / Похибка в блоках, або {@link Double#NaN}, якщо оцінки немає.
+     */
+    public double getError() {
+        double[] p = solve();
+        if (p == null) return Double.NaN;
+        // Residual of the normal equations: sum(c^2) - b . p. / Залишок нормальних рівнянь: sum(c^2) - b . p.
+        double residual = Math.max(0, cc - (bx * p[0] + bz * p[1]));
+        return Math.sqrt(residual / rays.size());
+    }
+}
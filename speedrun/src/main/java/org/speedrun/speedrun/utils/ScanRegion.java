@@ -0,0 +1,158 @@
+package org.speedrun.speedrun.utils;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An axis-aligned block region scanned once on behalf of a group of nearby players.
+ * Players whose scan cubes overlap on the chunk grid are merged into one region, so a group
+ * travelling together costs roughly a single scan instead of one scan per player.
+ * |
+ * Вирівняна по осях область блоків, яка сканується один раз для групи гравців поруч.
+ * Гравці, чиї куби сканування перетинаються на сітці чанків, об'єднуються в одну область,
+ * тож група, що подорожує разом, коштує приблизно одне сканування замість одного на кожного гравця.
+ */
+public final class ScanRegion {
+    private final World world;
+    private final List<Player> players = new ArrayList<>();
+    // Member positions captured on the main thread, so the region can be read from scanner threads.
+    // Позиції учасників, захоплені в основному потоці, щоб область можна було читати з потоків сканерів.
+    private final List<Location> positions = new ArrayList<>();
+    private int minX, minY, minZ, maxX, maxY, maxZ;
+
+    private ScanRegion(Player player, int radius, int verticalRadius) {
+        Location loc = player.getLocation();
+        this.world = loc.getWorld();
+        this.minX = loc.getBlockX() - radius;
+        this.maxX = loc.getBlockX() + radius;
+        this.minZ = loc.getBlockZ() - radius;
+        this.maxZ = loc.getBlockZ() + radius;
+        // Clamp to the world's build limits; blocks outside them are always air.
+        // Обмежуємо висотою світу; блоки поза нею завжди є повітрям.
+        this.minY = Math.max(world.getMinHeight(), loc.getBlockY() - verticalRadius);
+        this.maxY = Math.min(world.getMaxHeight() - 1, loc.getBlockY() + verticalRadius);
+        players.add(player);
+        positions.add(loc);
+    }
+
+    /**
+     * Groups players into shared scan regions.
+     * Two regions are merged when their chunk footprints overlap and the merged bounding box
+     * is not larger than scanning both separately, so merging never costs extra block reads.
+     * |
+     * Групує гравців у спільні області сканування.
+     * Дві області об'єднуються, коли їхні відбитки на сітці чанків перетинаються, а об'єднана
+     * обмежувальна рамка не більша за окреме сканування обох, тож об'єднання ніколи не додає зайвих читань блоків.
+     *
+     * @param players The players to group. / Гравці для групування.
+     * @param radius The horizontal scan radius around each player. / Горизонтальний радіус сканування навколо кожного гравця.
+     * @param verticalRadius The vertical scan radius around each player. / Вертикальний радіус сканування навколо кожного гравця.
+     * @return The merged scan regions. / Об'єднані області сканування.
+     */
+    public static List<ScanRegion> cluster(Collection<? extends Player> players, int radius, int verticalRadius) {
+        if (players.isEmpty()) return Collections.emptyList();
+
+        List<ScanRegion> regions = new ArrayList<>(players.size());
+        for (Player player : players) {
+            regions.add(new ScanRegion(player, radius, verticalRadius));
+        }
+
+        // Repeat until stable: a merge can grow a region enough to absorb another one.
+        // Повторюємо до стабільності: об'єднання може збільшити область достатньо, щоб поглинути іншу.
+        boolean merged = true;
+        while (merged) {
+            merged = false;
+            for (int i = 0; i < regions.size() && !merged; i++) {
+                for (int j = i + 1; j < regions.size(); j++) {
+                    ScanRegion a = regions.get(i);
+                    ScanRegion b = regions.get(j);
+                    if (a.shouldMerge(b)) {
+                        a.absorb(b);
+                        regions.remove(j);
+                        merged = true;
+                        break;
+                    }
+                }
+            }
+        }
+        return regions;
+    }
+
+    private boolean shouldMerge(ScanRegion other) {
+        if (!world.equals(other.world)) return false;
+
+        // Overlap test on the chunk grid. / Перевірка перетину на сітці чанків.
+        if ((maxX >> 4) < (other.minX >> 4) || (other.maxX >> 4) < (minX >> 4)) return false;
+        if ((maxZ >> 4) < (other.minZ >> 4) || (other.maxZ >> 4) < (minZ >> 4)) return false;
+
+        long unionVolume = (long) (Math.max(maxX, other.maxX) - Math.min(minX, other.minX) + 1)
+                * (Math.max(maxY, other.maxY) - Math.min(minY, other.minY) + 1)
+                * (Math.max(maxZ, other.maxZ) - Math.min(minZ, other.minZ) + 1);
+        return unionVolume <= volume() + other.volume();
+    }
+
+    private void absorb(ScanRegion other) {
+        minX = Math.min(minX, other.minX);
+        minY = Math.min(minY, other.minY);
+        minZ = Math.min(minZ, other.minZ);
+        maxX = Math.max(maxX, other.maxX);
+        maxY = Math.max(maxY, other.maxY);
+        maxZ = Math.max(maxZ, other.maxZ);
+        players.addAll(other.players);
+        positions.addAll(other.positions);
+    }
+
+    /**
+     * Finds the group member closest to a block, used to credit a discovery to a player.
+     * Знаходить учасника групи, найближчого до блоку; використовується, щоб зарахувати знахідку гравцеві.
+     */
+    public Player nearestPlayer(int x, int y, int z) {
+        Player nearest = null;
+        double best = Double.MAX_VALUE;
+        for (int i = 0; i < players.size(); i++) {
+            Location loc = positions.get(i);
+            double dx = loc.getX() - x, dy = loc.getY() - y, dz = loc.getZ() - z;
+            double distSq = dx * dx + dy * dy + dz * dz;
+            if (distSq < best) {
+                best = distSq;
+                nearest = players.get(i);
+            }
+        }
+        return nearest;
+    }
+
+    /**
+     * Checks whether a block lies within the given reach of at least one group member.
+     * Перевіряє, чи блок знаходиться в межах заданої досяжності хоча б одного учасника групи.
+     */
+    public boolean isWithinReach(int x, int y, int z, int radius, int verticalRadius) {
+        for (Location loc : positions) {
+            if (Math.abs(loc.getBlockX() - x) <= radius
+                    && Math.abs(loc.getBlockZ() - z) <= radius
+                    && Math.abs(loc.getBlockY() - y) <= verticalRadius) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** @return The number of blocks covered by this region. / Кількість блоків, які охоплює ця область. */
+    public long volume() {
+        return (long) (maxX - minX + 1) * (maxY - minY + 1) * (maxZ - minZ + 1);
+    }
+
+    public World getWorld() { return world; }
+    public List<Player> getPlayers() { return players; }
+    public int getMinX() { return minX; }
+    public int getMinY() { return minY; }
+    public int getMinZ() { return minZ; }
+    public int getMaxX() { return maxX; }
+    public int getMaxY() { return maxY; }
+    public int getMaxZ() { return maxZ; }
+}
@@ -0,0 +1,112 @@
+package org.speedrun.speedrun.utils;
+
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Evaluates many {@link BlockSignature}s in a single pass over a scan region.
+ * A material-indexed lookup table maps every block type straight to the signatures interested in it,
+ * so each block is read exactly once no matter how many signatures are active.
+ * Reads only chunk snapshots and is safe to run off the main thread.
+ * |
+ * Перевіряє багато {@link BlockSignature} за один прохід по області сканування.
+ * Таблиця пошуку, індексована матеріалом, одразу зіставляє кожен тип блоку із сигнатурами, яким він цікавий,
+ * тож кожен блок читається рівно один раз незалежно від кількості активних сигнатур.
+ * Читає лише знімки чанків і безпечно виконується поза основним потоком.
+ */
+public final class SignatureScanner {
+
+    /**
+     * A satisfied signature, the block that completed it and the group member closest to that block.
+     * Виконана сигнатура, блок, що її завершив, та учасник групи, найближчий до цього блоку.
+     */
+    public record Match(BlockSignature signature, Player finder, World world, int x, int y, int z) {}
+
+    private final List<BlockSignature> signatures;
+    // Material ordinal -> indices of the signatures that react to it (null when none do).
+    // Порядковий номер матеріалу -> індекси сигнатур, що на нього реагують (null, якщо жодна).
+    private final int[][] byMaterial;
+    private final int maxRadius;
+    private final int maxVerticalSpan;
+
+    public SignatureScanner(List<BlockSignature> signatures) {
+        this.signatures = signatures;
+        this.byMaterial = new int[Material.values().length][];
+
+        int radius = 0, span = 0;
+        for (int i = 0; i < signatures.size(); i++) {
+            BlockSignature signature = signatures.get(i);
+            radius = Math.max(radius, signature.getRadius());
+            span = Math.max(span, signature.getVerticalSpan());
+            for (Material material : signature.getMaterials()) {
+                int[] existing = byMaterial[material.ordinal()];
+                int[] extended = (existing == null) ? new int[1] : Arrays.copyOf(existing, existing.length + 1);
+                extended[extended.length - 1] = i;
+                byMaterial[material.ordinal()] = extended;
+            }
+        }
+        this.maxRadius = radius;
+        this.maxVerticalSpan = span;
+    }
+
+    /**
+     * Scans one region and returns every signature that reached its minimum count.
+     * Each block is counted only for signatures whose own radius and vertical span cover it from some group member.
+     * |
+     * Сканує одну область і повертає кожну сигнатуру, що досягла своєї мінімальної кількості.
+     * Кожен блок зараховується лише тим сигнатурам, чиї власні радіус і вертикальний діапазон покривають його від когось із групи.
+     *
+     * @param grid Snapshots covering the region. / Знімки, що покривають область.
+     * @param region The region to scan. / Область для сканування.
+     * @return The satisfied signatures. / Виконані сигнатури.
+     */
+    public List<Match> scan(SnapshotGrid grid, ScanRegion region) {
+        List<Match> matches = new ArrayList<>();
+        int[] counts = new int[signatures.size()];
+        boolean[] satisfied = new boolean[signatures.size()];
+        int remaining = signatures.size();
+
+        // The cursor walks column by column, so each snapshot is looked up once per column.
+        // Курсор іде колона за колоною, тож кожен знімок шукається лише раз на колону.
+        BlockCursor cursor = new BlockCursor().cube(region.getMinX(), region.getMinY(), region.getMinZ(),
+                region.getMaxX(), region.getMaxY(), region.getMaxZ());
+        ChunkSnapshot snapshot = null;
+        while (cursor.next()) {
+            if (cursor.isNewColumn()) snapshot = grid.get(cursor.x(), cursor.z());
+            if (snapshot == null) continue;
+            int x = cursor.x(), y = cursor.y(), z = cursor.z();
+
+            int[] candidates = byMaterial[snapshot.getBlockType(cursor.localX(), y, cursor.localZ()).ordinal()];
+            if (candidates == null) continue;
+
+            for (int index : candidates) {
+                if (satisfied[index]) continue;
+                BlockSignature signature = signatures.get(index);
+                if (!region.isWithinReach(x, y, z, signature.getRadius(), signature.getVerticalSpan())) continue;
+                if (signature.hasDataPredicate() && !signature.matchesData(snapshot.getBlockData(cursor.localX(), y, cursor.localZ()))) continue;
+
+                if (++counts[index] >= signature.getMinCount()) {
+                    satisfied[index] = true;
+                    matches.add(new Match(signature, region.nearestPlayer(x, y, z), region.getWorld(), x, y, z));
+                    if (--remaining == 0) return matches; // Everything found, stop early. / Усе знайдено, зупиняємось.
+                }
+            }
+        }
+        return matches;
+    }
+
+    /** @return True if there is nothing to look for. / True, якщо нема чого шукати. */
+    public boolean isEmpty() { return signatures.isEmpty(); }
+
+    /** @return The largest horizontal radius among the signatures. / Найбільший горизонтальний радіус серед сигнатур. */
+    public int getMaxRadius() { return maxRadius; }
+
+    /** @return The largest vertical span among the signatures. / Найбільший вертикальний діапазон серед сигнатур. */
+    public int getMaxVerticalSpan() { return maxVerticalSpan; }
+}
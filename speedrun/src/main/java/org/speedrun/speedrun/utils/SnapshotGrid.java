@@ -0,0 +1,57 @@
+package org.speedrun.speedrun.utils;
+
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.World;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A rectangular grid of immutable chunk snapshots covering a block area.
+ * Snapshots are captured on the main thread and can then be read safely from any thread,
+ * which lets scanners do their block work off the main thread.
+ * |
+ * Прямокутна сітка незмінних знімків чанків, що покриває область блоків.
+ * Знімки захоплюються в основному потоці, після чого їх можна безпечно читати з будь-якого потоку,
+ * що дозволяє сканерам виконувати роботу з блоками поза основним потоком.
+ */
+public final class SnapshotGrid {
+    private final int minChunkX;
+    private final int minChunkZ;
+    private final int width;
+    private final int depth;
+    private final int minY;
+    private final int maxY;
+    private final ChunkSnapshot[] snapshots;
+
+    public SnapshotGrid(World world, int minChunkX, int minChunkZ, int maxChunkX, int maxChunkZ) {
+        this.minY = world.getMinHeight();
+        this.maxY = world.getMaxHeight() - 1;
+        this.minChunkX = minChunkX;
+        this.minChunkZ = minChunkZ;
+        this.width = maxChunkX - minChunkX + 1;
+        this.depth = maxChunkZ - minChunkZ + 1;
+        this.snapshots = new ChunkSnapshot[width * depth];
+    }
+
+    /** Stores the snapshot of a chunk inside the grid. / Зберігає знімок чанка в сітці. */
+    public void set(int chunkX, int chunkZ, ChunkSnapshot snapshot) {
+        int dx = chunkX - minChunkX, dz = chunkZ - minChunkZ;
+        if (dx < 0 || dz < 0 || dx >= width || dz >= depth) return;
+        snapshots[dz * width + dx] = snapshot;
+    }
+
+    /**
+     * @return The snapshot of the chunk containing the given block column, or null if it is outside the grid or not loaded.
+     *         / Знімок чанка, що містить вказану колону блоків, або null, якщо вона поза сіткою чи не завантажена.
+     */
+    @Nullable
+    public ChunkSnapshot get(int blockX, int blockZ) {
+        int dx = (blockX >> 4) - minChunkX, dz = (blockZ >> 4) - minChunkZ;
+        if (dx < 0 || dz < 0 || dx >= width || dz >= depth) return null;
+        return snapshots[dz * width + dx];
+    }
+
+    /** @return True if the Y coordinate lies inside the world's build limits. / True, якщо координата Y у межах висоти світу. */
+    public boolean isInHeight(int y) {
+        return y >= minY && y <= maxY;
+    }
+}
@@ -0,0 +1,273 @@
+package org.speedrun.speedrun.utils;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * A per-world uniform grid hash over points of interest (structures, portals, waypoints).
+ * Every value is bucketed by the horizontal grid cell of its location, so nearest-K and radius queries only visit
+ * the cells around the query point, expanding ring by ring until no unvisited cell can hold anything closer.
+ * When the rings would visit more cells than are occupied, the remaining occupied cells are scanned directly,
+ * so a query far away from everything never walks empty space. Locations are taken once, when a value is added.
+ * Queries can be made from another dimension: the query point is scaled 8:1 between the Overworld and the Nether.
+ * Must only be used from the main thread.
+ * |
+ * Сітковий хеш по світах для точок інтересу (структур, порталів, путівних точок).
+ * Кожне значення розкладається за горизонтальною клітинкою сітки його локації, тож запити K найближчих і запити
+ * в радіусі відвідують лише клітинки навколо точки запиту, розширюючись кільце за кільцем, доки жодна невідвідана
+ * клітинка не може містити нічого ближчого. Коли кільця відвідали б більше клітинок, ніж зайнято, решта зайнятих
+ * клітинок перебирається напряму, тож запит далеко від усього ніколи не обходить порожній простір. Локації
+ * беруться один раз, під час додавання значення. Запити можна робити з іншого виміру: точка запиту масштабується
+ * 8:1 між Верхнім світом та Незером. Використовувати лише з основного потоку.
+ *
+ * @param <T> The indexed value. / Індексоване значення.
+ */
+public final class SpatialIndex<T> {
+
+    private record Entry<T>(double x, double y, double z, T value) {
+        double distanceSquared(double px, double py, double pz) {
+            double dx = x - px, dy = y - py, dz = z - pz;
+            return dx * dx + dy * dy + dz * dz;
+        }
+    }
+
+    private record Candidate<T>(double distance, T value) {}
+
+    /** The cells of one world. / Клітинки одного світу. */
+    private static final class Grid<T> {
+        final Map<Long, List<Entry<T>>> cells = new HashMap<>();
+        int size = 0;
+    }
+
+    private final int cellShift;
+    private final Function<T, Location> locator;
+    private final Map<UUID, Grid<T>> grids = new HashMap<>();
+
+    /**
+     * @param cellSize The width of a grid cell in blocks, rounded up to a power of two. / Ширина клітинки сітки в блоках, округлена вгору до степеня двійки.
+     * @param locator Gives the location of a value when it is added. / Дає локацію значення під час додавання.
+     */
+    public SpatialIndex(int cellSize, Function<T, Location> locator) {
+        this.cellShift = 32 - Integer.numberOfLeadingZeros(Math.max(1, cellSize) - 1);
+        this.locator = locator;
+    }
+
+    /** Adds a value at its current location. / Додає значення в його поточній локації. */
+    public void add(T value) {
+        Location loc = locator.apply(value);
+        Grid<T> grid = grids.computeIfAbsent(loc.getWorld().getUID(), id -> new Grid<>());
+        grid.cells.computeIfAbsent(cellKey(loc.getX(), loc.getZ()), key -> new ArrayList<>(2))
+                .add(new Entry<>(loc.getX(), loc.getY(), loc.getZ(), value));
+        grid.size++;
+    }
+
+    /**
+     * Removes a value. Its location must not have changed since it was added.
+     * Видаляє значення. Його локація не повинна змінитися з моменту додавання.
+     *
+     * @return True if the value was indexed. / True, якщо значення було в індексі.
+     */
+    public boolean remove(T value) {
+        Location loc = locator.apply(value);
+        Grid<T> grid = grids.get(loc.getWorld().getUID());
+        if (grid == null) return false;
+        long key = cellKey(loc.getX(), loc.getZ());
+        List<Entry<T>> cell = grid.cells.get(key);
+        if (cell == null) return false;
+
+        for (Iterator<Entry<T>> it = cell.iterator(); it.hasNext(); ) {
+            if (it.next().value() == value) {
+                it.remove();
+                if (cell.isEmpty()) grid.cells.remove(key);
+                grid.size--;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Removes everything. / Видаляє все. */
+    public void clear() {
+        grids.clear();
+    }
+
+    /** @return True if nothing is indexed in any world. / True, якщо в жодному світі нічого не проіндексовано. */
+    public boolean isEmpty() {
+        for (Grid<T> grid : grids.values()) {
+            if (grid.size > 0) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Finds the values nearest to a location in its own world.
+     * Знаходить значення, найближчі до локації в її власному світі.
+     *
+     * @return Up to {@code k} values, nearest first. / До {@code k} значень, від найближчого.
+     */
+    public List<T> nearest(Location from, int k) {
+        return nearest(from, from.getWorld(), k);
+    }
+
+    /**
+     * Finds the values nearest to a location in another world, with the location scaled into that world's coordinates.
+     * Знаходить значення, найближчі до локації в іншому світі, з локацією, масштабованою в координати того світу.
+     *
+     * @return Up to {@code k} values, nearest first. / До {@code k} значень, від найближчого.
+     */
+    public List<T> nearest(Location from, World world, int k) {
+        Grid<T> grid = grids.get(world.getUID());
+        if (grid == null || grid.size == 0 || k <= 0) return Collections.emptyList();
+
+        double scale = LocationUtil.coordinateScale(from.getWorld(), world);
+        double px = from.getX() * scale, py = from.getY(), pz = from.getZ() * scale;
+        int cx = (int) Math.floor(px) >> cellShift, cz = (int) Math.floor(pz) >> cellShift;
+
+        // Max-heap of the best k so far. / Max-купа найкращих k на цей момент.
+        PriorityQueue<Candidate<T>> best = new PriorityQueue<>(k + 1, (a, b) -> Double.compare(b.distance(), a.distance()));
+        int cellSize = 1 << cellShift;
+
+        for (int ring = 0; ; ring++) {
+            // Everything in this ring or further is at least this far away. / Усе в цьому кільці чи далі щонайменше настільки далеко.
+            double reach = (double) Math.max(0, ring - 1) * cellSize;
+            if (best.size() == k && best.peek().distance() <= reach * reach) break;
+
+            if (8L * ring > grid.cells.size()) {
+                // Walking further rings costs more than scanning what is left. / Обхід подальших кілець дорожчий за перебір решти.
+                scanOutside(grid, cx, cz, ring - 1, px, py, pz, k, best);
+                break;
+            }
+            visitRing(grid, cx, cz, ring, px, py, pz, k, best);
+        }
+        return drain(best);
+    }
+
+    /**
+     * Finds the value nearest to a location, looking in its own world first and then, with scaling, in every other world.
+     * Знаходить значення, найближче до локації, спершу в її власному світі, а потім, з масштабуванням, у кожному іншому світі.
+     *
+     * @return The nearest value, or null if nothing is indexed. / Найближче значення, або null, якщо нічого не проіндексовано.
+     */
+    @Nullable
+    public T nearestInAnyWorld(Location from) {
+        List<T> own = nearest(from, 1);
+        if (!own.isEmpty()) return own.get(0);
+
+        T nearest = null;
+        double bestDistance = Double.MAX_VALUE;
+        for (UUID worldId : grids.keySet()) {
+            World world = Bukkit.getWorld(worldId);
+            if (world == null || world == from.getWorld()) continue;
+            List<T> found = nearest(from, world, 1);
+            if (found.isEmpty()) continue;
+
+            // Compare in the query world's coordinates. / Порівнюємо в координатах світу запиту.
+            Location loc = locator.apply(found.get(0));
+            double scale = LocationUtil.coordinateScale(world, from.getWorld());
+            double dx = loc.getX() * scale - from.getX(), dz = loc.getZ() * scale - from.getZ();
+            double distance = dx * dx + dz * dz;
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                nearest = found.get(0);
+            }
+        }
+        return nearest;
+    }
+
+    /**
+     * Finds every value within a radius of a location in its own world.
+     * Знаходить усі значення в радіусі від локації в її власному світі.
+     *
+     * @return The values within the radius, in no particular order. / Значення в радіусі, без певного порядку.
+     */
+    public List<T> within(Location from, double radius) {
+        Grid<T> grid = grids.get(from.getWorld().getUID());
+        if (grid == null || grid.size == 0) return Collections.emptyList();
+
+        List<T> result = new ArrayList<>();
+        double radiusSquared = radius * radius;
+        int minX = (int) Math.floor(from.getX() - radius) >> cellShift, maxX = (int) Math.floor(from.getX() + radius) >> cellShift;
+        int minZ = (int) Math.floor(from.getZ() - radius) >> cellShift, maxZ = (int) Math.floor(from.getZ() + radius) >> cellShift;
+
+        if ((long) (maxX - minX + 1) * (maxZ - minZ + 1) > grid.cells.size()) {
+            for (List<Entry<T>> cell : grid.cells.values()) {
+                collectWithin(cell, from, radiusSquared, result);
+            }
+            return result;
+        }
+        for (int x = minX; x <= maxX; x++) {
+            for (int z = minZ; z <= maxZ; z++) {
+                List<Entry<T>> cell = grid.cells.get(LocationUtil.chunkKey(x, z));
+                if (cell != null) collectWithin(cell, from, radiusSquared, result);
+            }
+        }
+        return result;
+    }
+
+    private void collectWithin(List<Entry<T>> cell, Location from, double radiusSquared, List<T> result) {
+        for (Entry<T> entry : cell) {
+            if (entry.distanceSquared(from.getX(), from.getY(), from.getZ()) <= radiusSquared) result.add(entry.value());
+        }
+    }
+
+    private void visitRing(Grid<T> grid, int cx, int cz, int ring, double px, double py, double pz, int k, PriorityQueue<Candidate<T>> best) {
+        if (ring == 0) {
+            offer(grid.cells.get(LocationUtil.chunkKey(cx, cz)), px, py, pz, k, best);
+            return;
+        }
+        for (int i = -ring; i <= ring; i++) {
+            offer(grid.cells.get(LocationUtil.chunkKey(cx + i, cz - ring)), px, py, pz, k, best);
+            offer(grid.cells.get(LocationUtil.chunkKey(cx + i, cz + ring)), px, py, pz, k, best);
+        }
+        for (int i = -ring + 1; i <= ring - 1; i++) {
+            offer(grid.cells.get(LocationUtil.chunkKey(cx - ring, cz + i)), px, py, pz, k, best);
+            offer(grid.cells.get(LocationUtil.chunkKey(cx + ring, cz + i)), px, py, pz, k, best);
+        }
+    }
+
+    /** Offers every occupied cell outside the square of rings already visited. / Пропонує кожну зайняту клітинку поза квадратом уже відвіданих кілець. */
+    private void scanOutside(Grid<T> grid, int cx, int cz, int visitedRing, double px, double py, double pz, int k, PriorityQueue<Candidate<T>> best) {
+        for (Map.Entry<Long, List<Entry<T>>> cell : grid.cells.entrySet()) {
+            long key = cell.getKey();
+            int x = (int) key, z = (int) (key >> 32);
+            if (Math.max(Math.abs(x - cx), Math.abs(z - cz)) <= visitedRing) continue;
+            offer(cell.getValue(), px, py, pz, k, best);
+        }
+    }
+
+    private void offer(@Nullable List<Entry<T>> cell, double px, double py, double pz, int k, PriorityQueue<Candidate<T>> best) {
+        if (cell == null) return;
+        for (Entry<T> entry : cell) {
+            double distance = entry.distanceSquared(px, py, pz);
+            if (best.size() < k) {
+                best.add(new Candidate<>(distance, entry.value()));
+            } else if (distance < best.peek().distance()) {
+                best.poll();
+                best.add(new Candidate<>(distance, entry.value()));
+            }
+        }
+    }
+
+    private List<T> drain(PriorityQueue<Candidate<T>> best) {
+        List<T> result = new ArrayList<>(best.size());
+        while (!best.isEmpty()) result.add(best.poll().value());
+        Collections.reverse(result);
+        return result;
+    }
+
+    private long cellKey(double x, double z) {
+        return LocationUtil.chunkKey((int) Math.floor(x) >> cellShift, (int) Math.floor(z) >> cellShift);
+    }
+}
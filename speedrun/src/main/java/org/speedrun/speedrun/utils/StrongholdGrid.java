@@ -0,0 +1,204 @@
+package org.speedrun.speedrun.utils;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * A probability grid of stronghold positions at chunk resolution. Every chunk of a square window gets the product of
+ * the vanilla prior (strongholds only generate in eight rings around the origin, with a fixed count per ring) and the
+ * likelihood of every eye of ender ray (Gaussian in the perpendicular distance, with the spread growing with distance
+ * along the ray; chunks behind a ray are all but excluded). Cells are evaluated in parallel on the common fork-join
+ * pool; the whole computation is pure and runs off the main thread.
+ * |
+ * Сітка ймовірностей положення фортеці з роздільністю в чанк. Кожен чанк квадратного вікна отримує добуток ванільного
+ * апріорного розподілу (фортеці генеруються лише у восьми кільцях навколо початку координат, з фіксованою кількістю
+ * на кільце) та правдоподібності кожного променя ока Енду (гаусова за перпендикулярною відстанню, з розкидом, що
+ * зростає з відстанню вздовж променя; чанки позаду променя майже виключаються). Клітинки обчислюються паралельно в
+ * спільному пулі fork-join; усе обчислення чисте й виконується поза основним потоком.
+ */
+public final class StrongholdGrid {
+
+    /**
+     * The most likely chunk and the probability mass of it and its eight neighbours.
+     * Найімовірніший чанк та ймовірнісна маса його самого й восьми сусідів.
+     */
+    public record Result(int chunkX, int chunkZ, double confidence) {
+        /** @return The block X of the chunk centre. / Блокова X центру чанка. */
+        public int blockX() { return (chunkX << 4) + 8; }
+
+        /** @return The block Z of the chunk centre. / Блокова Z центру чанка. */
+        public int blockZ() { return (chunkZ << 4) + 8; }
+    }
+
+    // Vanilla stronghold rings: inner and outer radius in blocks, and the number of strongholds.
+    // Ванільні кільця фортець: внутрішній і зовнішній радіус у блоках та кількість фортець.
+    private static final double[][] RINGS = {
+            {1280, 2816, 3}, {4352, 5888, 6}, {7424, 8960, 10}, {10496, 12032, 15},
+            {13568, 15104, 21}, {16640, 18176, 28}, {19712, 21248, 36}, {22784, 24320, 9}
+    };
+    // Outside the rings the prior is this fraction of the first ring's density, so a bad estimate is never impossible.
+    // Поза кільцями апріорна ймовірність є цією часткою щільності першого кільця, тож погана оцінка ніколи не неможлива.
+    private static final double OUTSIDE_RINGS = 1e-3;
+    // Log of each ring's density relative to the first ring. / Логарифм щільності кожного кільця відносно першого.
+    private static final double[] LOG_RING_PRIOR = new double[RINGS.length];
+
+    static {
+        for (int i = 0; i < RINGS.length; i++) {
+            LOG_RING_PRIOR[i] = Math.log(density(RINGS[i]) / density(RINGS[0]));
+        }
+    }
+
+    // Spread of a ray: a fixed part (the eye targets the stronghold's chunk, not its portal) and an angular part.
+    // Розкид променя: фіксована частина (око цілиться в чанк фортеці, а не в її портал) та кутова частина.
+    private static final double SIGMA_BLOCKS = 8.0;
+    private static final double SIGMA_RADIANS = 0.01;
+    // Log-likelihood of a chunk behind a ray. / Лог-правдоподібність чанка позаду променя.
+    private static final double BEHIND_RAY = -50.0;
+
+    // Below this many cells a task is evaluated directly. / Менше цієї кількості клітинок завдання обчислюється напряму.
+    private static final int SEQUENTIAL_CELLS = 4096;
+
+    private StrongholdGrid() {}
+
+    /**
+     * Evaluates the grid in a square window of chunks.
+     * Обчислює сітку у квадратному вікні чанків.
+     *
+     * @param rays The eye of ender rays. / Промені ока Енду.
+     * @param centerX The block X of the window centre. / Блокова X центру вікна.
+     * @param centerZ The block Z of the window centre. / Блокова Z центру вікна.
+     * @param radiusChunks Half the window width in chunks. / Половина ширини вікна в чанках.
+     * @return The most likely chunk, or null if there are no rays. / Найімовірніший чанк, або null, якщо променів немає.
+     */
+    @Nullable
+    public static Result compute(List<RayIntersector.Ray> rays, double centerX, double centerZ, int radiusChunks) {
+        if (rays.isEmpty()) return null;
+        int width = 2 * radiusChunks + 1;
+        int minChunkX = ((int) Math.floor(centerX) >> 4) - radiusChunks;
+        int minChunkZ = ((int) Math.floor(centerZ) >> 4) - radiusChunks;
+        RayIntersector.Ray[] rayArray = rays.toArray(new RayIntersector.Ray[0]);
+
+        // Pass 1: log-weights and the best cell. / Прохід 1: лог-ваги та найкраща клітинка.
+        double[] logWeights = new double[width * width];
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        double[] best = pool.invoke(new Evaluate(rayArray, logWeights, width, minChunkX, minChunkZ, 0, logWeights.length));
+
+        // Pass 2: normalise against the best cell to stay in range. / Прохід 2: нормалізуємо відносно найкращої клітинки, щоб лишитися в межах.
+        double total = pool.invoke(new Normalize(logWeights, best[0], 0, logWeights.length));
+
+        int bestIndex = (int) best[1];
+        int bestX = bestIndex % width, bestZ = bestIndex / width;
+        double neighbourhood = 0;
+        for (int dz = -1; dz <= 1; dz++) {
+            for (int dx = -1; dx <= 1; dx++) {
+                int x = bestX + dx, z = bestZ + dz;
+                if (x >= 0 && x < width && z >= 0 && z < width) neighbourhood += logWeights[z * width + x];
+            }
+        }
+        return new Result(minChunkX + bestX, minChunkZ + bestZ, neighbourhood / total);
+    }
+
+    /** Computes log-weights for a range of cells; returns {max log-weight, index of the max}. / Обчислює лог-ваги для діапазону клітинок; повертає {макс. лог-вага, індекс максимуму}. */
+    private static final class Evaluate extends RecursiveTask<double[]> {
+        private final RayIntersector.Ray[] rays;
+        private final double[] logWeights;
+        private final int width, minChunkX, minChunkZ, from, to;
+
+        Evaluate(RayIntersector.Ray[] rays, double[] logWeights, int width, int minChunkX, int minChunkZ, int from, int to) {
+            this.rays = rays;
+            this.logWeights = logWeights;
+            this.width = width;
+            this.minChunkX = minChunkX;
+            this.minChunkZ = minChunkZ;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected double[] compute() {
+            if (to - from > SEQUENTIAL_CELLS) {
+                int mid = (from + to) >>> 1;
+                Evaluate left = new Evaluate(rays, logWeights, width, minChunkX, minChunkZ, from, mid);
+                left.fork();
+                double[] right = new Evaluate(rays, logWeights, width, minChunkX, minChunkZ, mid, to).compute();
+                double[] leftResult = left.join();
+                return (leftResult[0] >= right[0]) ? leftResult : right;
+            }
+
+            double max = Double.NEGATIVE_INFINITY;
+            int maxIndex = from;
+            for (int i = from; i < to; i++) {
+                double x = ((minChunkX + i % width) << 4) + 8;
+                double z = ((minChunkZ + i / width) << 4) + 8;
+                double logWeight = logPrior(x, z);
+                for (RayIntersector.Ray ray : rays) {
+                    logWeight += logLikelihood(ray, x, z);
+                }
+                logWeights[i] = logWeight;
+                if (logWeight > max) {
+                    max = logWeight;
+                    maxIndex = i;
+                }
+            }
+            return new double[]{max, maxIndex};
+        }
+    }
+
+    /** Turns log-weights into weights relative to the max; returns their sum. / Перетворює лог-ваги на ваги відносно максимуму; повертає їхню суму. */
+    private static final class Normalize extends RecursiveTask<Double> {
+        private final double[] weights;
+        private final double max;
+        private final int from, to;
+
+        Normalize(double[] weights, double max, int from, int to) {
+            this.weights = weights;
+            this.max = max;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Double compute() {
+            if (to - from > SEQUENTIAL_CELLS) {
+                int mid = (from + to) >>> 1;
+                Normalize left = new Normalize(weights, max, from, mid);
+                left.fork();
+                double right = new Normalize(weights, max, mid, to).compute();
+                return left.join() + right;
+            }
+            double sum = 0;
+            for (int i = from; i < to; i++) {
+                weights[i] = Math.exp(weights[i] - max);
+                sum += weights[i];
+            }
+            return sum;
+        }
+    }
+
+    private static double logPrior(double x, double z) {
+        double r = Math.sqrt(x * x + z * z);
+        for (int i = 0; i < RINGS.length; i++) {
+            if (r >= RINGS[i][0] && r <= RINGS[i][1]) return LOG_RING_PRIOR[i];
+        }
+        return Math.log(OUTSIDE_RINGS);
+    }
+
+    private static double density(double[] ring) {
+        return ring[2] / (Math.PI * (ring[1] * ring[1] - ring[0] * ring[0]));
+    }
+
+    private static double logLikelihood(RayIntersector.Ray ray, double x, double z) {
+        double vx = x - ray.x(), vz = z - ray.z();
+        double along = vx * ray.dirX() + vz * ray.dirZ();
+        if (along <= 0) return BEHIND_RAY;
+        double perpendicular = vx * ray.dirZ() - vz * ray.dirX();
+        double sigma = Math.sqrt(SIGMA_BLOCKS * SIGMA_BLOCKS + (SIGMA_RADIANS * along) * (SIGMA_RADIANS * along));
+        // Roughly the angular error, so no normalisation by sigma: that would pull every estimate towards the thrower.
+        // Приблизно кутова похибка, тому без нормалізації на sigma: вона тягнула б кожну оцінку до того, хто кидав.
+        double ratio = perpendicular / sigma;
+        return -0.5 * ratio * ratio;
+    }
+}
@@ -4,12 +4,15 @@ import net.kyori.adventure.text.Component;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.entity.Player;
-import org.bukkit.scheduler.BukkitRunnable;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
 import org.speedrun.speedrun.Speedrun;
+import org.speedrun.speedrun.events.PlayerBlockChangeEvent;
 
-public class TabCoordinateDisplay {
+public class TabCoordinateDisplay implements Listener {
     private final Speedrun plugin;
-    private BukkitRunnable task;
+    private boolean enabled = false;
 
     public TabCoordinateDisplay(Speedrun plugin) {
         this.plugin = plugin;
@@ -21,24 +24,29 @@ public class TabCoordinateDisplay {
             return;
         }
 
-        task = new BukkitRunnable() {
-            @Override
-            public void run() {
-                for (Player p : Bukkit.getOnlinePlayers()) {
-                    Location loc = p.getLocation();
-                    String text = String.format("§eX: §f%d  §eY: §f%d  §eZ: §f%d",
-                            loc.getBlockX(), loc.getBlockY(), loc.getBlockZ());
-                    p.sendPlayerListHeaderAndFooter(Component.text(text), Component.empty());
-                }
-            }
-        };
-        task.runTaskTimer(plugin, 20L, 20L); // every second
+        // Updated only when a player enters another block, so idle players cost nothing
+        Bukkit.getPluginManager().registerEvents(this, plugin);
+        enabled = true;
+        for (Player p : Bukkit.getOnlinePlayers()) {
+            show(p, p.getLocation());
+        }
     }
 
     public void disable() {
-        if (task != null) {
-            task.cancel();
-            task = null;
+        if (enabled) {
+            HandlerList.unregisterAll(this);
+            enabled = false;
         }
     }
+
+    @EventHandler
+    public void onPlayerBlockChange(PlayerBlockChangeEvent event) {
+        show(event.getPlayer(), event.getTo());
+    }
+
+    private void show(Player p, Location loc) {
+        String text = String.format("§eX: §f%d  §eY: §f%d  §eZ: §f%d",
+                loc.getBlockX(), loc.getBlockY(), loc.getBlockZ());
+        p.sendPlayerListHeaderAndFooter(Component.text(text), Component.empty());
+    }
 }